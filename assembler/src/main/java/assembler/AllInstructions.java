@@ -1,5 +1,7 @@
 package assembler;
 
+import emu.AddressingMode;
+
 final class AllInstructions {
     static final Instruction[] INSTRUCTIONS = {
         /*
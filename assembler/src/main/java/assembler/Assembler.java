@@ -1,5 +1,6 @@
 package assembler;
 
+import emu.AddressingMode;
 import emu_format.*;
 
 import java.io.*;
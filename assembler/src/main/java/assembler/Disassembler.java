@@ -1,5 +1,7 @@
 package assembler;
 
+import emu.AddressingMode;
+
 import java.util.ArrayList;
 
 public class Disassembler {
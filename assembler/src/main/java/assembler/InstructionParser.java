@@ -1,5 +1,7 @@
 package assembler;
 
+import emu.AddressingMode;
+
 class InstructionParser {
     // A class to parse instructions
 
@@ -1,5 +1,7 @@
 package assembler;
 
+import emu.AddressingMode;
+
 class OpcodeInformation {
     final private boolean official;   // unofficial opcodes are supported, but the assembler should warn the user if the are used
     final private AddressingMode mode;    // the addressing mode of the opcode
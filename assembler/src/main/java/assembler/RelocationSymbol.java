@@ -1,5 +1,7 @@
 package assembler;
 
+import emu.AddressingMode;
+
 class RelocationSymbol {
     // Used for resolving symbol references in files
     final private String name;    // the symbol's name
@@ -0,0 +1,99 @@
+package bench;
+
+import emu.AddressingMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddressingModeBenchmark extends EmulatorState {
+    /*
+
+    Runs loads and ALU operations in a single addressing mode
+
+    The kernel is a loop of LDA, ADC, AND and ORA in the mode, twice over, counted down by whichever index register
+        the mode does not use. X is 4 for the X-indexed modes. The pointers at $20 and $28 point at $0300, so
+        (zp),Y reads $0300-$03FF and (zp,X) reads $0300; abs,X reads $0404. No access crosses a page.
+
+     */
+
+    final private static int LOOP = Programs.ORIGIN + 4;    // after LDX #4; LDY #0
+
+    @Param({"Immediate", "ZeroPage", "ZeroPageX", "AbsoluteX", "IndirectY", "IndirectX"})
+    public AddressingMode mode;
+
+    @Setup
+    public void setUp() {
+        // the opcodes of LDA, ADC, AND and ORA in the mode, and their operand
+        int[] opcodes;
+        int[] operand;
+        switch (this.mode) {
+            case Immediate:
+                opcodes = new int[]{0xA9, 0x69, 0x29, 0x09};
+                operand = new int[]{0x5A};
+                break;
+            case ZeroPage:
+                opcodes = new int[]{0xA5, 0x65, 0x25, 0x05};
+                operand = new int[]{0x10};
+                break;
+            case ZeroPageX:
+                opcodes = new int[]{0xB5, 0x75, 0x35, 0x15};
+                operand = new int[]{0x10};
+                break;
+            case AbsoluteX:
+                opcodes = new int[]{0xBD, 0x7D, 0x3D, 0x1D};
+                operand = new int[]{0x00, 0x04};
+                break;
+            case IndirectY:
+                opcodes = new int[]{0xB1, 0x71, 0x31, 0x11};
+                operand = new int[]{0x20};
+                break;
+            case IndirectX:
+                opcodes = new int[]{0xA1, 0x61, 0x21, 0x01};
+                operand = new int[]{0x24};
+                break;
+            default:
+                throw new IllegalArgumentException("No kernel for " + this.mode);
+        }
+
+        boolean indexedByX = this.mode == AddressingMode.ZeroPageX || this.mode == AddressingMode.AbsoluteX
+                || this.mode == AddressingMode.IndirectX;
+
+        int instruction = 1 + operand.length;
+        int[] code = new int[4 + 8 * instruction + 6];
+        int at = 0;
+        code[at++] = 0xA2;  // LDX #4
+        code[at++] = 0x04;
+        code[at++] = 0xA0;  // LDY #0
+        code[at++] = 0x00;
+        for (int i = 0; i < 8; i++) {
+            code[at++] = opcodes[i % 4];
+            for (int b : operand) {
+                code[at++] = b;
+            }
+        }
+        code[at++] = indexedByX ? 0x88 : 0xCA;  // DEY or DEX
+        code[at++] = 0xD0;  // BNE loop
+        code[at] = (LOOP - (Programs.ORIGIN + at + 1)) & 0xFF;
+        at++;
+        code[at++] = 0x4C;  // JMP loop
+        code[at++] = LOOP & 0xFF;
+        code[at] = LOOP >> 8;
+
+        this.emu = this.createEmulator();
+        Programs.poke(this.emu, 0x10, 0x33);
+        Programs.poke(this.emu, 0x20, 0x00, 0x03);
+        Programs.poke(this.emu, 0x28, 0x00, 0x03);
+        Programs.load(this.emu, code);
+    }
+
+    @Benchmark
+    public long run(Counters counters) {
+        return this.runSlice(counters);
+    }
+}
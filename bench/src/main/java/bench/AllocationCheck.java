@@ -0,0 +1,169 @@
+package bench;
+
+import emu.AddressingMode;
+import emu.Emulator;
+import emu.StopReason;
+
+import java.lang.management.ManagementFactory;
+
+public final class AllocationCheck {
+    /*
+
+    Checks that running the emulator allocates nothing once it has warmed up
+
+    Every benchmark program is run for WARMUP_CYCLES, so that blocks are decoded and compiled and the JIT has settled,
+        then for WINDOWS windows of MEASURED_CYCLES. The heap allocated by this thread in each window is read from
+        the JVM. Each program is run with the interpreter, with the recompiler, and in debug mode -- through
+        Emulator.run with a breakpoint set that is never reached, through Emulator.run with a conditional breakpoint
+        on the NMI handler that never holds, so it is evaluated every frame and every instruction near it is checked,
+        and one instruction at a time through Emulator.step.
+    The result is the total over every window, bar those in which a block of code was decoded or compiled (see
+        Emulator.getBlocksBuilt). Building a block allocates, once, and may come late: a block is compiled the
+        Recompiler.THRESHOLD-th time it is entered, which for one entered only when an interrupt returns into the
+        middle of a loop can take many frames, and a game may reach new code at any time. Nothing else is excluded,
+        so anything else the emulator allocates as it runs, however rarely, fails the check; so does a program that
+        builds blocks in more than MAX_EXCLUDED windows, as too little of it would be measured.
+    Before any of that, the first program is run once in every configuration, unmeasured. For the first second or
+        so, while the JIT is still replacing the emulator's hot code, a few hundred bytes show up in the odd window;
+        they are the JVM's, as they do not with -Xint, and do not once it has settled.
+    Anything above zero bytes per million instructions is a failure, and the exit status is 1. The build runs this
+        in the verify phase; pass -Dallocation.check.skip to skip it.
+    Only running the emulator is covered. The GUI's emulation thread also publishes a Snapshot for the UI at most
+        every 16 ms, copying all 64K of memory each time (about 4 MB a second); that copy is deliberate, as the UI
+        keeps each snapshot as long as it likes, and is outside what this checks.
+
+     */
+
+    final private static long WARMUP_CYCLES = 10_000_000;
+    final private static long MEASURED_CYCLES = 5_000_000;
+    final private static long STEPPED_INSTRUCTIONS = 200_000;   // per window, when stepping
+    final private static int WINDOWS = 20;
+    final private static int MAX_EXCLUDED = 5;  // the most windows that may be left out for building blocks
+
+    final private static com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long allocated() {
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static long run(Emulator emu, long cycles, long instructions) {
+        // Runs for at least the given cycles, or steps the given instructions; returns the bytes allocated meanwhile
+        long before = allocated();
+        if (instructions > 0) {
+            long end = emu.getInstructions() + instructions;
+            while (emu.getInstructions() < end) {
+                if (emu.step() != StopReason.RUNNING) {
+                    emu.reset();
+                }
+            }
+        } else {
+            long end = emu.getCycles() + cycles;
+            while (emu.getCycles() < end) {
+                if (emu.run(EmulatorState.SLICE_CYCLES) != StopReason.RUNNING) {
+                    emu.reset();
+                }
+            }
+        }
+
+        return allocated() - before;
+    }
+
+    private static double measure(Emulator emu, boolean step) {
+        /*
+        Measures the bytes allocated per million instructions
+
+        @param  emu The emulator, with its program loaded
+        @param  step    Whether to run one instruction at a time, rather than in slices
+        @return The bytes allocated per million instructions after warming up, over the windows in which no block
+            was built; infinite if blocks were built in more than MAX_EXCLUDED windows
+         */
+
+        run(emu, WARMUP_CYCLES, step ? STEPPED_INSTRUCTIONS : 0);
+
+        long bytes = 0;
+        long instructions = 0;
+        int excluded = 0;
+        for (int window = 0; window < WINDOWS; window++) {
+            long blocks = emu.getBlocksBuilt();
+            long start = emu.getInstructions();
+            long allocated = run(emu, MEASURED_CYCLES, step ? STEPPED_INSTRUCTIONS : 0);
+            if (emu.getBlocksBuilt() != blocks) {
+                excluded++;
+            } else {
+                bytes += allocated;
+                instructions += emu.getInstructions() - start;
+            }
+        }
+
+        return excluded > MAX_EXCLUDED ? Double.POSITIVE_INFINITY : bytes * 1e6 / Math.max(instructions, 1);
+    }
+
+    private static boolean check(String name, EmulatorState state) {
+        // Measures a program in every configuration; true if none of them allocated. With no name, nothing is printed
+        boolean clean = true;
+        String[] configurations = {"interpreter", "recompiler", "debug run", "debug condition", "debug step"};
+        for (String configuration : configurations) {
+            boolean debug = configuration.startsWith("debug");
+            state.engine = configuration.equals("recompiler") ? "recompiler" : "interpreter";
+            try {
+                state.setUp();
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not load " + name, e);
+            }
+
+            Emulator emu = state.emu;
+            if (debug) {
+                emu.setDebugMode(true);
+                emu.debugger.setBreakpoint(DebugBenchmark.UNREACHED);
+            }
+            if (configuration.equals("debug condition")) {
+                try {
+                    emu.debugger.setBreakpoint(DebugBenchmark.nmiHandler(emu), DebugBenchmark.NEVER);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Could not set a breakpoint in " + name, e);
+                }
+            }
+
+            double rate = measure(emu, configuration.equals("debug step"));
+            if (name == null) {
+                continue;
+            }
+            System.out.printf("%-40s %-15s %10.1f bytes per million instructions%n", name, configuration, rate);
+            clean &= rate == 0;
+        }
+
+        return clean;
+    }
+
+    public static void main(String[] args) {
+        AddressingModeBenchmark warmUp = new AddressingModeBenchmark();
+        warmUp.mode = AddressingMode.Immediate;
+        check(null, warmUp);
+
+        boolean clean = true;
+        for (AddressingMode mode : new AddressingMode[]{AddressingMode.Immediate, AddressingMode.ZeroPage,
+                AddressingMode.ZeroPageX, AddressingMode.AbsoluteX, AddressingMode.IndirectY, AddressingMode.IndirectX}) {
+            AddressingModeBenchmark state = new AddressingModeBenchmark();
+            state.mode = mode;
+            clean &= check("addressing mode " + mode, state);
+        }
+
+        for (String kernel : new String[]{"branches", "subroutines", "stack"}) {
+            KernelBenchmark state = new KernelBenchmark();
+            state.kernel = kernel;
+            clean &= check("kernel " + kernel, state);
+        }
+
+        for (String demo : new String[]{"snake", "screen_demo", "addition_and_subtraction"}) {
+            DemoBenchmark state = new DemoBenchmark();
+            state.demo = demo;
+            clean &= check("demo " + demo, state);
+        }
+
+        if (!clean) {
+            System.out.println("The emulator allocated while running");
+            System.exit(1);
+        }
+    }
+}
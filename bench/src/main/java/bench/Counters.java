@@ -0,0 +1,36 @@
+package bench;
+
+import emu.Emulator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Counters {
+    /*
+
+    The emulated work done by a benchmark
+
+    JMH reports these alongside the primary score, as rates in the benchmark's time unit; with the suite's settings
+        that is emulated instructions and clock cycles per second of host time.
+
+     */
+
+    public long instructions;
+    public long cycles;
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        this.instructions = 0;
+        this.cycles = 0;
+    }
+
+    void record(Emulator emu, long startInstructions, long startCycles) {
+        // Adds what the emulator has done since it was at the given counts
+        this.instructions += emu.getInstructions() - startInstructions;
+        this.cycles += emu.getCycles() - startCycles;
+    }
+}
@@ -0,0 +1,59 @@
+package bench;
+
+import emu.Emulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DebugBenchmark extends EmulatorState {
+    /*
+
+    Runs the long-running demos in debug mode, to compare with DemoBenchmark
+
+        off         - not in debug mode at all
+        none        - in debug mode, with no breakpoints
+        unreached   - with a breakpoint at an address the program never runs
+        condition   - with a breakpoint on the NMI handler whose condition never holds, so it is evaluated every frame
+                      and every instruction in the handler's pages is checked
+
+     */
+
+    final static String NEVER = "A > $FF || mem[$FFFA] + 1 == 0";   // a condition that never holds
+    final static int UNREACHED = 0xFFF0;    // an address no program runs
+
+    @Param({"snake", "screen_demo"})
+    public String demo;
+
+    @Param({"off", "none", "unreached", "condition"})
+    public String breakpoint;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.emu = this.createEmulator();
+        DemoBenchmark.load(this.emu, this.demo);
+
+        this.emu.setDebugMode(!this.breakpoint.equals("off"));
+        if (this.breakpoint.equals("unreached")) {
+            this.emu.debugger.setBreakpoint(UNREACHED);
+        } else if (this.breakpoint.equals("condition")) {
+            this.emu.debugger.setBreakpoint(nmiHandler(this.emu), NEVER);
+        }
+    }
+
+    static int nmiHandler(Emulator emu) {
+        // the address the NMI vector points at
+        byte[] memory = emu.getMemory();
+        return (memory[0xFFFA] & 0xFF) | (memory[0xFFFB] & 0xFF) << 8;
+    }
+
+    @Benchmark
+    public long run(Counters counters) {
+        return this.runSlice(counters);
+    }
+}
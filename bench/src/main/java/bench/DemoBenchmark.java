@@ -0,0 +1,57 @@
+package bench;
+
+import emu.Emulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DemoBenchmark extends EmulatorState {
+    /*
+
+    Runs the programs in demos/, which the build copies into the benchmark jar
+
+    Programs that end in BRK are reset and run again, so short ones measure loading the CPU state as much as running
+        it; the long-running ones (snake, screen_demo) are the better guide to sustained speed.
+
+     */
+
+    @Param({"snake", "screen_demo", "addition_and_subtraction"})
+    public String demo;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.emu = this.createEmulator();
+        load(this.emu, this.demo);
+    }
+
+    static void load(Emulator emu, String demo) throws Exception {
+        // The emulator loads programs from files, so the program is copied out of the jar first
+        File file = File.createTempFile(demo, ".emu");
+        try (InputStream in = DemoBenchmark.class.getResourceAsStream("/demos/" + demo + ".emu")) {
+            if (in == null) {
+                throw new Exception("No such demo: " + demo);
+            }
+            Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+            emu.addBinary(file.getPath());
+            emu.reset();
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Benchmark
+    public long run(Counters counters) {
+        return this.runSlice(counters);
+    }
+}
@@ -0,0 +1,49 @@
+package bench;
+
+import emu.Emulator;
+import emu.StopReason;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public abstract class EmulatorState {
+    /*
+
+    An emulator running a program, for the benchmarks to drive
+
+    Each benchmark operation runs one slice of SLICE_CYCLES through Emulator.run, exactly as the emulation thread
+        does. If the program stops (e.g. on BRK), the CPU is reset so that the next operation runs it again.
+    Idle-loop skipping is off, so that every cycle counted was actually executed; 'engine' selects whether hot blocks
+        are compiled or everything is interpreted.
+
+     */
+
+    final static int SLICE_CYCLES = 100_000;
+
+    @Param({"interpreter", "recompiler"})
+    public String engine;
+
+    Emulator emu;
+
+    public abstract void setUp() throws Exception;    // creates the emulator and loads the program
+
+    Emulator createEmulator() {
+        Emulator emu = new Emulator();
+        emu.setRecompilerEnabled(this.engine.equals("recompiler"));
+        emu.setIdleSkippingEnabled(false);
+        return emu;
+    }
+
+    long runSlice(Counters counters) {
+        long instructions = this.emu.getInstructions();
+        long cycles = this.emu.getCycles();
+        StopReason reason = this.emu.run(SLICE_CYCLES);
+        counters.record(this.emu, instructions, cycles);
+        if (reason != StopReason.RUNNING) {
+            this.emu.reset();
+        }
+
+        return this.emu.getCycles();
+    }
+}
@@ -0,0 +1,92 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KernelBenchmark extends EmulatorState {
+    /*
+
+    Runs small loops dominated by one kind of instruction
+
+        branches    - conditional branches on the bits of a counter, so some are taken and some are not
+        subroutines - JSR and RTS
+        stack       - PHA, PHP, PLP and PLA
+
+     */
+
+    @Param({"branches", "subroutines", "stack"})
+    public String kernel;
+
+    @Setup
+    public void setUp() {
+        int[] code;
+        switch (this.kernel) {
+            case "branches":
+                code = new int[]{
+                        0xA2, 0x00,         // LDX #0
+                        0xE8,               // loop: INX
+                        0x8A,               // TXA
+                        0x4A,               // LSR A
+                        0x90, 0x01,         // BCC +1
+                        0xEA,               // NOP
+                        0x4A,               // LSR A
+                        0xB0, 0x01,         // BCS +1
+                        0xEA,               // NOP
+                        0xE0, 0x80,         // CPX #$80
+                        0x30, 0x01,         // BMI +1
+                        0xEA,               // NOP
+                        0xC9, 0x20,         // CMP #$20
+                        0xF0, 0x01,         // BEQ +1
+                        0xEA,               // NOP
+                        0xE0, 0x00,         // CPX #0
+                        0xD0, 0xE8,         // BNE loop
+                        0x4C, 0x02, 0x80,   // JMP loop
+                };
+                break;
+            case "subroutines":
+                code = new int[]{
+                        0xA2, 0x00,         // LDX #0
+                        0x20, 0x0E, 0x80,   // loop: JSR sub
+                        0x20, 0x0E, 0x80,   // JSR sub
+                        0xCA,               // DEX
+                        0xD0, 0xF7,         // BNE loop
+                        0x4C, 0x02, 0x80,   // JMP loop
+                        0xC8,               // sub: INY
+                        0x60,               // RTS
+                };
+                break;
+            case "stack":
+                code = new int[]{
+                        0xA2, 0x00,         // LDX #0
+                        0x48,               // loop: PHA
+                        0x08,               // PHP
+                        0x8A,               // TXA
+                        0x48,               // PHA
+                        0x68,               // PLA
+                        0x28,               // PLP
+                        0x68,               // PLA
+                        0xCA,               // DEX
+                        0xD0, 0xF6,         // BNE loop
+                        0x4C, 0x02, 0x80,   // JMP loop
+                };
+                break;
+            default:
+                throw new IllegalArgumentException("No such kernel: " + this.kernel);
+        }
+
+        this.emu = this.createEmulator();
+        Programs.load(this.emu, code);
+    }
+
+    @Benchmark
+    public long run(Counters counters) {
+        return this.runSlice(counters);
+    }
+}
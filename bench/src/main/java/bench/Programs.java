@@ -0,0 +1,40 @@
+package bench;
+
+import emu.Emulator;
+
+final class Programs {
+    /*
+
+    Loads hand-assembled kernels into an emulator
+
+    A kernel is placed at ORIGIN and followed by an RTI, which the NMI and IRQ vectors point at; the screen raises an
+        NMI every frame, and it must not run into uninitialised memory. The reset vector points at the kernel.
+
+     */
+
+    final static int ORIGIN = 0x8000;
+
+    static void load(Emulator emu, int... code) {
+        poke(emu, ORIGIN, code);
+
+        int rti = ORIGIN + code.length;
+        poke(emu, rti, 0x40);
+
+        int[] vectors = {rti, ORIGIN, rti};   // NMI, reset, IRQ
+        for (int i = 0; i < vectors.length; i++) {
+            poke(emu, 0xFFFA + 2 * i, vectors[i] & 0xFF, vectors[i] >> 8);
+        }
+
+        emu.reset();
+    }
+
+    static void poke(Emulator emu, int address, int... bytes) {
+        // Writes bytes to memory, starting at 'address'
+        for (int i = 0; i < bytes.length; i++) {
+            emu.writeToMemory(address + i, (byte) bytes[i]);
+        }
+    }
+
+    private Programs() {
+    }
+}
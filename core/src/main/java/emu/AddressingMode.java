@@ -1,4 +1,4 @@
-package assembler;
+package emu;
 
 public enum AddressingMode {
     // contains constants for addressing modes
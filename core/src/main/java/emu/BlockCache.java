@@ -0,0 +1,164 @@
+package emu;
+
+import java.util.Arrays;
+
+final class BlockCache {
+    /*
+
+    Caches decoded basic blocks by their start address, so that loops are only decoded once
+
+    Self-modifying code is handled by invalidation: every page holding decoded code is flagged on the bus, and a
+        write to a flagged page discards every block that may cover it. Since a block covers at most two pages, these
+        are the blocks starting in that page or the page before it.
+
+     */
+
+    final private byte[] memory;
+    final private Bus bus;
+    final private DecodedInstruction[] blocks;  // the block starting at each address, if it has been decoded
+    private long decoded;   // the number of times a block has been decoded, including again after invalidation
+
+    DecodedInstruction get(int address) {
+        // Gets the block starting at 'address', decoding it if necessary; returns null if it begins with an illegal opcode
+        DecodedInstruction block = this.blocks[address];
+        if (block == null) {
+            block = this.decode(address);
+        }
+
+        return block;
+    }
+
+    long getDecodedCount() {
+        return this.decoded;
+    }
+
+    private DecodedInstruction decode(int start) {
+        final Opcode[] opcodes = InstructionTable.OPCODES;
+        this.decoded++;
+
+        DecodedInstruction first = null;
+        DecodedInstruction last = null;
+
+        int size = 0;
+        int maxCycles = 0;
+        int pc = start;
+        while (size < DecodedInstruction.MAX_BLOCK_LENGTH) {
+            Opcode instruction = opcodes[this.memory[pc] & 0xFF];
+            if (instruction == null) {
+                break;
+            }
+
+            int operand;
+            if (instruction.length == 1) {
+                operand = 0;
+            } else if (instruction.length == 2) {
+                operand = this.memory[(pc + 1) & 0xFFFF] & 0xFF;
+            } else {
+                operand = ((this.memory[(pc + 2) & 0xFFFF] & 0xFF) << 8) | (this.memory[(pc + 1) & 0xFFFF] & 0xFF);
+            }
+
+            pc = (pc + instruction.length) & 0xFFFF;
+            DecodedInstruction decoded = new DecodedInstruction(instruction, operand, pc);
+            if (first == null) {
+                first = decoded;
+            } else {
+                last.following = decoded;
+            }
+            last = decoded;
+            size++;
+
+            maxCycles += instruction.cycles + (instruction.pageCrossPenalty ? 1 : 0);
+            if (instruction.mode == AddressingMode.Relative) {
+                maxCycles += 2; // a branch taken to another page
+            }
+
+            if (instruction.endsBlock) {
+                break;
+            }
+        }
+
+        if (first == null) {
+            return null;
+        }
+
+        // mark the pages covered by the block; the last byte is just before 'pc'
+        this.bus.setCode(start >> 8, true);
+        this.bus.setCode(((pc - 1) & 0xFFFF) >> 8, true);
+
+        // find the runs of instructions we can fuse; never in the zero page, or wrapping around (see FusionTable)
+        int address = start;
+        for (DecodedInstruction decoded = first; decoded != null; address = decoded.next, decoded = decoded.following) {
+            Fusion fusion = FusionTable.find(decoded);
+            if (fusion == null) {
+                continue;
+            }
+
+            DecodedInstruction fusedLast = decoded;
+            for (int i = 1; i < fusion.instructions.length; i++) {
+                fusedLast = fusedLast.following;
+            }
+
+            if (address >= 0x100 && address < fusedLast.next) {
+                decoded.fusion = fusion;
+                decoded.fusedLast = fusedLast;
+            }
+        }
+
+        first.maxCycles = maxCycles;
+        first.end = pc;
+        first.idleLoop = isIdleLoop(first, last, start);
+        this.blocks[start] = first;
+        return first;
+    }
+
+    private static boolean isIdleLoop(DecodedInstruction first, DecodedInstruction last, int start) {
+        /*
+        Whether a block may be an idle loop: it jumps or branches back to its own start, writes nothing, and only
+            reads memory through addresses the CPU can check (no indirection)
+        Whether it really is idle depends on the state it runs in; the CPU checks that (see CPU.run)
+         */
+
+        int target;
+        if (last.instruction.mode == AddressingMode.Relative) {
+            target = (last.next + (byte) last.operand) & 0xFFFF;
+        } else if (last.instruction.mnemonic.equals("JMP") && last.instruction.mode == AddressingMode.Absolute) {
+            target = last.operand;
+        } else {
+            return false;
+        }
+
+        if (target != start) {
+            return false;
+        }
+
+        for (DecodedInstruction decoded = first; decoded != null; decoded = decoded.following) {
+            AddressingMode mode = decoded.instruction.mode;
+            if (decoded.instruction.writesMemory || mode == AddressingMode.Indirect || mode == AddressingMode.IndirectX
+                    || mode == AddressingMode.IndirectY) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    void invalidate(int page) {
+        // Discards every block that may cover 'page'
+        int previous = (page - 1) & 0xFF;
+        Arrays.fill(this.blocks, previous << 8, (previous << 8) + 0x100, null);
+        Arrays.fill(this.blocks, page << 8, (page << 8) + 0x100, null);
+        this.bus.setCode(page, false);
+    }
+
+    void clear() {
+        // Discards every block
+        Arrays.fill(this.blocks, null);
+        this.bus.clearCode();
+    }
+
+    BlockCache(Bus bus) {
+        this.memory = bus.memory;
+        this.bus = bus;
+        this.blocks = new DecodedInstruction[bus.memory.length];
+    }
+}
@@ -0,0 +1,43 @@
+package emu;
+
+final class Breakpoint {
+    /*
+
+    A breakpoint set in the debugger, with its condition and hit count
+    The condition is compiled when the breakpoint is set (see ConditionCompiler); a breakpoint without one always
+        breaks. Every time the CPU reaches the breakpoint, the hit count goes up and the condition is checked.
+
+     */
+
+    final int address;
+    final String source;    // the condition as entered, or null if there is none
+    final private Condition condition;  // the compiled condition, or null if there is none
+    private volatile long hits; // written by the CPU, read by the UI
+
+    boolean reached(CPU cpu) {
+        // Counts a hit, and returns whether the CPU should break here
+        long hits = this.hits + 1;
+        this.hits = hits;
+        return this.condition == null || this.condition.evaluate(cpu, hits) != 0;
+    }
+
+    long getHits() {
+        return this.hits;
+    }
+
+    Breakpoint(int address) {
+        // an unconditional breakpoint
+        this.address = address;
+        this.source = null;
+        this.condition = null;
+        this.hits = 0;
+    }
+
+    Breakpoint(int address, String source) throws Exception {
+        // a breakpoint with the given condition; throws if it does not compile
+        this.address = address;
+        this.source = source;
+        this.condition = ConditionCompiler.compile(source);
+        this.hits = 0;
+    }
+}
@@ -0,0 +1,172 @@
+package emu;
+
+import java.util.Arrays;
+
+final class Bus {
+    /*
+
+    The CPU's memory bus
+
+    The address space is divided into 256 pages, and the bus keeps a table saying what each page is:
+        - RAM, the default
+        - ROM, which reads like RAM but ignores writes
+        - a device (a PageHandler), which handles every read and write to the page itself
+    Pages holding decoded code (see BlockCache) are also flagged, so that writes to them can invalidate the code.
+    Pages can also be watched, e.g. the screen's framebuffer: writes to them are recorded, one bit per address, until
+        whoever watches them collects the record (see takeWrites).
+
+    The CPU handles the common cases itself (see CPU.read and CPU.write): a read from a page with no device is a plain
+        array access, as is a write to a page with no flags set. Only the rest come here.
+
+    Devices may not be mapped over the zero page, the stack, or the vectors: pointer and vector fetches, stack pulls,
+        and instruction fetches always come straight from RAM.
+
+     */
+
+    // page flags; a page with none of these set is plain RAM
+    final static byte CODE = 0x01; // the page holds decoded code
+    final static byte ROM = 0x02;  // writes to the page are ignored
+    final static byte DEVICE = 0x04;   // a device handles the page
+    final static byte WATCHED = 0x08;  // writes to the page are recorded
+
+    final byte[] memory;
+    final byte[] pageFlags; // the flags of each page
+    final PageHandler[] devices;    // the device mapped to each page, if any
+    final private long[] written;   // the addresses in watched pages written since they were last collected
+
+    private static void checkRange(int firstPage, int pageCount) throws Exception {
+        // Devices and ROM may only be mapped from $0200 to $FEFF
+        if (pageCount < 1 || firstPage < 0x02 || firstPage + pageCount > 0xFF) {
+            throw new Exception(String.format("Cannot map %d pages at $%02x00; only pages $02-$fe may be mapped",
+                    pageCount, firstPage));
+        }
+    }
+
+    void mapDevice(int firstPage, int pageCount, PageHandler device) throws Exception {
+        /*
+        Maps a device over a range of pages, replacing whatever was there
+
+        @param  firstPage   The first page of the range
+        @param  pageCount   The number of pages in the range
+        @param  device  The device to handle reads and writes to those pages
+        @throws Exception if the range includes the zero page, the stack, or the vectors
+         */
+
+        checkRange(firstPage, pageCount);
+        for (int page = firstPage; page < firstPage + pageCount; page++) {
+            this.devices[page] = device;
+            this.pageFlags[page] = (byte) ((this.pageFlags[page] & (CODE | WATCHED)) | DEVICE);
+        }
+    }
+
+    void mapRom(int firstPage, int pageCount) throws Exception {
+        // Makes a range of pages read-only; their contents are left as they are
+        checkRange(firstPage, pageCount);
+        for (int page = firstPage; page < firstPage + pageCount; page++) {
+            this.devices[page] = null;
+            this.pageFlags[page] = (byte) ((this.pageFlags[page] & (CODE | WATCHED)) | ROM);
+        }
+    }
+
+    void unmap(int firstPage, int pageCount) throws Exception {
+        // Makes a range of pages plain RAM again
+        checkRange(firstPage, pageCount);
+        for (int page = firstPage; page < firstPage + pageCount; page++) {
+            this.devices[page] = null;
+            this.pageFlags[page] &= CODE | WATCHED;
+        }
+    }
+
+    boolean write(int address, byte value) {
+        /*
+        Handles a write to a page that is not plain RAM
+
+        @param  address The address written to
+        @param  value   The value written
+        @return Whether the write modified a page holding decoded code, which must now be invalidated
+         */
+
+        int flags = this.pageFlags[address >> 8];
+        if ((flags & DEVICE) != 0) {
+            this.devices[address >> 8].write(address, value);
+            return false;
+        } else if ((flags & ROM) != 0) {
+            return false;
+        }
+
+        this.memory[address] = value;
+        if ((flags & WATCHED) != 0) {
+            this.written[address >> 6] |= 1L << address;
+        }
+
+        return (flags & CODE) != 0;
+    }
+
+    void watch(int firstPage, int pageCount, boolean watched) {
+        // Starts or stops recording writes to a range of pages; any record for them is discarded
+        for (int page = firstPage; page < firstPage + pageCount; page++) {
+            if (watched) {
+                this.pageFlags[page] |= WATCHED;
+            } else {
+                this.pageFlags[page] &= ~WATCHED;
+            }
+
+            Arrays.fill(this.written, page << 2, (page + 1) << 2, 0);
+        }
+    }
+
+    boolean takeWrites(int address, int length, long[] into) {
+        /*
+        Collects the recorded writes to a range of addresses, and clears them
+
+        @param  address The first address of the range
+        @param  length  The length of the range
+        @param  into    Receives one bit per address in the range, set if it was written
+        @return Whether any address in the range was written
+         */
+
+        Arrays.fill(into, 0);
+        boolean any = false;
+        int end = address + length;
+        for (int word = address >> 6; word <= (end - 1) >> 6; word++) {
+            long bits = this.written[word];
+            while (bits != 0) {
+                long bit = bits & -bits;
+                bits ^= bit;
+
+                int written = (word << 6) + Long.numberOfTrailingZeros(bit);
+                if (written >= address && written < end) {
+                    int index = written - address;
+                    into[index >> 6] |= 1L << index;
+                    this.written[word] ^= bit;
+                    any = true;
+                }
+            }
+        }
+
+        return any;
+    }
+
+    void setCode(int page, boolean code) {
+        // Marks whether a page holds decoded code
+        if (code) {
+            this.pageFlags[page] |= CODE;
+        } else {
+            this.pageFlags[page] &= ~CODE;
+        }
+    }
+
+    void clearCode() {
+        // Marks every page as holding no decoded code
+        for (int page = 0; page < this.pageFlags.length; page++) {
+            this.pageFlags[page] &= ~CODE;
+        }
+    }
+
+    Bus(byte[] memory) {
+        this.memory = memory;
+        this.pageFlags = new byte[256];
+        this.devices = new PageHandler[256];
+        this.written = new long[memory.length >> 6];
+    }
+}
@@ -0,0 +1,1059 @@
+package emu;
+
+import emu_format.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CPU {
+    /*
+    The CPU for our emulator
+     */
+
+    // the size of our memory
+    final private static int RAM_SIZE = 0x10000;
+
+    // default program start address is 0x8000, but may be modified by modifying the RESET vector
+    final private static int DEFAULT_ORG = 0x8000;
+
+    // the NMI vector is located at 0xfffa (low) and 0xfffb (high)
+    final private static short NMI_LOW = (byte)0xfa;
+    final private static byte NMI_HIGH = (byte)0xfb;
+
+    // the RESET vector is located at 0xfffc (low) and 0xfffd (high)
+    // This will default to 0x8000, but can be adjusted in code with the ORG macro
+    final private static int RESET_LOW = 0xfffc;
+    final private static int RESET_HIGH = 0xfffd;
+
+    // the IRQ vector is located at 0xfffe (low) and 0xffff (high)
+    final private static short IRQ_LOW = (short)0xfffe;
+    final private static short IRQ_HIGH = (short)0xffff;
+
+    // the number of clock cycles taken to service an interrupt or reset
+    final private static int INTERRUPT_CYCLES = 7;
+
+    // the interrupt lines, as bits of pendingInterrupts
+    final static int NMI_LINE = 0x01;
+    final static int IRQ_LINE = 0x02;
+
+    // the high byte of the stack pointer is hardwired to be 0x01
+    final private static byte STACK_HIGH = (byte)0x01;
+
+    // our ram - an array of bytes
+    byte[] memory;
+
+    // the memory bus; maps pages to RAM, ROM, or devices
+    final Bus bus;
+    final private PageHandler[] devices;    // the bus's tables, kept here for the fast paths in read() and write()
+    final private byte[] pageFlags;
+
+    // decoded code; must be told about every write to memory
+    final BlockCache blockCache;
+    boolean leaveBlock; // set when the running block must stop: a write invalidated decoded code, or the slice was cut short
+    private long runEnd;    // the cycle at which the current run() slice ends
+    final Recompiler recompiler;
+    boolean recompile;  // whether hot blocks are compiled to bytecode
+    boolean fuse;   // whether the interpreter fuses common runs of instructions (see Fusion)
+    final long[] fusionCounts;  // the number of times each fusion has run, by id
+    boolean skipIdle;   // whether idle loops are fast-forwarded to the end of the slice
+
+    // interrupts raised but not yet taken; any thread may set a line, only the emulation thread clears it
+    final private AtomicInteger pendingInterrupts;
+
+    // Debugger and runtime system variables
+    boolean halted; // to tell us whether the CPU has halted
+    StopReason haltReason;  // why the CPU halted
+    int faultOpcode;    // the last illegal opcode fetched
+    int faultAddress;   // the address of the last illegal opcode fetched
+    long instructions;  // the total number of instructions executed
+    long cycles;    // the total number of clock cycles elapsed
+    boolean debugMode;  // whether we should run the CPU in debug mode
+    Debugger debugger;  // the CPU debugger
+
+    /*
+
+    REGISTERS
+
+    The 6502 has six registers; 5 8-bit registers and one 16-bit program counter:
+        - General-purpose:
+            - A ->  Accumulator
+        - Index:
+            - X
+            - Y
+            - S ->  Stack pointer
+        - System:
+            - STATUS    ->  Processor Status
+            - PC    ->  The program counter
+
+        Note the STATUS register is organized as follows:
+            N V - B     D I Z C
+            | | | |     | | | |
+            | | | |     | | | +- Carry
+            | | | |     | | +--- Zero
+            | | | |     | +----- Interrupt
+            | | | |     +------- Decimal
+            | | + +------------- No effect
+            | +----------------- Overflow
+            +------------------- Negative
+        The register should be initialized to 00110000
+
+        The N, Z, C and V flags are not kept in 'status'; almost every instruction changes them, but few read them.
+        Instead:
+            - N and Z are evaluated lazily from 'nz', which normally holds the last result (0-255) that affected them:
+                Z is set if its low byte is zero, and N if bit 7 or bit 8 is set. Bit 8 lets PLP, RTI and BIT
+                represent N and Z both being set, which no single result can.
+            - C and V are kept as booleans
+        'status' holds the remaining flags, with the N, Z, C and V bits always clear.
+        Use getStatus() and setStatus() to read or write the register as a whole.
+
+     */
+
+    byte a;
+
+    byte x;
+    byte y;
+    byte sp;
+
+    byte status;
+    int nz; // the last result affecting the N and Z flags
+    boolean carry;
+    boolean overflow;
+    int pc;
+
+    /*
+
+    Status Register Methods
+
+     */
+
+    // Flag access
+
+    boolean isSet(byte flag) {
+        switch (flag) {
+            case Status.NEGATIVE:
+                return (this.nz & 0x180) != 0;
+            case Status.ZERO:
+                return (this.nz & 0xFF) == 0;
+            case Status.CARRY:
+                return this.carry;
+            case Status.OVERFLOW:
+                return this.overflow;
+            default:
+                return (this.getStatus() & flag) == flag;
+        }
+    }
+
+    byte getStatus() {
+        // Packs the lazily-evaluated flags into the STATUS register
+        int packed = this.status;
+        if (this.isSet(Status.NEGATIVE)) packed |= Status.NEGATIVE;
+        if (this.overflow) packed |= Status.OVERFLOW;
+        if (this.isSet(Status.ZERO)) packed |= Status.ZERO;
+        if (this.carry) packed |= Status.CARRY;
+        return (byte) packed;
+    }
+
+    void setStatus(byte value) {
+        // Sets the STATUS register, unpacking the lazily-evaluated flags
+        this.nz = ((value & Status.NEGATIVE) != 0 ? 0x100 : 0) | ((value & Status.ZERO) != 0 ? 0 : 1);
+        this.overflow = (value & Status.OVERFLOW) != 0;
+        this.carry = (value & Status.CARRY) != 0;
+        this.status = (byte) (value & ~(Status.NEGATIVE | Status.OVERFLOW | Status.ZERO | Status.CARRY));
+
+        // if this unmasks a pending IRQ, end the slice so that run() takes it
+        if ((this.status & Status.INTERRUPT_DISABLE) == 0 && (this.pendingInterrupts.getOpaque() & IRQ_LINE) != 0) {
+            this.endRunBy(this.cycles);
+        }
+    }
+
+    // Update the STATUS register
+
+    void updateNZFlags(byte value) {
+        this.nz = value & 0xFF;
+    }
+
+    void setFlag(byte flag) {
+        switch (flag) {
+            case Status.NEGATIVE:
+                this.nz = (this.nz & 0xFF) | 0x100;
+                break;
+            case Status.ZERO:
+                this.nz = this.isSet(Status.NEGATIVE) ? 0x100 : 0;
+                break;
+            case Status.CARRY:
+                this.carry = true;
+                break;
+            case Status.OVERFLOW:
+                this.overflow = true;
+                break;
+            default:
+                this.setStatus((byte) (this.getStatus() | flag));
+                break;
+        }
+    }
+
+    void clearFlag(byte flag) {
+        switch (flag) {
+            case Status.NEGATIVE:
+                this.nz = this.isSet(Status.ZERO) ? 0 : 1;
+                break;
+            case Status.ZERO:
+                this.nz = this.isSet(Status.NEGATIVE) ? 0x101 : 1;
+                break;
+            case Status.CARRY:
+                this.carry = false;
+                break;
+            case Status.OVERFLOW:
+                this.overflow = false;
+                break;
+            default:
+                this.setStatus((byte) (this.getStatus() & ~flag));
+                break;
+        }
+    }
+
+    private void clearFlags() {
+        // Clears all processor flags except D and I
+        this.nz = 1;
+        this.overflow = false;
+        this.carry = false;
+    }
+
+    /*
+
+    Fetch Instructions
+
+    These functions fetch instructions and operands, modifying the PC automatically
+    The PC wraps around from $FFFF to $0000
+
+     */
+
+    private byte fetchInstruction() {
+        byte opcode = this.memory[this.pc];
+        this.pc = (this.pc + 1) & 0xFFFF;
+        return opcode;
+    }
+
+    private byte fetchImmediateByte() {
+        byte operand = this.memory[this.pc];
+        this.pc = (this.pc + 1) & 0xFFFF;
+        return operand;
+    }
+
+    private short fetchImmediateShort() {
+        byte lsb = this.fetchImmediateByte();
+        byte msb = this.fetchImmediateByte();
+
+        return (short)((msb << 8) | (lsb & 0xFF));
+    }
+
+    /*
+
+    Addressing Modes
+
+    These functions resolve the effective address of an instruction's operand
+    The dispatcher has already fetched the operand, so these do not modify the PC
+    Zero page and absolute addresses are the operand itself and need no resolution
+
+    Like the 6502, indexing wraps rather than faulting:
+        - Indexed zero page addresses, and the pointers used by (zp, x) and (zp), y, wrap within the zero page
+        - Indexed absolute addresses wrap from $FFFF to $0000
+    Every address returned here is therefore a valid index into memory
+
+     */
+
+    int zeroPageX(int operand) {
+        return (operand + this.x) & 0xFF;
+    }
+
+    int zeroPageY(int operand) {
+        return (operand + this.y) & 0xFF;
+    }
+
+    int absoluteX(int operand) {
+        return (operand + (this.x & 0xFF)) & 0xFFFF;
+    }
+
+    int absoluteY(int operand) {
+        return (operand + (this.y & 0xFF)) & 0xFFFF;
+    }
+
+    int indexedIndirect(int operand) {
+        // Calculate the address for the (zp, x) mode
+        // For the operation ($c0, x),
+        // we look at location $c0, x; obtain data, and use that (and the following byte) as the address
+
+        int pointer = (operand + this.x) & 0xFF;   // add the offset before fetching the actual address
+
+        int addressLow = this.memory[pointer] & 0xFF;
+        int addressHigh = this.memory[(pointer + 1) & 0xFF] & 0xFF;
+        return (addressHigh << 8) | addressLow;
+    }
+
+    int indirectIndexed(int operand) {
+        // Calculate the indirect address for the (zp), y mode
+        // For example, for the operation ($c0), y, we look at location $c0; go to that location + y
+
+        int addressLow = this.memory[operand] & 0xFF;
+        int addressHigh = this.memory[(operand + 1) & 0xFF] & 0xFF;
+        int address = (addressHigh << 8) | addressLow;
+        return (address + (this.y & 0xFF)) & 0xFFFF;
+    }
+
+    /*
+
+    Memory Access
+    All instruction reads and writes go through these functions
+    Addresses are always resolved to $0000-$FFFF first, so these can never fail
+    Plain RAM is handled here, with one table lookup; ROM, devices, and pages holding decoded code go through the bus
+    Writes to a page holding decoded code invalidate that code, so self-modifying programs behave correctly
+
+     */
+
+    byte read(int address) {
+        PageHandler device = this.devices[address >> 8];
+        return device == null ? this.memory[address] : device.read(address);
+    }
+
+    void write(int address, byte value) {
+        if (this.pageFlags[address >> 8] == 0) {
+            this.memory[address] = value;
+        } else if (this.bus.write(address, value)) {
+            this.blockCache.invalidate(address >> 8);
+            this.leaveBlock = true;
+        }
+    }
+
+    void storeInMemory(byte value, int address) {
+        // Stores a register in memory, marking the page as used for the debugger
+        this.write(address, value);
+        this.debugger.addUsedPageByAddress(address);
+    }
+
+    // todo: track which pages have been touched if we are in debug mode
+
+    // Program execution
+
+    void halt(StopReason reason) {
+        // Halts the CPU, recording why it stopped
+        this.halted = true;
+        this.haltReason = reason;
+    }
+
+    private void illegalInstruction(int opcode, int address) {
+        // Invalid opcodes will end up here
+        // This is essentially the implementation of the KIL instruction; the CPU halts
+        // The fault is only recorded here; the message is built if and when someone asks for it
+        this.faultOpcode = opcode;
+        this.faultAddress = address;
+        this.halt(StopReason.ILLEGAL_OPCODE);
+    }
+
+    private int pageCrossPenalty(Opcode instruction, int operand) {
+        /*
+        Determines whether an indexed read crosses a page boundary, costing an extra cycle
+        This must be checked before the instruction executes, as some (e.g. LDY abs, x) modify the index registers
+
+        @param  instruction The instruction about to execute
+        @param  operand The instruction's operand
+        @return 1 if the instruction pays the penalty, otherwise 0
+         */
+
+        switch (instruction.mode) {
+            case AbsoluteX:
+                return this.pageCrossPenaltyX(operand);
+            case AbsoluteY:
+                return this.pageCrossPenaltyY(operand);
+            default:
+                return this.pageCrossPenaltyIndirectY(operand);
+        }
+    }
+
+    int pageCrossPenaltyX(int operand) {
+        // abs, x
+        return (operand & 0xFF) + (this.x & 0xFF) > 0xFF ? 1 : 0;
+    }
+
+    int pageCrossPenaltyY(int operand) {
+        // abs, y
+        return (operand & 0xFF) + (this.y & 0xFF) > 0xFF ? 1 : 0;
+    }
+
+    int pageCrossPenaltyIndirectY(int operand) {
+        // (zp), y; the base address is the pointer stored in the zero page
+        return (this.memory[operand] & 0xFF) + (this.y & 0xFF) > 0xFF ? 1 : 0;
+    }
+
+    String getFaultMessage() {
+        // Describes the last illegal instruction the CPU encountered
+        return String.format("Illegal instruction $%02x at $%04x", this.faultOpcode, this.faultAddress);
+    }
+
+    StopReason step() {
+        // Steps the CPU once; executes a single instruction, after taking any pending interrupt
+
+        if (this.pendingInterrupts.get() != 0) {
+            this.serviceInterrupts();
+        }
+
+        // fetch the opcode and look it up in the dispatch table
+        int address = this.pc;
+        int opcode = this.fetchInstruction() & 0xFF;
+        Opcode instruction = InstructionTable.OPCODES[opcode];
+
+        // Invalid opcodes have no entry
+        if (instruction == null) {
+            this.illegalInstruction(opcode, address);
+            return this.haltReason;
+        }
+
+        // fetch the operand, if there is one
+        int operand;
+        if (instruction.length == 1) {
+            operand = 0;
+        } else if (instruction.length == 2) {
+            operand = this.fetchImmediateByte() & 0xFF;
+        } else {
+            operand = this.fetchImmediateShort() & 0xFFFF;
+        }
+
+        // execute it
+        if (instruction.pageCrossPenalty) {
+            this.cycles += this.pageCrossPenalty(instruction, operand);
+        }
+        instruction.operation.execute(this, operand);
+        this.cycles += instruction.cycles;
+        this.instructions++;
+        return this.halted ? this.haltReason : StopReason.RUNNING;
+    }
+
+    void raiseInterrupt(int line) {
+        /*
+        Latches an interrupt line; unlike signal(), this may be called from any thread
+        The interrupt is taken by the emulation thread when the next slice or step starts (see run and step): an NMI
+            at once, an IRQ once the I flag is clear. Raising a line that is already pending has no further effect.
+
+        @param  line    NMI_LINE or IRQ_LINE
+         */
+
+        this.pendingInterrupts.accumulateAndGet(line, (pending, raised) -> pending | raised);
+    }
+
+    private void serviceInterrupts() {
+        /*
+        Takes a pending interrupt, if one can be taken now; an NMI comes before an IRQ
+        A masked IRQ stays pending until the I flag is cleared
+         */
+
+        int pending = this.pendingInterrupts.get();
+        int line;
+        if ((pending & NMI_LINE) != 0) {
+            line = NMI_LINE;
+        } else if ((pending & IRQ_LINE) != 0 && !this.isSet(Status.INTERRUPT_DISABLE)) {
+            line = IRQ_LINE;
+        } else {
+            return;
+        }
+
+        this.pendingInterrupts.accumulateAndGet(~line, (current, mask) -> current & mask);
+        this.signal(line == NMI_LINE ? Signal.NMI : Signal.IRQ);
+    }
+
+    private long idleState() {
+        // Packs the registers and flags, so that the state an idle loop is entered in can be compared
+        return (this.a & 0xFFL) | (this.x & 0xFFL) << 8 | (this.y & 0xFFL) << 16 | (this.sp & 0xFFL) << 24
+                | (this.getStatus() & 0xFFL) << 32;
+    }
+
+    private boolean readsDevice(DecodedInstruction block) {
+        // Whether any instruction in the block may read a page mapped to a device; an indexed read may reach the next page
+        for (DecodedInstruction decoded = block; decoded != null; decoded = decoded.following) {
+            switch (decoded.instruction.mode) {
+                case AbsoluteX:
+                case AbsoluteY:
+                    int page = decoded.operand >> 8;
+                    if (this.devices[page] != null || this.devices[(page + 1) & 0xFF] != null) {
+                        return true;
+                    }
+                    break;
+                case Absolute:
+                    if (this.devices[decoded.operand >> 8] != null) {
+                        return true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return false;
+    }
+
+    void endRunBy(long cycle) {
+        /*
+        Cuts the current run() slice short so that it ends by 'cycle'
+        Called by instructions (through devices) while the slice runs; the block being executed is left at once, so
+            the slice ends at the first instruction boundary at or after 'cycle'
+
+        @param  cycle   The cycle by which the slice must end
+         */
+
+        if (cycle < this.runEnd) {
+            this.runEnd = cycle;
+            this.leaveBlock = true;
+        }
+    }
+
+    StopReason run(long maxCycles) {
+        /*
+        Executes instructions in a single loop until the cycle budget is spent or the CPU stops
+        Stops early if the CPU halts or, in debug mode, if the debugger is paused or a breakpoint is reached
+        An instruction is only started if some of the budget remains, so a slice may overrun it by a few cycles;
+            the overrun is not carried over, as the cycle counter itself is what callers schedule against
+        The slice may be cut short while it runs (see endRunBy), e.g. when a device schedules an event
+        Pending interrupts (see raiseInterrupt) are taken as the slice starts, and count against its budget; other
+            threads never touch the CPU, and the loop itself never checks for them. An IRQ that is unmasked partway
+            through ends the slice instead (see setStatus).
+
+        Instructions are executed from decoded basic blocks (see BlockCache), so loops are only decoded once
+        A block is left early if an instruction changes the PC, the CPU halts, the budget is spent, a write
+            invalidates decoded code (the rest of the block may have been modified), or the slice is cut short
+        The PC is kept in a local for the whole slice; it is only written back before each operation executes
+            (operations may use or modify it) and read again afterwards.
+        Registers and flags stay in their fields, since the operations act on them directly.
+
+        Common runs of instructions are executed as single fused operations (see Fusion), except in blocks that must
+            be checked for breakpoints.
+        Blocks entered often enough are compiled to bytecode (see Recompiler) and run as a whole. The interpreter is
+            still used for blocks that must be checked for breakpoints, when the remaining budget may run out partway
+            through the block, and for blocks that could not be compiled.
+
+        In debug mode, nothing runs if the debugger is paused, and each block is checked for breakpoints as it is
+            entered (see Debugger.hasBreakpoints); only the instructions of a block that contains one are checked
+            before they execute. Other blocks run exactly as they would outside debug mode, so debugging costs little
+            away from the breakpoints. A breakpoint with a condition counts a hit and evaluates it each time it is
+            reached, and only breaks if it holds. Pausing, and setting or removing breakpoints, take effect from the
+            next slice.
+
+        Idle loops (e.g. JMP *, or polling a RAM flag that the NMI handler sets) are fast-forwarded. A block that
+            loops to itself without writing memory (see BlockCache), entered twice in a row in the same state, will
+            repeat identically until the slice ends: nothing else can change memory or raise an interrupt within a
+            slice, except a device it reads, which rules it out. So rather than running the iterations, we count
+            them, and add the cycles and instructions they would have taken. The state is exactly what running them
+            would leave, and since the slice ends at the next scheduled event, that is what we skip to. The last
+            iteration is run as usual, since the slice may end partway through it.
+
+        @param  maxCycles   The number of clock cycles to run for
+        @return Why the slice ended; RUNNING if the whole budget was used
+         */
+
+        final BlockCache blockCache = this.blockCache;
+        final boolean debug = this.debugMode;
+        final boolean recompile = this.recompile;
+        final boolean fuse = this.fuse;
+        final boolean skipIdle = this.skipIdle;
+        boolean checkBreakpoints = false;   // whether the current block contains a breakpoint
+
+        // so that a slice that takes an interrupt still ends by the next scheduled event
+        this.runEnd = this.cycles + maxCycles;
+        if (!this.halted && this.pendingInterrupts.get() != 0) {
+            this.serviceInterrupts();
+        }
+
+        // the debugger is only read once per slice, as reading it costs more than entering a block
+        if (debug && this.debugger.isPaused() && !this.halted) {
+            return StopReason.PAUSED;
+        }
+        final int breakpoints = debug ? this.debugger.getBreakpointsVersion() : 0;
+
+        int pc = this.pc;
+        DecodedInstruction decoded = null;  // the next instruction of the current block, if we are in one
+
+        // the last block entered, if it may be an idle loop, and the state, cycle and instruction count it was entered at
+        DecodedInstruction idleBlock = null;
+        long idleState = 0;
+        long idleCycles = 0;
+        long idleInstructions = 0;
+        while (this.cycles < this.runEnd) {
+            if (this.halted) {
+                return this.haltReason;
+            }
+
+            // if we aren't continuing a block, look up (or decode) the block starting here
+            if (decoded == null) {
+                decoded = blockCache.get(pc);
+
+                // in debug mode, check the block for breakpoints, and the first instruction if it has any
+                if (debug) {
+                    checkBreakpoints = decoded == null || (decoded.breakpointsVersion == breakpoints
+                            ? decoded.hasBreakpoints : this.debugger.hasBreakpoints(decoded, pc, breakpoints));
+                    if (checkBreakpoints && this.debugger.isBreakpoint(pc) && this.debugger.breaksAt(pc)) {
+                        return StopReason.BREAKPOINT;
+                    }
+                }
+
+                if (decoded == null) {
+                    this.pc = (pc + 1) & 0xFFFF;
+                    this.illegalInstruction(this.memory[pc] & 0xFF, pc);
+                    return this.haltReason;
+                }
+
+                if (skipIdle) {
+                    if (!decoded.idleLoop || checkBreakpoints) {
+                        idleBlock = null;
+                    } else if (decoded != idleBlock || this.idleState() != idleState) {
+                        idleBlock = decoded;
+                        idleState = this.idleState();
+                        idleCycles = this.cycles;
+                        idleInstructions = this.instructions;
+                    } else if (this.readsDevice(decoded)) {
+                        decoded.idleLoop = false;   // it polls a device, which may change at any time
+                        idleBlock = null;
+                    } else {
+                        // skip the iterations that would end before the slice does; the last is run as usual, as the
+                        // slice may end partway through it
+                        long iterationCycles = this.cycles - idleCycles;
+                        long iterations = (this.runEnd - this.cycles - 1) / iterationCycles;
+                        this.cycles += iterations * iterationCycles;
+                        this.instructions += iterations * (this.instructions - idleInstructions);
+                        idleBlock = null;
+                    }
+                }
+
+                if (recompile && !checkBreakpoints) {
+                    if (decoded.compiled == null && !decoded.uncompilable && ++decoded.entries >= Recompiler.THRESHOLD) {
+                        decoded.compiled = this.recompiler.compile(decoded);
+                        decoded.uncompilable = decoded.compiled == null;
+                    }
+
+                    if (decoded.compiled != null && this.runEnd - this.cycles >= decoded.maxCycles) {
+                        decoded.compiled.execute(this);
+                        this.leaveBlock = false;
+                        decoded = null;
+                        pc = this.pc;
+                        continue;
+                    }
+                }
+            } else if (checkBreakpoints && this.debugger.isBreakpoint(pc) && this.debugger.breaksAt(pc)) {
+                // an instruction within a block with a breakpoint
+                return StopReason.BREAKPOINT;
+            }
+
+            Opcode instruction = decoded.instruction;
+            int operand = decoded.operand;
+            Fusion fusion = decoded.fusion;
+            if (fusion != null && fuse && !checkBreakpoints && this.cycles + fusion.leadCycles < this.runEnd) {
+                // execute the fused run as one; only if the interpreter would have started its last instruction too
+                DecodedInstruction first = decoded;
+                decoded = first.fusedLast;
+                this.pc = decoded.next;
+                fusion.operation.execute(this, first);
+                this.cycles += fusion.cycles;
+                this.instructions += fusion.instructions.length;
+                this.fusionCounts[fusion.id]++;
+            } else {
+                if (instruction.pageCrossPenalty) {
+                    this.cycles += this.pageCrossPenalty(instruction, operand);
+                }
+
+                this.pc = decoded.next;
+                instruction.operation.execute(this, operand);
+                this.cycles += instruction.cycles;
+                this.instructions++;
+            }
+
+            // stay in the block unless the PC was changed or the block itself may have been
+            if (this.pc != decoded.next || this.leaveBlock) {
+                this.leaveBlock = false;
+                decoded = null;
+            } else {
+                decoded = decoded.following;
+            }
+            pc = this.pc;
+        }
+
+        return this.halted ? this.haltReason : StopReason.RUNNING;
+    }
+
+    /*
+
+    Instruction implementation functions
+
+    These are the functions that execute individual instructions
+
+     */
+
+    void add(int operand) {
+        // adds operand + carry + a and sets flags accordingly
+
+        // first, ensure our operand is set correctly
+        operand &= 0xFF;
+
+        boolean overflow = ((this.a ^ operand) & 0x80) == 0;
+
+        // add A + M, and if C is set, add 1
+        int result = (this.a & 0xFF) + operand + (this.carry ? 1 : 0);
+
+        // set the carry flag if necessary
+        if (result > 0xFF) {
+            this.carry = true;
+            if (overflow && result >= 0x180)
+                overflow = false;
+        } else {
+            this.carry = false;
+            if (overflow && result < 0x80)
+                overflow = false;
+        }
+        this.overflow = overflow;
+
+        // set a to the result
+        this.a = (byte)(result & 0xFF);
+        this.nz = result & 0xFF;
+    }
+
+    void subtract(int operand) {
+        // subtracts carry + a - operand and sets flags accordingly
+
+        // like add, ensure our operand is set correctly
+        operand &= 0xFF;
+
+        boolean overflow = ((this.a ^ operand) & 0x80) != 0;
+
+        int result = 0xFF + (this.a & 0xFF) - operand + (this.carry ? 1 : 0);
+        if (result < 0x100) {
+            this.carry = false;
+            if (overflow && result < 0x80)
+                overflow = false;
+        } else {
+            this.carry = true;
+            if (overflow && result >= 0x180)
+                overflow = false;
+        }
+        this.overflow = overflow;
+
+        this.a = (byte)(result & 0xFF);
+        this.nz = result & 0xFF;
+    }
+
+    void and(int operand) {
+        // performs logical and on a + operand and sets N and Z flags accordingly
+
+        operand &= 0xFF;
+        this.a &= operand;
+        this.updateNZFlags(this.a);
+    }
+
+    void or(int operand) {
+        // performs logical and on a + operand and sets N and Z flags accordingly
+
+        operand &= 0xFF;
+        this.a |= operand;
+        this.updateNZFlags(this.a);
+    }
+
+    void xor(int operand) {
+        // performs a logical xor on a + operand and sets N and Z flags accordingly
+
+        operand &= 0xFF;
+        this.a ^= operand;
+        this.updateNZFlags(this.a);
+    }
+
+    void shiftRight() {
+        // Shifts the accumulator left one
+
+        boolean carry = (this.a & 0x01) == 1;
+        this.a >>= 1;   // shift right by one bit
+        this.a &= 0x7F; // ensure bit 7 is 0
+
+        // Set/clear the C flag depending on bit
+        this.carry = carry;
+
+        // N is clear since bit 7 is 0; Z depends on the result
+        this.nz = this.a;
+    }
+
+    void shiftLeft(int address) {
+        // Shift the data at memory[address] left by one bit
+        byte value = this.read(address);
+        boolean b7 = (((value & 0xFF) >> 7) & 1) == 1;
+
+        // perform the bitshift
+        value <<= 1;
+        this.write(address, value);
+
+        // update the flags
+        this.carry = b7;    // shift bit 7 into carry
+        this.updateNZFlags(value);
+    }
+
+    void shiftRight(int address) {
+        // Performs a logical shift right on the data at the specified memory address
+
+        byte value = this.read(address);
+        boolean carry = (value & 0x01) == 1;
+        value >>= 1;
+        this.write(address, value);
+
+        // Set/clear the C flag depending on bit
+        this.carry = carry;
+        this.updateNZFlags(value);
+    }
+
+    void rotateLeft(int address) {
+        // Shifts all bits left one position, shifting carry into bit 0 and bit 7 into carry
+
+        boolean carry = this.carry;
+        this.shiftLeft(address);
+        if (carry) this.write(address, (byte)(this.read(address) | 0x01));
+    }
+
+    void rotateRight(int address) {
+        // Identical to rotateLeft except that bits are shifted right
+
+        boolean carry = this.carry;
+        this.shiftRight(address);
+        if (carry) this.write(address, (byte)(this.read(address) | 0x80));
+    }
+
+    void increment(int address) {
+        // Increments the value at memory[address], updating the N and Z flags
+        byte value = (byte)(this.read(address) + 1);
+        this.write(address, value);
+        this.updateNZFlags(value);
+    }
+
+    void decrement(int address) {
+        // Decrements the value at memory[address], updating the N and Z flags
+        byte value = (byte)(this.read(address) - 1);
+        this.write(address, value);
+        this.updateNZFlags(value);
+    }
+
+    void compare(short register, short value) {
+        /*
+
+        Compares two values, setting flags accordingly
+
+        This is how the flags are affected:
+            R == Val    ->  Set Z flag
+            R >= Val    ->  Set Carry
+            R != Val    ->  Set N
+
+         */
+
+        register &= 0xFF;
+        value &= 0xFF;
+
+        // clear all flags first
+        this.clearFlags();
+
+        if (register == value) {
+            this.carry = true;
+            this.nz = 0;    // Z
+        } else {
+            // If R is greater than V, set C
+            if (register > value) {
+                this.carry = true;
+            } else {
+                // R must be < value if we are here
+                this.nz = 0x80; // N
+            }
+        }
+    }
+
+    /*
+
+    Branching functions
+    These manipulate the program counter
+
+     */
+
+    void branchIfSet(byte flag, int offset) {
+        // Performs a branch if 'flag' is set; the offset is a signed byte relative to the next instruction
+        boolean branch = this.isSet(flag);
+        if (branch) this.branch(offset);
+    }
+
+    void branchIfClear(byte flag, int offset) {
+        // Performs a branch if 'flag' is clear
+        boolean branch = !this.isSet(flag);
+        if (branch) this.branch(offset);
+    }
+
+    private void branch(int offset) {
+        // A taken branch costs one extra cycle, and another if the target is on a different page
+        int target = (this.pc + (byte) offset) & 0xFFFF;
+        this.cycles += ((target ^ this.pc) & 0xFF00) == 0 ? 1 : 2;
+        this.pc = target;
+    }
+
+    /*
+
+    Stack functions
+
+     */
+
+    void pushToStack(byte data) {
+        // pushes a byte onto the stack
+
+        int address = ((STACK_HIGH << 8) | (this.sp & 0xFF)) & 0xFFFF;
+        this.write(address, data);
+        this.sp--;
+    }
+
+    byte pullFromStack() {
+        // pulls a byte from the stack and returns it
+
+        this.sp++;
+        int address = ((STACK_HIGH << 8) | (this.sp & 0xFF)) & 0xFFFF;
+        return this.memory[address];
+    }
+
+    /*
+
+    Signals and interrupts
+
+     */
+
+    private void reset() {
+        this.setStatus((byte)0b00110000);   // initialize status register
+        this.sp = (byte)0xff;    // stack register should be initialized to 0xff (grows downwards)
+        this.pc = (this.memory[RESET_HIGH] << 8 | this.memory[RESET_LOW]) & 0xFFFF; // obtain the reset address from the reset vector
+        this.halted = false;    // to allow execution to begin, make sure the halted flag is false
+        this.haltReason = StopReason.RUNNING;
+        this.setFlag(Status.INTERRUPT_DISABLE); // a system reset should disable interrupts
+        this.pendingInterrupts.set(0);  // and drop any that were pending
+        this.cycles += INTERRUPT_CYCLES;    // the reset sequence takes as long as an interrupt
+    }
+
+    private void interrupt(int vector) {
+        /*
+
+        Triggers an interrupt; like BRK, this takes 7 cycles
+
+        The process is as follows:
+            - Push high byte of PC
+            - Push low byte of PC
+            - Push status
+            - Obtains the address of the interrupt handler from 'vector'
+
+         */
+
+        // push high byte, low byte of the program counter
+        this.pushToStack((byte)((this.pc >> 8) & 0xFF));
+        this.pushToStack((byte)(this.pc & 0xFF));
+
+        // push status
+        this.pushToStack(this.getStatus());
+
+        // disable interrupts _after_ we push processor status
+        this.setFlag(Status.INTERRUPT_DISABLE);
+
+        // get the proper address from vector | (vector + 1) << 8; transfer control
+        vector &= 0xFFFF;
+        this.pc = ((this.memory[vector + 1] << 8) & 0xFF00) | (this.memory[vector] & 0xFF);
+        this.cycles += INTERRUPT_CYCLES;
+    }
+
+    void signal(Signal signal) {
+        // Sends a signal to the processor
+
+        int vector;
+        switch (signal) {
+            case NMI:
+                this.clearFlag(Status.B);
+                vector = ((NMI_HIGH << 8) | NMI_LOW) & 0xFFFF;
+                this.interrupt(vector);
+                break;
+            case RESET:
+                this.reset();
+                break;
+            case IRQ:
+                // If the IRQ disable flag is set, do nothing
+                if (this.isSet(Status.INTERRUPT_DISABLE)) {
+                    break;
+                } else {
+                    // interrupt() sets the I flag after pushing the status, so RTI re-enables IRQs
+                    this.clearFlag(Status.B);
+                    vector = ((IRQ_HIGH << 8) | IRQ_LOW) & 0xFFFF;
+                    this.interrupt(vector);
+                }
+                break;
+            case BRK:
+                // this emulator will use BRK as a "halt"
+                this.setFlag(Status.B);
+                this.halt(StopReason.BRK);
+                break;
+        }
+    }
+
+    /*
+
+    Constructors and setup methods
+
+     */
+
+    void loadBinFile(EmuFile emu) throws Exception {
+        // initialize CPU memory using an emu file
+
+        // loadEmuFile will return null if the file couldn't be loaded (though it will also throw an exception)
+        if (emu != null) {
+            // load the CPU memory as specified
+            for (Bank segment: emu.getPrgBanks())
+            {
+                // copy the data from Bank.data into CPU memory starting at Bank.org
+                int address = segment.getOrg() & 0xFFFF;
+                byte[] data = segment.getData();
+
+                // add the segment to the debugger
+                this.debugger.addSegment(address, data.length);
+
+                // set our debugger's pages used if we are in debug mode
+                int pageIndex = (data.length / 256);
+                int pageNumber = (address >> 8) & 0xFF;
+                while (pageIndex >= 0) {
+                    this.debugger.addUsedPage(pageNumber);
+                    pageIndex--;
+                    pageNumber++;
+                }
+
+                // copy in the program data
+                for (int i = 0; i < data.length; i++, address++)
+                {
+                    this.memory[address] = data[i];
+                }
+            }
+
+            // anything decoded before is stale now
+            this.blockCache.clear();
+        } else {
+            throw new Exception("Error reading .emu file; cannot initialize CPU");
+        }
+    }
+
+    public CPU(boolean debug) {
+        // default constructor; initializes the cpu with no program memory
+        this.memory = new byte[RAM_SIZE];
+        this.bus = new Bus(this.memory);
+        this.devices = this.bus.devices;
+        this.pageFlags = this.bus.pageFlags;
+        this.blockCache = new BlockCache(this.bus);
+        this.recompiler = new Recompiler();
+        this.recompile = true;
+        this.fuse = true;
+        this.skipIdle = true;
+        this.fusionCounts = new long[FusionTable.FUSIONS.length];
+        this.pendingInterrupts = new AtomicInteger();
+        // program origin (program start address)
+        short org = (short) DEFAULT_ORG;  // this should default to 0x8000, but can be modified by the program
+        this.memory[RESET_LOW] = (byte)(org & 0xFF);
+        this.memory[RESET_HIGH] = (byte)(org >> 8);
+        this.debugMode = debug;
+        this.debugger = new Debugger(this);
+        this.halt(StopReason.TERMINATED);   // the CPU does not run until it is reset
+    }
+
+    public CPU() {
+        this(false);
+    }
+}
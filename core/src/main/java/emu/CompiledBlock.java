@@ -0,0 +1,13 @@
+package emu;
+
+interface CompiledBlock {
+    /*
+    A basic block that the Recompiler has translated to JVM bytecode
+
+    Executing it has exactly the same effect as interpreting the block, except that it returns early -- with the PC
+        pointing at the next instruction -- if a write sets CPU.leaveBlock (it modified decoded code, or cut the slice
+        short).
+     */
+
+    void execute(CPU cpu);
+}
@@ -0,0 +1,18 @@
+package emu;
+
+@FunctionalInterface
+interface Condition {
+    /*
+
+    A compiled breakpoint condition, or one of its subexpressions (see ConditionCompiler)
+    Conditions only read the CPU; they never change it, and never go through the bus, so checking one has no side
+        effects on devices
+
+    @param  cpu The CPU, stopped before the instruction at the breakpoint
+    @param  hits    The number of times the breakpoint has been reached, including this time
+    @return The value of the expression; for a comparison or logical operator, 1 if it holds and 0 if not
+
+     */
+
+    int evaluate(CPU cpu, long hits);
+}
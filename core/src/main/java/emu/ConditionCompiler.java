@@ -0,0 +1,402 @@
+package emu;
+
+final class ConditionCompiler {
+    /*
+
+    Compiles breakpoint conditions (see Condition)
+
+    A condition is a C-like expression over the CPU's state:
+        A, X, Y, SP, P  the registers, as unsigned bytes (P is the status register)
+        PC  the program counter
+        N, V, D, I, Z, C    the flags, as 0 or 1
+        mem[address]    a byte of memory, unsigned; read directly, so no device sees the read
+        hits    the number of times the breakpoint has been reached, including this time
+        numbers in decimal, or in hex prefixed with '$' or '0x', or in binary prefixed with '%'
+    and these operators, from lowest to highest precedence:
+        ||  &&  |  ^  &  == !=  < <= > >=  + -  and the unary ! ~ -
+    Names are not case sensitive. As in C, a comparison is 1 if it holds and 0 if not, and the condition holds if its
+        value is not 0; so 'A == $10 && mem[$20] > 3' and 'hits >= 100' are both conditions.
+
+    The expression is parsed once, and each node becomes a Condition that calls its operands' Conditions directly;
+        nothing is parsed or looked up when the breakpoint is reached. Subexpressions without variables are folded
+        into constants, and a comparison against a constant captures its value rather than evaluating it.
+
+     */
+
+    final private String source;
+    private int position;
+
+    private static final class Constant implements Condition {
+        final int value;
+
+        @Override
+        public int evaluate(CPU cpu, long hits) {
+            return this.value;
+        }
+
+        Constant(int value) {
+            this.value = value;
+        }
+    }
+
+    static Condition compile(String source) throws Exception {
+        /*
+        Compiles a condition
+
+        @param  source  The condition's text
+        @return The compiled condition
+        @throws Exception if the condition is not valid; the message says where
+         */
+
+        ConditionCompiler compiler = new ConditionCompiler(source);
+        compiler.skipSpaces();
+        if (compiler.atEnd()) {
+            throw new Exception("The condition is empty");
+        }
+
+        Condition condition = compiler.or();
+        compiler.skipSpaces();
+        if (!compiler.atEnd()) {
+            throw compiler.error("Unexpected '" + source.charAt(compiler.position) + "'");
+        }
+
+        return condition;
+    }
+
+    /*
+
+    Parsing, one method per precedence level
+
+     */
+
+    private Condition or() throws Exception {
+        Condition left = this.and();
+        while (this.accept("||")) {
+            Condition l = left;
+            Condition r = this.and();
+            left = fold((cpu, hits) -> l.evaluate(cpu, hits) != 0 || r.evaluate(cpu, hits) != 0 ? 1 : 0, l, r);
+        }
+
+        return left;
+    }
+
+    private Condition and() throws Exception {
+        Condition left = this.bitwiseOr();
+        while (this.accept("&&")) {
+            Condition l = left;
+            Condition r = this.bitwiseOr();
+            left = fold((cpu, hits) -> l.evaluate(cpu, hits) != 0 && r.evaluate(cpu, hits) != 0 ? 1 : 0, l, r);
+        }
+
+        return left;
+    }
+
+    private Condition bitwiseOr() throws Exception {
+        Condition left = this.bitwiseXor();
+        while (this.accept("|")) {
+            Condition l = left;
+            Condition r = this.bitwiseXor();
+            left = fold((cpu, hits) -> l.evaluate(cpu, hits) | r.evaluate(cpu, hits), l, r);
+        }
+
+        return left;
+    }
+
+    private Condition bitwiseXor() throws Exception {
+        Condition left = this.bitwiseAnd();
+        while (this.accept("^")) {
+            Condition l = left;
+            Condition r = this.bitwiseAnd();
+            left = fold((cpu, hits) -> l.evaluate(cpu, hits) ^ r.evaluate(cpu, hits), l, r);
+        }
+
+        return left;
+    }
+
+    private Condition bitwiseAnd() throws Exception {
+        Condition left = this.equality();
+        while (this.accept("&")) {
+            Condition l = left;
+            Condition r = this.equality();
+            left = fold((cpu, hits) -> l.evaluate(cpu, hits) & r.evaluate(cpu, hits), l, r);
+        }
+
+        return left;
+    }
+
+    private Condition equality() throws Exception {
+        Condition left = this.relational();
+        while (true) {
+            String operator;
+            if (this.accept("==")) {
+                operator = "==";
+            } else if (this.accept("!=")) {
+                operator = "!=";
+            } else {
+                return left;
+            }
+
+            left = compare(operator, left, this.relational());
+        }
+    }
+
+    private Condition relational() throws Exception {
+        Condition left = this.additive();
+        while (true) {
+            String operator;
+            if (this.accept("<=")) {
+                operator = "<=";
+            } else if (this.accept(">=")) {
+                operator = ">=";
+            } else if (this.accept("<")) {
+                operator = "<";
+            } else if (this.accept(">")) {
+                operator = ">";
+            } else {
+                return left;
+            }
+
+            left = compare(operator, left, this.additive());
+        }
+    }
+
+    private Condition additive() throws Exception {
+        Condition left = this.unary();
+        while (true) {
+            Condition l = left;
+            if (this.accept("+")) {
+                Condition r = this.unary();
+                left = fold((cpu, hits) -> l.evaluate(cpu, hits) + r.evaluate(cpu, hits), l, r);
+            } else if (this.accept("-")) {
+                Condition r = this.unary();
+                left = fold((cpu, hits) -> l.evaluate(cpu, hits) - r.evaluate(cpu, hits), l, r);
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Condition unary() throws Exception {
+        if (this.accept("!")) {
+            Condition operand = this.unary();
+            return fold((cpu, hits) -> operand.evaluate(cpu, hits) == 0 ? 1 : 0, operand, operand);
+        } else if (this.accept("~")) {
+            Condition operand = this.unary();
+            return fold((cpu, hits) -> ~operand.evaluate(cpu, hits), operand, operand);
+        } else if (this.accept("-")) {
+            Condition operand = this.unary();
+            return fold((cpu, hits) -> -operand.evaluate(cpu, hits), operand, operand);
+        }
+
+        return this.primary();
+    }
+
+    private Condition primary() throws Exception {
+        this.skipSpaces();
+        if (this.atEnd()) {
+            throw this.error("Expected a value");
+        }
+
+        char c = this.source.charAt(this.position);
+        if (this.accept("(")) {
+            Condition inner = this.or();
+            this.expect(")");
+            return inner;
+        } else if (c == '$' || c == '%' || Character.isDigit(c)) {
+            return new Constant(this.number());
+        } else if (!Character.isLetter(c)) {
+            throw this.error("Unexpected '" + c + "'");
+        }
+
+        int start = this.position;
+        while (!this.atEnd() && Character.isLetterOrDigit(this.source.charAt(this.position))) {
+            this.position++;
+        }
+        String name = this.source.substring(start, this.position);
+
+        switch (name.toUpperCase()) {
+            case "A":
+                return (cpu, hits) -> cpu.a & 0xFF;
+            case "X":
+                return (cpu, hits) -> cpu.x & 0xFF;
+            case "Y":
+                return (cpu, hits) -> cpu.y & 0xFF;
+            case "SP":
+                return (cpu, hits) -> cpu.sp & 0xFF;
+            case "P":
+                return (cpu, hits) -> cpu.getStatus() & 0xFF;
+            case "PC":
+                return (cpu, hits) -> cpu.pc;
+            case "N":
+                return flag(Status.NEGATIVE);
+            case "V":
+                return flag(Status.OVERFLOW);
+            case "D":
+                return flag(Status.DECIMAL);
+            case "I":
+                return flag(Status.INTERRUPT_DISABLE);
+            case "Z":
+                return flag(Status.ZERO);
+            case "C":
+                return flag(Status.CARRY);
+            case "HITS":
+                return (cpu, hits) -> (int) Math.min(hits, Integer.MAX_VALUE);
+            case "MEM":
+                this.expect("[");
+                Condition address = this.or();
+                this.expect("]");
+                if (address instanceof Constant) {
+                    int constant = ((Constant) address).value & 0xFFFF;
+                    return (cpu, hits) -> cpu.memory[constant] & 0xFF;
+                }
+                return (cpu, hits) -> cpu.memory[address.evaluate(cpu, hits) & 0xFFFF] & 0xFF;
+            default:
+                this.position = start;
+                throw this.error("Unknown name '" + name + "'");
+        }
+    }
+
+    private int number() throws Exception {
+        // Reads a number in decimal, hex ('$' or '0x') or binary ('%')
+        int radix = 10;
+        if (this.accept("$")) {
+            radix = 16;
+        } else if (this.accept("%")) {
+            radix = 2;
+        } else if (this.source.startsWith("0x", this.position) || this.source.startsWith("0X", this.position)) {
+            this.position += 2;
+            radix = 16;
+        }
+
+        int start = this.position;
+        while (!this.atEnd() && Character.digit(this.source.charAt(this.position), radix) >= 0) {
+            this.position++;
+        }
+
+        try {
+            return Integer.parseInt(this.source.substring(start, this.position), radix);
+        } catch (NumberFormatException e) {
+            this.position = start;
+            throw this.error("Expected a number");
+        }
+    }
+
+    /*
+
+    Building the Conditions
+
+     */
+
+    private static Condition flag(byte flag) {
+        return (cpu, hits) -> cpu.isSet(flag) ? 1 : 0;
+    }
+
+    private static Condition fold(Condition condition, Condition left, Condition right) {
+        // Replaces an operator on constants with its value
+        if (left instanceof Constant && right instanceof Constant) {
+            return new Constant(condition.evaluate(null, 0));
+        }
+
+        return condition;
+    }
+
+    private static Condition compare(String operator, Condition left, Condition right) {
+        // Compiles a comparison; against a constant, its value is captured
+        if (right instanceof Constant && !(left instanceof Constant)) {
+            int value = ((Constant) right).value;
+            switch (operator) {
+                case "==":
+                    return (cpu, hits) -> left.evaluate(cpu, hits) == value ? 1 : 0;
+                case "!=":
+                    return (cpu, hits) -> left.evaluate(cpu, hits) != value ? 1 : 0;
+                case "<":
+                    return (cpu, hits) -> left.evaluate(cpu, hits) < value ? 1 : 0;
+                case "<=":
+                    return (cpu, hits) -> left.evaluate(cpu, hits) <= value ? 1 : 0;
+                case ">":
+                    return (cpu, hits) -> left.evaluate(cpu, hits) > value ? 1 : 0;
+                default:
+                    return (cpu, hits) -> left.evaluate(cpu, hits) >= value ? 1 : 0;
+            }
+        }
+
+        Condition condition;
+        switch (operator) {
+            case "==":
+                condition = (cpu, hits) -> left.evaluate(cpu, hits) == right.evaluate(cpu, hits) ? 1 : 0;
+                break;
+            case "!=":
+                condition = (cpu, hits) -> left.evaluate(cpu, hits) != right.evaluate(cpu, hits) ? 1 : 0;
+                break;
+            case "<":
+                condition = (cpu, hits) -> left.evaluate(cpu, hits) < right.evaluate(cpu, hits) ? 1 : 0;
+                break;
+            case "<=":
+                condition = (cpu, hits) -> left.evaluate(cpu, hits) <= right.evaluate(cpu, hits) ? 1 : 0;
+                break;
+            case ">":
+                condition = (cpu, hits) -> left.evaluate(cpu, hits) > right.evaluate(cpu, hits) ? 1 : 0;
+                break;
+            default:
+                condition = (cpu, hits) -> left.evaluate(cpu, hits) >= right.evaluate(cpu, hits) ? 1 : 0;
+                break;
+        }
+
+        return fold(condition, left, right);
+    }
+
+    /*
+
+    Scanning
+
+     */
+
+    private boolean atEnd() {
+        return this.position >= this.source.length();
+    }
+
+    private void skipSpaces() {
+        while (!this.atEnd() && Character.isWhitespace(this.source.charAt(this.position))) {
+            this.position++;
+        }
+    }
+
+    private boolean accept(String token) {
+        /*
+        Consumes 'token' if it comes next
+        A single-character operator is not taken from the start of a longer one, e.g. '<' from '<=' or '&' from '&&'
+         */
+
+        this.skipSpaces();
+        if (!this.source.startsWith(token, this.position)) {
+            return false;
+        }
+
+        int end = this.position + token.length();
+        if (token.length() == 1 && end < this.source.length()) {
+            char next = this.source.charAt(end);
+            char c = token.charAt(0);
+            if (((c == '|' || c == '&') && next == c) || ((c == '<' || c == '>' || c == '!') && next == '=')) {
+                return false;
+            }
+        }
+
+        this.position = end;
+        return true;
+    }
+
+    private void expect(String token) throws Exception {
+        if (!this.accept(token)) {
+            throw this.error("Expected '" + token + "'");
+        }
+    }
+
+    private Exception error(String message) {
+        return new Exception(message + " at column " + (this.position + 1));
+    }
+
+    private ConditionCompiler(String source) {
+        this.source = source;
+        this.position = 0;
+    }
+}
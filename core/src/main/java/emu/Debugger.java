@@ -0,0 +1,374 @@
+package emu;
+
+import emu_format.DebugSymbol;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class Debugger {
+    // The debugger for our CPU
+
+    private CPU cpu;
+    private volatile boolean paused;   // whether we have stoped the CPU; may be set from the UI while the CPU runs
+    private boolean genCoreDump;    // whether we should generate a core dump on termination
+    private boolean[] pagesUsed;    // tracks which pages have been touched by the CPU
+    final private ArrayList<int[]> segments;    // tracks where our segments are, as {begin, length}
+    final private AtomicLongArray breakpoints;  // one bit per address; set from the UI while the CPU runs
+    final private Breakpoint[][] pages; // the breakpoints by page and offset; a page's array is made when first needed
+    private volatile int version;   // incremented whenever a breakpoint is set or removed
+    final private Hashtable<String, Integer> labels; // symbols and their addresses
+    final private Hashtable<Integer, Integer> lineNumbers;    // line numbers and their addresses
+
+    /*
+
+    Utility functions
+
+     */
+
+    public void setGenCoreDump(boolean toSet) {
+        this.genCoreDump = toSet;
+    }
+
+    public void setBreakpoint(int address) {
+        // Set a new breakpoint for the given address
+        this.addBreakpoint(new Breakpoint(address & 0xFFFF));
+    }
+
+    public void setBreakpoint(int address, String condition) throws Exception {
+        /*
+        Set a new breakpoint for the given address, which only breaks if the condition holds
+        The condition is compiled now, so that checking it is cheap (see ConditionCompiler for the syntax); a
+            breakpoint already at the address is replaced, and its hit count starts again
+
+        @param  address The address of the breakpoint
+        @param  condition   The condition; if it is null or blank, the breakpoint always breaks
+        @throws Exception if the condition is not valid
+         */
+
+        if (condition == null || condition.trim().isEmpty()) {
+            this.setBreakpoint(address);
+        } else {
+            this.addBreakpoint(new Breakpoint(address & 0xFFFF, condition.trim()));
+        }
+    }
+
+    private synchronized void addBreakpoint(Breakpoint breakpoint) {
+        // The breakpoint is stored before its bit is set, so the CPU never sees the bit without it
+        int address = breakpoint.address;
+        int page = address >> 8;
+        if (this.pages[page] == null) {
+            this.pages[page] = new Breakpoint[256];
+        }
+        this.pages[page][address & 0xFF] = breakpoint;
+
+        this.breakpoints.accumulateAndGet(address >> 6, 1L << address, (bits, bit) -> bits | bit);
+        this.version++;
+    }
+
+    public int getAddressFromLineNumber(int lineNumber) throws Exception {
+        if (this.lineNumbers.containsKey(lineNumber)) {
+            return this.lineNumbers.get(lineNumber);
+        } else {
+            throw new Exception("No such line number in file");
+        }
+    }
+
+    public int getAddressFromLabel(String label) throws Exception {
+        if (this.labels.containsKey(label)) {
+            return this.labels.get(label);
+        } else {
+            throw new Exception("No such label found in debug symbols");
+        }
+    }
+
+    public synchronized void removeBreakpoint(int address) {
+        /*
+        Remove the breakpoint at a given address
+        @param  address The address of the breakpoint
+         */
+        address &= 0xFFFF;
+        this.breakpoints.accumulateAndGet(address >> 6, ~(1L << address), (bits, mask) -> bits & mask);
+        if (this.pages[address >> 8] != null) {
+            this.pages[address >> 8][address & 0xFF] = null;
+        }
+        this.version++;
+    }
+
+    int getBreakpointsVersion() {
+        // the version of the breakpoints, which changes whenever one is set or removed
+        return this.version;
+    }
+
+    boolean hasBreakpoints(DecodedInstruction block, int start, int version) {
+        /*
+        Checks whether any address in the block starting at 'start' has a breakpoint
+        The CPU checks this on entering a block; if there are none, the block can run without checking each
+            instruction, and so be fused, compiled, or skipped as idle as usual. The answer is kept in the block
+            along with the version of the breakpoints it was found for, so most of the time only that is compared.
+
+        @param  version The version of the breakpoints, as the CPU last read it (see getBreakpointsVersion)
+         */
+        if (block.breakpointsVersion != version) {
+            boolean found = false;
+            for (int address = start; address != block.end; address = (address + 1) & 0xFFFF) {
+                found |= this.isBreakpoint(address);
+            }
+            block.hasBreakpoints = found;
+            block.breakpointsVersion = version;
+        }
+
+        return block.hasBreakpoints;
+    }
+
+    boolean isBreakpoint(int address) {
+        /*
+        Checks for a breakpoint; this runs before every instruction in blocks with one, so it is a single bit test
+        The read is opaque: it is not reordered or hoisted out of the CPU's loop, so a breakpoint set while the CPU
+            runs is seen promptly, but costs no more than a plain load
+         */
+        return (this.breakpoints.getOpaque(address >> 6) & (1L << address)) != 0;
+    }
+
+    boolean breaksAt(int address) {
+        /*
+        Checks for a breakpoint at 'address' that should break, and if there is one, pauses
+        A breakpoint with a condition counts a hit and evaluates it every time this is called, and only breaks if it
+            holds. The bit is read again with acquire semantics, so that the Breakpoint stored before it was set is
+            seen.
+
+        @return Whether the CPU should break
+         */
+        if ((this.breakpoints.getAcquire(address >> 6) & (1L << address)) == 0) {
+            return false;
+        }
+
+        Breakpoint[] page = this.pages[address >> 8];
+        Breakpoint breakpoint = page == null ? null : page[address & 0xFF];
+        if (breakpoint != null && breakpoint.reached(this.cpu)) {
+            this.pause();
+            return true;
+        }
+
+        return false;
+    }
+
+    private synchronized Breakpoint getBreakpoint(int address) {
+        Breakpoint[] page = this.pages[(address >> 8) & 0xFF];
+        return page == null ? null : page[address & 0xFF];
+    }
+
+    public String getCondition(int address) {
+        // the condition of the breakpoint at 'address', as entered; null if it has none, or there is no breakpoint
+        Breakpoint breakpoint = this.getBreakpoint(address);
+        return breakpoint == null ? null : breakpoint.source;
+    }
+
+    public long getHitCount(int address) {
+        // the number of times the CPU has reached the breakpoint at 'address' since it was set
+        Breakpoint breakpoint = this.getBreakpoint(address);
+        return breakpoint == null ? 0 : breakpoint.getHits();
+    }
+
+    public ArrayList<Integer> getBreakpoints() {
+        // the addresses of every breakpoint, in ascending order
+        ArrayList<Integer> addresses = new ArrayList<>();
+        for (int word = 0; word < this.breakpoints.length(); word++) {
+            for (long bits = this.breakpoints.get(word); bits != 0; bits &= bits - 1) {
+                addresses.add((word << 6) + Long.numberOfTrailingZeros(bits));
+            }
+        }
+
+        return addresses;
+    }
+
+    void addUsedPage(int page) {
+        this.pagesUsed[page] = true;
+    }
+
+    void addUsedPageByAddress(int address) {
+        // adds the page under 'address' as used
+        int pageNumber = (address >> 8) & 0xFF;
+        this.pagesUsed[pageNumber] = true;
+    }
+
+    void setDebugSymbols(Vector<DebugSymbol> toSet) {
+        // debug symbols available to the debugger
+
+        for (DebugSymbol sym: toSet) {
+            // if the symbol has a label, add it to "labels"
+            if (!sym.getLabel().equals("")) {
+                this.labels.put(sym.getLabel(), sym.getAddress() & 0xFFFF);
+            }
+
+            // add the line number data to "lineNumbers"
+            this.lineNumbers.put(sym.getLine(), sym.getAddress() & 0xFFFF);
+        }
+    }
+
+    void addSegment(int begin, int length) {
+        // Adds a segment to the debugger's list of code segments
+        this.segments.add(new int[]{begin, length});
+    }
+
+    /*
+
+    Execution functions
+    These functions are used in the process of executing and debugging the program
+
+    */
+
+    public void pause() {
+        // temporarily halts the CPU
+        this.paused = true;
+    }
+
+    public void terminate() {
+        // kills the process, setting this.cpu.halted
+        this.cpu.halt(StopReason.TERMINATED);
+
+        // if we need to, generate a core dump
+        if (this.genCoreDump) {
+            this.generateCoreDump();
+        }
+    }
+
+    public void resume() {
+        // resumes CPU execution after a debug event has stopped it
+        this.paused = false;
+    }
+
+    public boolean isPaused() {
+        // tells us whether the debug program has stopped CPU execution
+        return this.paused;
+    }
+
+    public StopReason step() {
+        // steps the CPU one time; if a breakpoint is encountered, pauses
+
+        if (this.isPaused()) {
+            return this.cpu.step();
+        } else {
+            if (this.isBreakpoint(this.cpu.pc) && this.breaksAt(this.cpu.pc)) {
+                return StopReason.BREAKPOINT;
+            } else {
+                return this.cpu.step();
+            }
+        }
+    }
+
+    public void jump(int address) throws Exception {
+        if (this.isPaused()) {
+            this.cpu.pc = address;
+        } else {
+            throw new Exception("CPU must be paused to perform this operation");
+        }
+    }
+
+    /*
+
+    Fetch CPU Data
+    Because the CPU data is package-private, we need public functions in the debugger to access that data
+    The CPU internals should only be accessible through the debugger
+
+     */
+
+    void generateCoreDump() {
+        // Generates a core dump for the cpu, saving it to 'core.bin'
+
+        // Each page will start with { 0xFF, 0xFF, ADDR_HIGH, ADDR_LOW }
+        final byte[] pageHeader = new byte[]{(byte)0xFF, (byte)0xFF};
+
+        DataOutputStream out;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream("core.bin")));
+
+            for (int page = 0; page < this.pagesUsed.length; page++) {
+                // if that page was accessed, write it to the core dump
+                if (this.pagesUsed[page]) {
+                    // write the header and page
+                    out.write(pageHeader);
+                    out.write((byte)(page & 0xFF));
+                    out.write(0x00);
+
+                    // write every address in the page
+                    for (int addr = 0; addr < 256; addr++) {
+                        out.write(this.cpu.memory[((page << 8) | addr)]);
+                    }
+                }
+            }
+
+            // close our output stream
+            out.close();
+        } catch (Exception e) {
+            System.out.println("Could not write core dump file; " + e.toString());
+        }
+    }
+
+    // todo: determine whether these fetch functions are really necessary given the emulator is in the package
+
+    public byte getA() {
+        return this.cpu.a;
+    }
+
+    public byte getX() {
+        return this.cpu.x;
+    }
+
+    public byte getY() {
+        return this.cpu.y;
+    }
+
+    public byte getStackPointer() {
+        return this.cpu.sp;
+    }
+
+    public byte getStatus() {
+        return this.cpu.getStatus();
+    }
+
+    public int getPC() {
+        return this.cpu.pc;
+    }
+
+    public String getFaultMessage() {
+        // the message describing the illegal instruction that halted the CPU, if any
+        return this.cpu.getFaultMessage();
+    }
+
+    public long getInstructionCount() {
+        return this.cpu.instructions;
+    }
+
+    public long getCycles() {
+        // the number of clock cycles elapsed since the CPU was created
+        return this.cpu.cycles;
+    }
+
+    /*
+
+    Constructors
+
+    */
+
+    private Debugger() {
+        this.paused = false;
+        this.pagesUsed = new boolean[256];  // all initialized to false
+        this.pagesUsed[1] = true;   // we will always include the stack in a core dump
+        this.segments = new ArrayList<>();
+        this.breakpoints = new AtomicLongArray(0x10000 >> 6);
+        this.pages = new Breakpoint[256][];
+        this.version = 1;   // so that blocks, which start at version 0, are checked the first time
+        this.lineNumbers = new Hashtable<>();
+        this.labels = new Hashtable<>();
+    }
+
+    Debugger(CPU cpu) {
+        // The debugger _must_ be initialized with a CPU
+
+        this();
+        this.cpu = cpu;
+    }
+}
@@ -0,0 +1,40 @@
+package emu;
+
+final class DecodedInstruction {
+    /*
+
+    An instruction that has already been fetched and decoded, as part of a basic block
+    A basic block is a run of instructions that execute one after the other; it is represented by its first
+        instruction, and each instruction links to the one following it in the block.
+    A block ends after the first instruction that may transfer control (see Opcode.endsBlock), before an illegal
+        opcode, or after MAX_BLOCK_LENGTH instructions, whichever comes first.
+    The first instruction of a block also holds the state of the block as a whole (see below).
+
+     */
+
+    final static int MAX_BLOCK_LENGTH = 32; // at most 96 bytes, so a block never covers more than two pages
+
+    final Opcode instruction;   // the instruction's table entry
+    final int operand;  // the operand, as fetched
+    final int next; // the address of the following instruction; the PC while this one executes
+    DecodedInstruction following;   // the next instruction in the block, or null if this one ends it
+    Fusion fusion;  // if a fused run of instructions starts here, its table entry
+    DecodedInstruction fusedLast;   // the last instruction of that run
+
+    // only used in a block's first instruction
+    int maxCycles;  // the most cycles the whole block can take
+    int entries;    // the number of times the block has been entered
+    CompiledBlock compiled; // the block, compiled by the Recompiler; null if it has not been
+    boolean uncompilable;   // whether the Recompiler failed to compile the block
+    boolean idleLoop;   // whether the block loops back to itself without writing memory, so it may be idle (see CPU.run)
+    int end;    // the address just past the block's last instruction
+    int breakpointsVersion; // the version of the debugger's breakpoints 'hasBreakpoints' was found for
+    boolean hasBreakpoints; // whether any address in the block has a breakpoint (see Debugger.hasBreakpoints)
+
+    DecodedInstruction(Opcode instruction, int operand, int next) {
+        this.instruction = instruction;
+        this.operand = operand;
+        this.next = next;
+        this.following = null;
+    }
+}
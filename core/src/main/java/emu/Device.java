@@ -0,0 +1,19 @@
+package emu;
+
+public interface Device extends PageHandler {
+    /*
+
+    A piece of emulated hardware
+
+    A device is added to the emulator with Emulator.addDevice, which calls attach(). From there it may map itself over
+        a range of pages (Emulator.mapDevice), after which its read() and write() handle the CPU's accesses to them,
+        and schedule events at future CPU cycles (Emulator.schedule) to do work over time, such as counting down a
+        timer or raising a vertical blank. Devices that need neither are free to do nothing.
+    All of these are called on the thread running the CPU.
+
+     */
+
+    void attach(Emulator emulator) throws Exception;    // throws if the device cannot be attached, e.g. its pages can't be mapped
+
+    void reset();   // the CPU was reset; every scheduled event has been cancelled, so reschedule any that are needed
+}
@@ -0,0 +1,164 @@
+package emu;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class EmulationThread implements Runnable {
+    /*
+
+    Runs the emulator on its own thread, so that emulation and the UI do not slow one another down
+
+    While the thread is running, it owns the CPU; nothing else may touch it. Instead:
+        - The thread publishes an immutable Snapshot of the CPU at most PUBLISH_INTERVAL apart, and whenever it
+            stops. The UI renders whichever snapshot is latest, so slow UI work drops frames rather than slowing the
+            CPU down. Each snapshot copies all of memory, so publishing is the one thing here that allocates as the
+            CPU runs; PUBLISH_INTERVAL bounds it.
+        - Input and interrupts have their own queue and latches (see Emulator.postInput, nmi and irq). Anything else
+            that must act on the CPU is posted as a command, which the thread runs between slices.
+    The NMI is not raised here; the screen raises it every frame, on an emulated cycle (see Screen).
+    Both handoffs are lock-free.
+    Once stop has returned, the thread is done with the CPU, and it may be used directly again (e.g. for stepping in
+        the debugger). isRunning turns false as soon as the thread leaves its loop, but it may still be running the
+        last commands and publishing its final snapshot; only stop waits for that.
+
+     */
+
+    final private static long SLICES_PER_SECOND = 1000;    // the CPU runs in 1 ms slices of emulated time
+    final private static long PUBLISH_INTERVAL = 16_000_000;    // publish a snapshot at most once every 16 ms
+
+    final private Emulator emu;
+    final private AtomicReference<Snapshot> latest;   // the most recently published snapshot
+    final private ConcurrentLinkedQueue<Runnable> commands;    // commands waiting to be run on the emulation thread
+
+    private volatile Thread thread;
+    private volatile boolean running;   // set while the thread runs slices; cleared to ask it to stop, or when it does
+    private volatile boolean accepting; // whether posted commands are left to the thread; cleared after its last drain
+    private volatile StopReason stopReason; // why the thread last stopped
+
+    public void start() {
+        // Starts running the CPU on the emulation thread; does nothing if it is already running
+        if (this.running) {
+            return;
+        }
+
+        // the last thread may still be finishing; it must be done with the CPU before another starts
+        this.join();
+
+        this.stopReason = StopReason.RUNNING;
+        this.accepting = true;
+        this.running = true;
+        this.thread = new Thread(this, "emulation");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public void stop() {
+        // Stops the emulation thread, waiting for it to finish its current slice
+        this.running = false;
+        this.join();
+    }
+
+    private void join() {
+        // Waits for the thread to finish, unless we are on it
+        Thread thread = this.thread;
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        // whether the thread is running slices; false once it has been asked to stop, or has stopped of its own accord
+        return this.running;
+    }
+
+    public StopReason getStopReason() {
+        // why the thread stopped; RUNNING if it is still running
+        return this.isRunning() ? StopReason.RUNNING : this.stopReason;
+    }
+
+    public void post(Runnable command) {
+        /*
+        Runs a command against the emulator on the emulation thread
+        If the thread is not running, the command runs on the calling thread, once the thread is done with the CPU
+
+        @param  command The command to run
+         */
+
+        if (this.accepting) {
+            this.commands.add(command);
+
+            // if the thread drained the queue for the last time before the command was added, run it here instead
+            if (!this.accepting) {
+                this.join();
+                this.runCommands();
+            }
+        } else {
+            this.join();
+            command.run();
+        }
+    }
+
+    public Snapshot getSnapshot() {
+        // the latest published state of the CPU
+        return this.latest.get();
+    }
+
+    public void publish() {
+        // Publishes the current state of the CPU; only call this while the thread is stopped, or on the thread itself
+        this.latest.set(this.emu.snapshot());
+    }
+
+    private void runCommands() {
+        Runnable command;
+        while ((command = this.commands.poll()) != null) {
+            command.run();
+        }
+    }
+
+    @Override
+    public void run() {
+        // The emulation thread's loop
+
+        long lastPublish = 0;
+        StopReason reason = StopReason.RUNNING;
+
+        while (this.running && reason == StopReason.RUNNING) {
+            this.runCommands();
+
+            // the debugger's pause button stops the thread even when we aren't in debug mode
+            if (this.emu.debugger.isPaused()) {
+                reason = StopReason.PAUSED;
+                break;
+            }
+
+            reason = this.emu.runPaced(this.emu.getClockRate() / SLICES_PER_SECOND);
+
+            long now = System.nanoTime();
+            if (now - lastPublish > PUBLISH_INTERVAL) {
+                lastPublish = now;
+                this.publish();
+            }
+        }
+
+        this.stopReason = reason == StopReason.RUNNING ? StopReason.TERMINATED : reason;
+        this.running = false;
+
+        // anything posted while we were stopping still needs to happen; once 'accepting' is cleared, post runs
+        // commands itself, after waiting for us, so the second drain only catches those added in between
+        this.runCommands();
+        this.accepting = false;
+        this.runCommands();
+        this.publish();
+    }
+
+    public EmulationThread(Emulator emu) {
+        this.emu = emu;
+        this.latest = new AtomicReference<>(emu.snapshot());
+        this.commands = new ConcurrentLinkedQueue<>();
+        this.stopReason = StopReason.TERMINATED;
+    }
+}
@@ -0,0 +1,422 @@
+package emu;
+
+import emu_format.EmuFile;
+
+import java.util.*;
+
+public class Emulator {
+    final public static long DEFAULT_CLOCK_RATE = 1_000_000;   // the default emulated CPU clock, in Hz (1 MHz)
+
+    final private CPU cpu;    // the CPU we are running; automatically creates debugger
+    final private Pacer pacer;  // keeps the CPU running at the configured clock rate
+    final private Scheduler scheduler;  // events scheduled by devices
+    final private InputQueue inputQueue;    // input events waiting to be delivered to the CPU
+    final private ArrayList<Device> devices;    // the emulated hardware
+    final private Screen screen;    // the screen; also raises the NMI every frame
+    final private IntervalTimer timer;  // the programmable timer
+    public Debugger debugger;
+    final private HashMap<String, Input> inputs;   // user inputs; these are configurable
+
+    private boolean debugMode;  // whether the emulator is running in debug mode
+
+    public void addBinary(String filename) throws Exception {
+        EmuFile emu = EmuFile.loadEmuFile(filename);
+        this.cpu.loadBinFile(emu);
+        this.debugger.setDebugSymbols(emu.getDebugSymbols());
+    }
+
+    public void addInput(String character, int address, boolean triggersIRQ) throws Exception {
+        /*
+
+        addInput
+        Adds a new input source to the emulator
+
+        @param keyCode  The key code associated with this input
+        @param address The address to which this input is mapped in memory
+        @param triggersIRQ  Whether this input should trigger an IRQ or not (some inputs may be polled instead)
+
+         */
+
+        // todo: ensure multiple inputs aren't mapped to the same area of memory
+        if (this.inputs.containsKey(character)) {
+            throw new Exception("Input device already mapped");
+        } else {
+            this.inputs.put(character, new Input(character, address, triggersIRQ));
+        }
+    }
+
+    public boolean hasInput(String character) {
+        return this.inputs.containsKey(character);
+    }
+
+    public Input getInput(String character) {
+        return this.inputs.get(character);
+    }
+
+    public HashMap<String, Input> getAllInputs() {
+        return this.inputs;
+    }
+
+    public void removeInput(Input toRemove) {
+        this.inputs.remove(toRemove.getMappedKeyCode());
+    }
+
+    // Devices
+
+    public void addDevice(Device device) throws Exception {
+        // Adds a piece of hardware to the emulator, attaching it; it will be reset along with the CPU
+        device.attach(this);
+        this.devices.add(device);
+    }
+
+    public void schedule(long cycle, ScheduledEvent event) {
+        /*
+        Schedules an event to run once the CPU's cycle count reaches 'cycle' (see getCycles)
+        Events run on the thread running the CPU, so only devices and commands on that thread may schedule them
+
+        @param  cycle   The cycle at which the event should run; if it has already passed, it runs at the next
+                            instruction boundary. Events scheduled while the CPU is running (e.g. from a device's
+                            write()) are handled on time too.
+        @param  event   The event
+         */
+
+        this.scheduler.schedule(cycle, event);
+
+        // if the CPU is running a slice that would pass the event, end it in time
+        this.cpu.endRunBy(cycle);
+    }
+
+    public void cancel(ScheduledEvent event) {
+        // Cancels every pending run of an event
+        this.scheduler.cancel(event);
+    }
+
+    public Screen getScreen() {
+        // the screen, for configuring the frame rate and framebuffer address
+        return this.screen;
+    }
+
+    public long getCycles() {
+        // the number of clock cycles the CPU has run
+        return this.cpu.cycles;
+    }
+
+    public long getInstructions() {
+        // the number of instructions the CPU has executed
+        return this.cpu.instructions;
+    }
+
+    // Run a program
+
+    public StopReason step() {
+        this.inputQueue.deliverDue(this.cpu);
+        StopReason reason = this.cpu.debugMode ? this.debugger.step() : this.cpu.step();
+        this.scheduler.runDue(this.cpu.cycles);
+        return reason;
+    }
+
+    public StopReason run(long maxCycles) {
+        /*
+        Runs a slice of maxCycles clock cycles
+        In debug mode, execution stops early if a breakpoint is reached and its condition, if it has one, holds
+
+        The CPU is never run past the cycle at which the next scheduled event or input is due; the slice is split
+            there, and the event runs between the two parts. This way, devices cost nothing until they have something
+            to do, and input is only ever delivered between instructions.
+
+        @param  maxCycles   The number of clock cycles to run for
+        @return Why the slice ended; RUNNING if the whole budget was used
+         */
+
+        final long end = this.cpu.cycles + maxCycles;
+
+        this.scheduler.runDue(this.cpu.cycles);
+        this.inputQueue.deliverDue(this.cpu);
+        StopReason reason = StopReason.RUNNING;
+        while (reason == StopReason.RUNNING && this.cpu.cycles < end) {
+            long next = Math.min(this.scheduler.nextDue(), this.inputQueue.nextDue());
+            reason = this.cpu.run(Math.min(end, next) - this.cpu.cycles);
+            this.scheduler.runDue(this.cpu.cycles);
+            this.inputQueue.deliverDue(this.cpu);
+        }
+
+        return reason;
+    }
+
+    public StopReason runPaced(long maxCycles) {
+        /*
+        Runs maxCycles clock cycles at the configured clock rate, blocking the calling thread until they are done
+        In turbo mode, the cycles are run as fast as possible
+        This is intended for running without the GUI
+
+        @param  maxCycles   The number of clock cycles to run for
+        @return Why execution ended; RUNNING if all of the cycles were run
+         */
+
+        final long end = this.cpu.cycles + maxCycles;
+        final long sliceCycles = this.pacer.getSliceCycles();
+
+        StopReason reason = StopReason.RUNNING;
+        while (reason == StopReason.RUNNING && this.cpu.cycles < end) {
+            reason = this.run(Math.min(sliceCycles, end - this.cpu.cycles));
+            if (!this.pacer.isTurbo()) {
+                this.pacer.awaitCycles(this.cpu.cycles);
+            }
+        }
+
+        return reason;
+    }
+
+    public void setClockRate(long clockRate) throws Exception {
+        // Sets the emulated clock rate, in Hz
+        if (clockRate <= 0) {
+            throw new Exception("Clock rate must be positive");
+        }
+
+        this.pacer.setClockRate(clockRate, this.cpu.cycles);
+    }
+
+    public long getClockRate() {
+        return this.pacer.getClockRate();
+    }
+
+    public void setTurbo(boolean turbo) {
+        // In turbo mode, the CPU is not paced and runs as fast as the host allows
+        this.pacer.setTurbo(turbo, this.cpu.cycles);
+    }
+
+    public boolean isTurbo() {
+        return this.pacer.isTurbo();
+    }
+
+    public void setRecompilerEnabled(boolean enabled) {
+        // Whether hot code is compiled to bytecode; when disabled, everything is interpreted
+        this.cpu.recompile = enabled;
+    }
+
+    public boolean isRecompilerEnabled() {
+        return this.cpu.recompile;
+    }
+
+    public void setFusionEnabled(boolean enabled) {
+        // Whether the interpreter executes common runs of instructions as single operations
+        this.cpu.fuse = enabled;
+    }
+
+    public boolean isFusionEnabled() {
+        return this.cpu.fuse;
+    }
+
+    public void setIdleSkippingEnabled(boolean enabled) {
+        // Whether the CPU fast-forwards through idle loops instead of running them; timing is the same either way
+        this.cpu.skipIdle = enabled;
+    }
+
+    public boolean isIdleSkippingEnabled() {
+        return this.cpu.skipIdle;
+    }
+
+    public String getFusionStatistics() {
+        /*
+        Reports how often each fused run of instructions has executed, most frequent first
+        Only the interpreter fuses instructions, so blocks compiled by the recompiler do not show up here
+
+        @return A human-readable report, one run per line
+         */
+
+        Fusion[] fusions = FusionTable.FUSIONS.clone();
+        long[] counts = this.cpu.fusionCounts.clone();
+        Arrays.sort(fusions, (a, b) -> Long.compare(counts[b.id], counts[a.id]));
+
+        long fused = 0;
+        for (Fusion fusion : fusions) {
+            fused += counts[fusion.id] * fusion.instructions.length;
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%d of %d instructions ran fused%n", fused, this.cpu.instructions));
+        for (Fusion fusion : fusions) {
+            if (counts[fusion.id] > 0) {
+                report.append(String.format("%12d  %s%n", counts[fusion.id], fusion.getName()));
+            }
+        }
+
+        return report.toString();
+    }
+
+    public String getRecompilerStatistics() {
+        // Reports how many blocks the recompiler could not compile, and why the last could not; they are interpreted
+        long failures = this.cpu.recompiler.getFailures();
+        if (failures == 0) {
+            return String.format("every block compiled%n");
+        }
+
+        return String.format("%d blocks could not be compiled; the last because of %s%n", failures,
+                this.cpu.recompiler.getLastFailure());
+    }
+
+    public long getBlocksBuilt() {
+        /*
+        Counts the blocks of code decoded or compiled so far, including those built again after being modified
+        Building a block allocates; once everything that runs is built, the emulator does not (see AllocationCheck)
+
+        @return The number of blocks decoded, plus the number the recompiler has compiled or tried to
+         */
+
+        return this.cpu.blockCache.getDecodedCount() + this.cpu.recompiler.getAttempts();
+    }
+
+    public void reset() {
+        // Resets the CPU and every device; pending events are dropped, and the devices schedule what they need again
+        this.cpu.signal(Signal.RESET);
+        this.pacer.resync(this.cpu.cycles);
+        this.scheduler.clear();
+        this.inputQueue.clear();
+        for (int i = 0; i < this.devices.size(); i++) {
+            this.devices.get(i).reset();     // by index, as an iterator would be allocated on every reset
+        }
+    }
+
+    public void terminate() {
+        // Terminates program execution
+        if (debugMode)
+            this.debugger.terminate();
+        else
+            this.cpu.halt(StopReason.TERMINATED);
+    }
+
+    public void nmi() {
+        // triggers a CPU NMI; safe to call from any thread, as the CPU only takes it between instructions
+        this.cpu.raiseInterrupt(CPU.NMI_LINE);
+    }
+
+    public void irq() {
+        // triggers a CPU IRQ, taken once the I flag is clear; like nmi(), this is safe to call from any thread
+        this.cpu.raiseInterrupt(CPU.IRQ_LINE);
+    }
+
+    public boolean isSet(byte flag) {
+        return this.cpu.isSet(flag);
+    }
+
+    public void mapDevice(int firstPage, int pageCount, PageHandler device) throws Exception {
+        /*
+        Maps a memory-mapped device over a range of pages; the device then handles all CPU reads and writes to them
+        Like anything else that touches the CPU, this must not be called while the emulation thread is running
+
+        @param  firstPage   The first page of the range; pages $02-$fe may be mapped
+        @param  pageCount   The number of pages in the range
+        @param  device  The device
+        @throws Exception if the range includes the zero page, the stack, or the vectors
+         */
+
+        this.cpu.bus.mapDevice(firstPage, pageCount, device);
+    }
+
+    public void mapRom(int firstPage, int pageCount) throws Exception {
+        // Makes a range of pages read-only to the CPU
+        this.cpu.bus.mapRom(firstPage, pageCount);
+    }
+
+    public void unmap(int firstPage, int pageCount) throws Exception {
+        // Makes a range of pages plain RAM again
+        this.cpu.bus.unmap(firstPage, pageCount);
+    }
+
+    public boolean postInput(int address, byte value, boolean triggersIRQ) {
+        /*
+        Queues an input event, to be delivered at the next slice boundary; may be called from any thread
+        The value is written to memory, then an IRQ is raised if requested, on the emulation thread (see InputQueue)
+
+        @param  address The address the input is mapped to
+        @param  value   The value to write
+        @param  triggersIRQ Whether to raise an IRQ after writing it
+        @return Whether the event was queued; false if too many are waiting, in which case it is dropped
+         */
+
+        return this.inputQueue.post(address, value, triggersIRQ, 0);
+    }
+
+    public boolean postInput(int address, byte value, boolean triggersIRQ, long cycle) throws Exception {
+        /*
+        Queues an input event to be delivered once the CPU reaches 'cycle'; may be called from any thread
+        Events are delivered in the order they are posted, so their cycles should not decrease
+
+        @param  cycle   The cycle at which to deliver the event
+        @return Whether the event was queued; false if too many are waiting, in which case it is dropped
+        @throws Exception if the cycle is negative
+         */
+
+        if (cycle < 0) {
+            throw new Exception("Input cycle must not be negative");
+        }
+
+        return this.inputQueue.post(address, value, triggersIRQ, cycle);
+    }
+
+    public void writeToMemory(int address, byte value) {
+        /*
+        Writes a byte to memory; to be used for input handling
+        @param  address The address in memory we are writing to
+        @param  value   The value we wish to write
+         */
+
+        this.cpu.write(address & 0xFFFF, value);
+    }
+
+    public void coreDump() throws Exception {
+        if (this.cpu.debugMode) {
+            this.cpu.debugger.generateCoreDump();
+        } else {
+            throw new Exception("Cannot generate core dump when debug mode is disabled");
+        }
+    }
+
+    public void setDebugMode(boolean mode) {
+        this.debugMode = mode;
+        this.cpu.debugMode = mode;
+    }
+
+    public boolean isDebugMode() {
+        return this.debugMode;
+    }
+
+    public boolean isRunning() {
+        return !this.cpu.halted;
+    }
+
+    public byte[] getMemory() {
+        return this.cpu.memory;
+    }
+
+    Bus getBus() {
+        return this.cpu.bus;
+    }
+
+    Snapshot snapshot() {
+        // Copies the current state of the CPU
+        return new Snapshot(this.cpu, this.screen);
+    }
+
+    public Emulator() {
+        // create and reset our CPU
+        this.cpu = new CPU();
+        this.debugger = this.cpu.debugger;
+        this.pacer = new Pacer(DEFAULT_CLOCK_RATE);
+        this.scheduler = new Scheduler();
+        this.inputQueue = new InputQueue();
+        this.devices = new ArrayList<>();
+        this.debugMode = false;
+        this.screen = new Screen();
+        this.timer = new IntervalTimer();
+        try {
+            this.addDevice(this.screen);
+            this.addDevice(this.timer);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not attach the built-in devices", e);
+        }
+        this.reset();
+
+        this.inputs = new HashMap<>();
+    }
+}
@@ -0,0 +1,73 @@
+package emu;
+
+import java.util.Arrays;
+
+public final class Frame {
+    /*
+
+    A frame latched by the screen
+
+    Besides its pixels, a frame records which of them differ from the frame before it, i.e. the one whose version is
+        one less. A renderer still showing that frame only needs to repaint those pixels (see Screen).
+    Frames are recycled (see Screen.takeFrame), so a frame only keeps its contents until the UI takes the next one.
+
+     */
+
+    final private byte[] pixels;
+    final private long[] changed;   // one bit per pixel
+    private long version;
+
+    public byte getPixel(int index) {
+        return this.pixels[index];
+    }
+
+    public byte[] getPixels() {
+        // the frame's pixels, one byte each, row by row; callers must not modify them
+        return this.pixels;
+    }
+
+    public long getVersion() {
+        // the number of frames with different contents latched before this one since the screen was created
+        return this.version;
+    }
+
+    public int nextChanged(int index) {
+        /*
+        Finds the next pixel that differs from the previous frame
+
+        @param  index   The pixel to start looking at
+        @return The index of the first changed pixel at or after 'index'; -1 if there are none
+         */
+
+        int word = index >> 6;
+        if (word >= this.changed.length) {
+            return -1;
+        }
+
+        long bits = this.changed[word] & (-1L << index);
+        while (bits == 0) {
+            if (++word == this.changed.length) {
+                return -1;
+            }
+
+            bits = this.changed[word];
+        }
+
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    void set(byte[] pixels, long[] changed, long version) {
+        // Sets the frame's contents; only while the screen owns it
+        System.arraycopy(pixels, 0, this.pixels, 0, this.pixels.length);
+        System.arraycopy(changed, 0, this.changed, 0, this.changed.length);
+        this.version = version;
+    }
+
+    Frame(int pixels) {
+        // a blank frame, version 0, in which every pixel counts as changed
+        this.pixels = new byte[pixels];
+        this.changed = new long[(pixels + 63) / 64];
+        Arrays.fill(this.changed, -1L);
+        this.version = 0;
+    }
+}
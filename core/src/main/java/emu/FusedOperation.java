@@ -0,0 +1,17 @@
+package emu;
+
+@FunctionalInterface
+interface FusedOperation {
+    /*
+
+    The semantics of a fused run of instructions (see Fusion)
+    As with Operation, the dispatcher has already advanced the PC -- past the last instruction of the run, since no
+        instruction before the last uses it
+
+    @param  cpu The CPU the operation acts on
+    @param  first   The first instruction of the run; the others follow it
+
+     */
+
+    void execute(CPU cpu, DecodedInstruction first);
+}
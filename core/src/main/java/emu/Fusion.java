@@ -0,0 +1,46 @@
+package emu;
+
+final class Fusion {
+    /*
+
+    An entry in the fusion table: a pair or triple of instructions that the interpreter runs as one operation (a
+        superinstruction), saving dispatches and letting the JIT optimize the instructions together
+
+    A fused run behaves exactly like its instructions; the CPU counts every instruction and the sum of their base
+        cycles, and any branch penalty is added by the operation itself. Runs are only fused when none of their
+        instructions pays for crossing a page, so the base cycles are exact.
+
+     */
+
+    final int id;   // the index of the entry in FusionTable.FUSIONS; also indexes the CPU's statistics
+    final Opcode[] instructions;    // the instructions, in order
+    final int cycles;   // the base cycle count of the whole run
+    final int leadCycles;   // the base cycle count of every instruction but the last
+    final FusedOperation operation; // the implementation
+
+    String getName() {
+        // e.g. "LDA Immediate / STA ZeroPage"
+        StringBuilder name = new StringBuilder();
+        for (Opcode instruction : this.instructions) {
+            if (name.length() > 0) {
+                name.append(" / ");
+            }
+            name.append(instruction.mnemonic).append(' ').append(instruction.mode);
+        }
+
+        return name.toString();
+    }
+
+    Fusion(int id, Opcode[] instructions, FusedOperation operation) {
+        this.id = id;
+        this.instructions = instructions;
+        this.operation = operation;
+
+        int cycles = 0;
+        for (Opcode instruction : instructions) {
+            cycles += instruction.cycles;
+        }
+        this.cycles = cycles;
+        this.leadCycles = cycles - instructions[instructions.length - 1].cycles;
+    }
+}
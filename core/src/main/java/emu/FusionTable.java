@@ -0,0 +1,115 @@
+package emu;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+final class FusionTable {
+    /*
+
+    The runs of instructions the interpreter fuses (see Fusion)
+
+    The set was chosen from the idioms that dominate the demo programs: copying values (LDA/STA), polling a variable
+        (LDA/CMP/Bxx), compare-and-branch loops (CMP/BNE and friends), counted loops (DEX/BNE), counters (INC/LDA),
+        and additions (CLC/ADC).
+    Use the fusion statistics (Emulator.getFusionStatistics) to see which runs fire for a given program.
+
+    No instruction but the last in a run may use the PC, since they all run with the PC already past the last. If
+        one writes memory, it may only write to the zero page; BlockCache never fuses runs in the zero page, so the
+        write can never modify the run itself.
+
+     */
+
+    static final Fusion[] FUSIONS;
+    private static final ArrayList<Fusion> ENTRIES = new ArrayList<>();
+    private static final HashMap<Integer, Fusion> RUNS = new HashMap<>();   // keyed by length and opcodes; see key()
+
+    private static int key(int length, int opcodes) {
+        return (length << 24) | opcodes;
+    }
+
+    static Fusion find(DecodedInstruction first) {
+        /*
+        Gets the longest fusion starting with the given instruction, if any
+        Decoding is the only caller, so this need not be fast
+
+        @param  first   The first instruction; the run continues with the instructions following it
+        @return The fusion, or null if no run starting here is fused
+         */
+
+        int opcodes = 0;
+        Fusion longest = null;
+        DecodedInstruction decoded = first;
+        for (int length = 1; length <= 3 && decoded != null; length++, decoded = decoded.following) {
+            opcodes = (opcodes << 8) | decoded.instruction.opcode;
+            Fusion fusion = RUNS.get(key(length, opcodes));
+            if (fusion != null) {
+                longest = fusion;
+            }
+        }
+
+        return longest;
+    }
+
+    private static void register(FusedOperation operation, int... opcodes) {
+        // Adds a run to the table; each run may only be registered once
+        int packed = 0;
+        Opcode[] instructions = new Opcode[opcodes.length];
+        for (int i = 0; i < opcodes.length; i++) {
+            packed = (packed << 8) | opcodes[i];
+            instructions[i] = InstructionTable.OPCODES[opcodes[i]];
+        }
+
+        int key = key(opcodes.length, packed);
+        if (RUNS.containsKey(key)) {
+            throw new IllegalStateException(String.format("Run $%06x registered twice", packed));
+        }
+
+        Fusion fusion = new Fusion(ENTRIES.size(), instructions, operation);
+        ENTRIES.add(fusion);
+        RUNS.put(key, fusion);
+    }
+
+    static {
+        // LDA / STA
+        register(Fusions::ldaImmediateStaZeroPage, 0xa9, 0x85);
+        register(Fusions::ldaImmediateStaAbsolute, 0xa9, 0x8d);
+        register(Fusions::ldaZeroPageStaZeroPage, 0xa5, 0x85);
+        register(Fusions::ldaZeroPageStaAbsolute, 0xa5, 0x8d);
+        register(Fusions::ldaAbsoluteStaZeroPage, 0xad, 0x85);
+        register(Fusions::ldaAbsoluteStaAbsolute, 0xad, 0x8d);
+
+        // LDA / CMP, LDA / CMP / Bxx
+        register(Fusions::ldaZeroPageCmpImmediate, 0xa5, 0xc9);
+        register(Fusions::ldaZeroPageCmpImmediateBneRelative, 0xa5, 0xc9, 0xd0);
+        register(Fusions::ldaZeroPageCmpImmediateBeqRelative, 0xa5, 0xc9, 0xf0);
+        register(Fusions::ldaZeroPageCmpImmediateBccRelative, 0xa5, 0xc9, 0x90);
+        register(Fusions::ldaZeroPageCmpImmediateBcsRelative, 0xa5, 0xc9, 0xb0);
+
+        // CMP, CPX, CPY / Bxx
+        register(Fusions::cmpImmediateBneRelative, 0xc9, 0xd0);
+        register(Fusions::cmpImmediateBeqRelative, 0xc9, 0xf0);
+        register(Fusions::cmpImmediateBccRelative, 0xc9, 0x90);
+        register(Fusions::cmpImmediateBcsRelative, 0xc9, 0xb0);
+        register(Fusions::cpxImmediateBneRelative, 0xe0, 0xd0);
+        register(Fusions::cpyImmediateBneRelative, 0xc0, 0xd0);
+
+        // DEX, DEY, INX, INY / BNE
+        register(Fusions::dexImpliedBneRelative, 0xca, 0xd0);
+        register(Fusions::deyImpliedBneRelative, 0x88, 0xd0);
+        register(Fusions::inxImpliedBneRelative, 0xe8, 0xd0);
+        register(Fusions::inyImpliedBneRelative, 0xc8, 0xd0);
+
+        // INC / LDA
+        register(Fusions::incZeroPageLdaZeroPage, 0xe6, 0xa5);
+
+        // CLC / ADC
+        register(Fusions::clcImpliedAdcImmediate, 0x18, 0x69);
+        register(Fusions::clcImpliedAdcZeroPage, 0x18, 0x65);
+
+        FUSIONS = ENTRIES.toArray(new Fusion[0]);
+    }
+
+    private FusionTable() {
+        // the table is static
+    }
+}
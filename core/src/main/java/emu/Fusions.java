@@ -0,0 +1,206 @@
+package emu;
+
+final class Fusions {
+    /*
+
+    The implementation of every fused run of instructions (see Fusion and FusionTable)
+
+    Methods are named after the instructions they fuse, e.g. ldaImmediateStaZeroPage for LDA #imm followed by STA zp
+    Each method is given the first decoded instruction of the run; the others follow it in the block
+    Each method has exactly the effect of the methods in Instructions run one after the other, quirks included
+
+     */
+
+    /*
+
+    LDA / STA
+    Copying a value to memory
+
+     */
+
+    static void ldaImmediateStaZeroPage(CPU cpu, DecodedInstruction first) {
+        cpu.a = (byte) first.operand;
+        cpu.updateNZFlags(cpu.a);
+        cpu.storeInMemory(cpu.a, first.following.operand);
+    }
+
+    static void ldaImmediateStaAbsolute(CPU cpu, DecodedInstruction first) {
+        cpu.a = (byte) first.operand;
+        cpu.updateNZFlags(cpu.a);
+        cpu.storeInMemory(cpu.a, first.following.operand);
+    }
+
+    static void ldaZeroPageStaZeroPage(CPU cpu, DecodedInstruction first) {
+        cpu.a = cpu.read(first.operand);
+        cpu.updateNZFlags(cpu.a);
+        cpu.storeInMemory(cpu.a, first.following.operand);
+    }
+
+    static void ldaZeroPageStaAbsolute(CPU cpu, DecodedInstruction first) {
+        cpu.a = cpu.read(first.operand);
+        cpu.updateNZFlags(cpu.a);
+        cpu.storeInMemory(cpu.a, first.following.operand);
+    }
+
+    static void ldaAbsoluteStaZeroPage(CPU cpu, DecodedInstruction first) {
+        cpu.a = cpu.read(first.operand);
+        cpu.updateNZFlags(cpu.a);
+        cpu.storeInMemory(cpu.a, first.following.operand);
+    }
+
+    static void ldaAbsoluteStaAbsolute(CPU cpu, DecodedInstruction first) {
+        cpu.a = cpu.read(first.operand);
+        cpu.updateNZFlags(cpu.a);
+        cpu.storeInMemory(cpu.a, first.following.operand);
+    }
+
+    /*
+
+    LDA / CMP
+    Loading a variable to test it
+
+     */
+
+    static void ldaZeroPageCmpImmediate(CPU cpu, DecodedInstruction first) {
+        cpu.a = cpu.read(first.operand);
+        cpu.updateNZFlags(cpu.a);
+        cpu.compare(cpu.a, (short) first.following.operand);
+    }
+
+    /*
+
+    LDA / CMP / Bxx
+    Waiting for a variable to reach a value
+
+     */
+
+    static void ldaZeroPageCmpImmediateBneRelative(CPU cpu, DecodedInstruction first) {
+        cpu.a = cpu.read(first.operand);
+        cpu.updateNZFlags(cpu.a);
+        cpu.compare(cpu.a, (short) first.following.operand);
+        cpu.branchIfClear(Status.ZERO, first.following.following.operand);
+    }
+
+    static void ldaZeroPageCmpImmediateBeqRelative(CPU cpu, DecodedInstruction first) {
+        cpu.a = cpu.read(first.operand);
+        cpu.updateNZFlags(cpu.a);
+        cpu.compare(cpu.a, (short) first.following.operand);
+        cpu.branchIfSet(Status.ZERO, first.following.following.operand);
+    }
+
+    static void ldaZeroPageCmpImmediateBccRelative(CPU cpu, DecodedInstruction first) {
+        cpu.a = cpu.read(first.operand);
+        cpu.updateNZFlags(cpu.a);
+        cpu.compare(cpu.a, (short) first.following.operand);
+        cpu.branchIfClear(Status.CARRY, first.following.following.operand);
+    }
+
+    static void ldaZeroPageCmpImmediateBcsRelative(CPU cpu, DecodedInstruction first) {
+        cpu.a = cpu.read(first.operand);
+        cpu.updateNZFlags(cpu.a);
+        cpu.compare(cpu.a, (short) first.following.operand);
+        cpu.branchIfSet(Status.CARRY, first.following.following.operand);
+    }
+
+    /*
+
+    CMP, CPX, CPY / Bxx
+    Compare and branch
+
+     */
+
+    static void cmpImmediateBneRelative(CPU cpu, DecodedInstruction first) {
+        cpu.compare(cpu.a, (short) first.operand);
+        cpu.branchIfClear(Status.ZERO, first.following.operand);
+    }
+
+    static void cmpImmediateBeqRelative(CPU cpu, DecodedInstruction first) {
+        cpu.compare(cpu.a, (short) first.operand);
+        cpu.branchIfSet(Status.ZERO, first.following.operand);
+    }
+
+    static void cmpImmediateBccRelative(CPU cpu, DecodedInstruction first) {
+        cpu.compare(cpu.a, (short) first.operand);
+        cpu.branchIfClear(Status.CARRY, first.following.operand);
+    }
+
+    static void cmpImmediateBcsRelative(CPU cpu, DecodedInstruction first) {
+        cpu.compare(cpu.a, (short) first.operand);
+        cpu.branchIfSet(Status.CARRY, first.following.operand);
+    }
+
+    static void cpxImmediateBneRelative(CPU cpu, DecodedInstruction first) {
+        cpu.compare(cpu.x, (short) first.operand);
+        cpu.branchIfClear(Status.ZERO, first.following.operand);
+    }
+
+    static void cpyImmediateBneRelative(CPU cpu, DecodedInstruction first) {
+        cpu.compare(cpu.y, (short) first.operand);
+        cpu.branchIfClear(Status.ZERO, first.following.operand);
+    }
+
+    /*
+
+    DEX, DEY, INX, INY / BNE
+    Counted loops
+
+     */
+
+    static void dexImpliedBneRelative(CPU cpu, DecodedInstruction first) {
+        cpu.x--;
+        cpu.updateNZFlags(cpu.x);
+        cpu.branchIfClear(Status.ZERO, first.following.operand);
+    }
+
+    static void deyImpliedBneRelative(CPU cpu, DecodedInstruction first) {
+        cpu.y--;
+        cpu.updateNZFlags(cpu.y);
+        cpu.branchIfClear(Status.ZERO, first.following.operand);
+    }
+
+    static void inxImpliedBneRelative(CPU cpu, DecodedInstruction first) {
+        cpu.x++;
+        cpu.updateNZFlags(cpu.x);
+        cpu.branchIfClear(Status.ZERO, first.following.operand);
+    }
+
+    static void inyImpliedBneRelative(CPU cpu, DecodedInstruction first) {
+        cpu.y++;
+        cpu.updateNZFlags(cpu.y);
+        cpu.branchIfClear(Status.ZERO, first.following.operand);
+    }
+
+    /*
+
+    INC / LDA
+    Incrementing a variable and loading the result
+
+     */
+
+    static void incZeroPageLdaZeroPage(CPU cpu, DecodedInstruction first) {
+        cpu.increment(first.operand);
+        cpu.a = cpu.read(first.following.operand);
+        cpu.updateNZFlags(cpu.a);
+    }
+
+    /*
+
+    CLC / ADC
+    Addition without carry in
+
+     */
+
+    static void clcImpliedAdcImmediate(CPU cpu, DecodedInstruction first) {
+        cpu.clearFlag(Status.CARRY);
+        cpu.add(first.following.operand);
+    }
+
+    static void clcImpliedAdcZeroPage(CPU cpu, DecodedInstruction first) {
+        cpu.clearFlag(Status.CARRY);
+        cpu.add(cpu.read(first.following.operand));
+    }
+
+    private Fusions() {
+        // the class is static
+    }
+}
@@ -0,0 +1,175 @@
+package emu;
+
+import java.util.ArrayList;
+
+public final class HeadlessRunner {
+    /*
+
+    Runs a program without the GUI, and without JavaFX on the classpath
+
+    Usage:
+        java emu.HeadlessRunner <file.emu> [--cycles N] [--time SECONDS] [--clock HZ] [--paced] [--dump ADDR[:LEN]]...
+
+    The program is loaded, the CPU reset, and the program run until it executes BRK (or stops for any other reason),
+        or until it has run the given number of cycles or for the given wall-clock time. By default it runs as fast
+        as the host allows; with --paced, it runs at the emulated clock rate, as it would in the GUI.
+    Afterwards, the registers, the requested memory and timing statistics are printed. Addresses and lengths may be
+        given in decimal or, prefixed with '$' or '0x', in hex; a dump is 16 bytes long unless a length is given.
+
+    The exit status is 0 if the program stopped normally or hit a limit, 1 if it hit an illegal opcode, and 2 if it
+        could not be run at all.
+
+     */
+
+    final private static long DEFAULT_MAX_CYCLES = 100_000_000L;    // when neither limit is given
+    final private static int DEFAULT_DUMP_LENGTH = 16;
+    final private static long SLICES_PER_SECOND = 100;  // how often the time limit is checked, in emulated time
+
+    public static void main(String[] args) {
+        String filename = null;
+        long maxCycles = -1;
+        double maxSeconds = -1;
+        long clockRate = Emulator.DEFAULT_CLOCK_RATE;
+        boolean paced = false;
+        ArrayList<int[]> dumps = new ArrayList<>();  // {address, length}
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--cycles":
+                        maxCycles = parseNumber(argument(args, ++i));
+                        break;
+                    case "--time":
+                        maxSeconds = Double.parseDouble(argument(args, ++i));
+                        break;
+                    case "--clock":
+                        clockRate = parseNumber(argument(args, ++i));
+                        break;
+                    case "--paced":
+                        paced = true;
+                        break;
+                    case "--dump":
+                        String[] range = argument(args, ++i).split(":");
+                        int address = (int) parseNumber(range[0]);
+                        int length = range.length > 1 ? (int) parseNumber(range[1]) : DEFAULT_DUMP_LENGTH;
+                        if (address < 0 || address > 0xFFFF || length < 1) {
+                            throw new Exception("Invalid dump range: " + args[i]);
+                        }
+                        dumps.add(new int[]{address, length});
+                        break;
+                    default:
+                        if (args[i].startsWith("--") || filename != null) {
+                            throw new Exception("Unexpected argument: " + args[i]);
+                        }
+                        filename = args[i];
+                        break;
+                }
+            }
+
+            if (filename == null) {
+                throw new Exception("No .emu file given");
+            } else if (maxCycles < 0 && maxSeconds < 0) {
+                maxCycles = DEFAULT_MAX_CYCLES;
+            }
+        } catch (Exception e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: HeadlessRunner <file.emu> [--cycles N] [--time SECONDS] [--clock HZ] " +
+                    "[--paced] [--dump ADDR[:LEN]]...");
+            System.exit(2);
+            return;
+        }
+
+        Emulator emu = new Emulator();
+        StopReason reason;
+        long nanos;
+        long cycles;
+        long instructions;
+        try {
+            emu.addBinary(filename);
+            emu.setClockRate(clockRate);
+            emu.reset();
+            emu.setTurbo(!paced);
+
+            // the limit and the statistics count from the reset, not from when the emulator was created
+            long startCycles = emu.getCycles();
+            long startInstructions = emu.getInstructions();
+            long cycleLimit = maxCycles < 0 ? Long.MAX_VALUE : startCycles + maxCycles;
+            long deadline = maxSeconds < 0 ? Long.MAX_VALUE : (long) (maxSeconds * 1e9);
+            long slice = Math.max(clockRate / SLICES_PER_SECOND, 1);
+
+            long start = System.nanoTime();
+            reason = StopReason.RUNNING;
+            while (reason == StopReason.RUNNING && emu.getCycles() < cycleLimit && System.nanoTime() - start < deadline) {
+                reason = emu.runPaced(Math.min(slice, cycleLimit - emu.getCycles()));
+            }
+            nanos = System.nanoTime() - start;
+            cycles = emu.getCycles() - startCycles;
+            instructions = emu.getInstructions() - startInstructions;
+        } catch (Exception e) {
+            System.err.println("Could not run " + filename + ": " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        report(emu, reason, nanos, cycles, instructions, dumps);
+        System.exit(reason == StopReason.ILLEGAL_OPCODE ? 1 : 0);
+    }
+
+    private static void report(Emulator emu, StopReason reason, long nanos, long cycles, long instructions,
+            ArrayList<int[]> dumps) {
+        Snapshot state = emu.snapshot();
+        double seconds = nanos / 1e9;
+
+        System.out.println("Stopped:      " + (reason == StopReason.RUNNING ? "limit reached" : reason));
+        System.out.printf("Registers:    A=$%02X X=$%02X Y=$%02X SP=$%02X PC=$%04X%n", state.getA(), state.getX(),
+                state.getY(), state.getStackPointer(), state.getPC());
+        System.out.println("Flags:        " + flags(state.getStatus()));
+        System.out.println("Cycles:       " + cycles);
+        System.out.println("Instructions: " + instructions);
+        System.out.println("Frames:       " + state.getFrameCount());
+        System.out.printf("Wall time:    %.3f s%n", seconds);
+        System.out.printf("Speed:        %.2f MHz emulated, %.2f MIPS%n", cycles / seconds / 1e6,
+                instructions / seconds / 1e6);
+
+        for (int[] dump : dumps) {
+            System.out.println();
+            for (int row = 0; row < dump[1]; row += 16) {
+                StringBuilder line = new StringBuilder(String.format("$%04X:", (dump[0] + row) & 0xFFFF));
+                for (int i = row; i < Math.min(row + 16, dump[1]); i++) {
+                    line.append(String.format(" %02X", state.readMemory(dump[0] + i)));
+                }
+                System.out.println(line);
+            }
+        }
+    }
+
+    private static String flags(byte status) {
+        // The status register as NV-BDIZC, with clear flags shown as '-'
+        String names = "NV-BDIZC";
+        StringBuilder flags = new StringBuilder();
+        for (int bit = 7; bit >= 0; bit--) {
+            flags.append((status & (1 << bit)) != 0 && bit != 5 ? names.charAt(7 - bit) : '-');
+        }
+
+        return flags.toString();
+    }
+
+    private static String argument(String[] args, int i) throws Exception {
+        if (i >= args.length) {
+            throw new Exception(args[i - 1] + " needs a value");
+        }
+
+        return args[i];
+    }
+
+    private static long parseNumber(String text) {
+        // A decimal number, or a hex one prefixed with '$' or '0x'
+        if (text.startsWith("$")) {
+            return Long.parseLong(text.substring(1), 16);
+        } else if (text.startsWith("0x") || text.startsWith("0X")) {
+            return Long.parseLong(text.substring(2), 16);
+        }
+
+        return Long.parseLong(text);
+    }
+}
@@ -0,0 +1,111 @@
+package emu;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+final class InputQueue {
+    /*
+
+    Carries input events from any thread to the emulation thread, which delivers them between CPU slices
+
+    An event is already resolved to what the hardware does with it: a byte written to an address, and optionally an
+        IRQ. Each is stamped with the cycle it is due; the emulator never runs the CPU past the next due event (see
+        Emulator.run), so scripted input always lands on the same cycle, and an event due "now" (cycle 0) lands at
+        the next slice boundary.
+    Events are delivered in the order they were posted. One that is not due yet holds back those behind it.
+
+    The queue is a fixed ring of CAPACITY slots, so posting never allocates or blocks; when the ring is full, the
+        event is dropped (e.g. under fast key repeat, when the program is not reading its input anyway).
+    Producers claim a slot by advancing 'tail', fill it in, then publish it through the slot's sequence number;
+        only the emulation thread reads slots and advances 'head'. A slot at ring position i is free for the
+        producer with ticket t when its sequence is t, and holds a published event for the consumer when it is t + 1.
+
+     */
+
+    final static int CAPACITY = 256;   // a power of two
+    final private static int MASK = CAPACITY - 1;
+
+    // the slots, as parallel arrays
+    final private AtomicLongArray sequence;
+    final private int[] addresses;
+    final private byte[] values;
+    final private boolean[] irqs;
+    final private long[] due;
+
+    final private AtomicLong tail;  // the next ticket to hand to a producer
+    private long head;  // the next ticket to deliver; only used by the emulation thread
+
+    boolean post(int address, byte value, boolean irq, long cycle) {
+        /*
+        Queues an input event; may be called from any thread
+
+        @param  address The address the input writes to
+        @param  value   The value it writes
+        @param  irq Whether it raises an IRQ once written
+        @param  cycle   The cycle it is due; 0 to deliver it as soon as possible
+        @return Whether it was queued; false if the queue was full
+         */
+
+        long ticket;
+        int slot;
+        while (true) {
+            ticket = this.tail.get();
+            slot = (int) (ticket & MASK);
+            long available = this.sequence.get(slot);
+            if (available < ticket) {
+                return false;   // the slot still holds an event from the last lap
+            } else if (available == ticket && this.tail.compareAndSet(ticket, ticket + 1)) {
+                break;
+            }
+        }
+
+        this.addresses[slot] = address & 0xFFFF;
+        this.values[slot] = value;
+        this.irqs[slot] = irq;
+        this.due[slot] = cycle;
+        this.sequence.set(slot, ticket + 1);   // publishes the fields above
+        return true;
+    }
+
+    long nextDue() {
+        // the cycle the next event is due; Long.MAX_VALUE if there is none. Only call this on the emulation thread
+        int slot = (int) (this.head & MASK);
+        return this.sequence.get(slot) == this.head + 1 ? this.due[slot] : Long.MAX_VALUE;
+    }
+
+    void deliverDue(CPU cpu) {
+        // Delivers every event due by the CPU's current cycle; only call this on the emulation thread
+        while (this.nextDue() <= cpu.cycles) {
+            int slot = (int) (this.head & MASK);
+            cpu.write(this.addresses[slot], this.values[slot]);
+            if (this.irqs[slot]) {
+                cpu.raiseInterrupt(CPU.IRQ_LINE);
+            }
+
+            this.sequence.set(slot, this.head + CAPACITY);  // frees the slot for the next lap
+            this.head++;
+        }
+    }
+
+    void clear() {
+        // Drops every queued event; only call this on the emulation thread
+        while (this.nextDue() != Long.MAX_VALUE) {
+            this.sequence.set((int) (this.head & MASK), this.head + CAPACITY);
+            this.head++;
+        }
+    }
+
+    InputQueue() {
+        this.sequence = new AtomicLongArray(CAPACITY);
+        for (int i = 0; i < CAPACITY; i++) {
+            this.sequence.set(i, i);
+        }
+
+        this.addresses = new int[CAPACITY];
+        this.values = new byte[CAPACITY];
+        this.irqs = new boolean[CAPACITY];
+        this.due = new long[CAPACITY];
+        this.tail = new AtomicLong();
+        this.head = 0;
+    }
+}
@@ -0,0 +1,339 @@
+package emu;
+
+final class InstructionTable {
+    /*
+
+    The CPU's dispatch table
+
+    Every supported opcode has an entry in OPCODES; the CPU fetches the opcode, fetches the number of operand bytes
+        given by the entry's addressing mode, and then calls the entry's operation.
+    Unsupported opcodes have no entry (null) and are treated as illegal instructions.
+
+    Each entry also gives the instruction's base cycle count, as on the NMOS 6502; page-crossing and branch penalties
+        are added at runtime (see Opcode and CPU.run).
+
+     */
+
+    static final Opcode[] OPCODES = new Opcode[256];
+
+    private static void register(Opcode entry) {
+        // Adds an entry to the table; each opcode may only be registered once
+        if (OPCODES[entry.opcode] != null) {
+            throw new IllegalStateException(String.format("Opcode $%02x registered twice", entry.opcode));
+        }
+
+        OPCODES[entry.opcode] = entry;
+    }
+
+    static {
+        // BRK, NOP -- 0xea is the official NOP; the others are not
+        register(new Opcode(0x00, "BRK", AddressingMode.Implied, 7, Instructions::brkImplied));
+        register(new Opcode(0x1a, "NOP", AddressingMode.Implied, 2, Instructions::nopImplied));
+        register(new Opcode(0x3a, "NOP", AddressingMode.Implied, 2, Instructions::nopImplied));
+        register(new Opcode(0x5a, "NOP", AddressingMode.Implied, 2, Instructions::nopImplied));
+        register(new Opcode(0x7a, "NOP", AddressingMode.Implied, 2, Instructions::nopImplied));
+        register(new Opcode(0xda, "NOP", AddressingMode.Implied, 2, Instructions::nopImplied));
+        register(new Opcode(0xea, "NOP", AddressingMode.Implied, 2, Instructions::nopImplied));
+        register(new Opcode(0xfa, "NOP", AddressingMode.Implied, 2, Instructions::nopImplied));
+
+        // ADC
+        register(new Opcode(0x69, "ADC", AddressingMode.Immediate, 2, Instructions::adcImmediate));
+        register(new Opcode(0x65, "ADC", AddressingMode.ZeroPage, 3, Instructions::adcZeroPage));
+        register(new Opcode(0x75, "ADC", AddressingMode.ZeroPageX, 4, Instructions::adcZeroPageX));
+        register(new Opcode(0x6d, "ADC", AddressingMode.Absolute, 4, Instructions::adcAbsolute));
+        register(new Opcode(0x7d, "ADC", AddressingMode.AbsoluteX, 4, Instructions::adcAbsoluteX));
+        register(new Opcode(0x79, "ADC", AddressingMode.AbsoluteY, 4, Instructions::adcAbsoluteY));
+        register(new Opcode(0x61, "ADC", AddressingMode.IndirectX, 6, Instructions::adcIndirectX));
+        register(new Opcode(0x71, "ADC", AddressingMode.IndirectY, 5, Instructions::adcIndirectY));
+
+        // AND
+        register(new Opcode(0x29, "AND", AddressingMode.Immediate, 2, Instructions::andImmediate));
+        register(new Opcode(0x25, "AND", AddressingMode.ZeroPage, 3, Instructions::andZeroPage));
+        register(new Opcode(0x35, "AND", AddressingMode.ZeroPageX, 4, Instructions::andZeroPageX));
+        register(new Opcode(0x2d, "AND", AddressingMode.Absolute, 4, Instructions::andAbsolute));
+        register(new Opcode(0x3d, "AND", AddressingMode.AbsoluteX, 4, Instructions::andAbsoluteX));
+        register(new Opcode(0x39, "AND", AddressingMode.AbsoluteY, 4, Instructions::andAbsoluteY));
+        register(new Opcode(0x21, "AND", AddressingMode.IndirectX, 6, Instructions::andIndirectX));
+        register(new Opcode(0x31, "AND", AddressingMode.IndirectY, 5, Instructions::andIndirectY));
+
+        // ASL
+        register(new Opcode(0x0a, "ASL", AddressingMode.Implied, 2, Instructions::aslImplied));
+        register(new Opcode(0x06, "ASL", AddressingMode.ZeroPage, 5, Instructions::aslZeroPage));
+        register(new Opcode(0x16, "ASL", AddressingMode.ZeroPageX, 6, Instructions::aslZeroPageX));
+        register(new Opcode(0x0e, "ASL", AddressingMode.Absolute, 6, Instructions::aslAbsolute));
+        register(new Opcode(0x1e, "ASL", AddressingMode.AbsoluteX, 7, Instructions::aslAbsoluteX));
+
+        // BIT
+        register(new Opcode(0x24, "BIT", AddressingMode.ZeroPage, 3, Instructions::bitZeroPage));
+        register(new Opcode(0x2c, "BIT", AddressingMode.Absolute, 4, Instructions::bitAbsolute));
+
+        // Branches
+        register(new Opcode(0x10, "BPL", AddressingMode.Relative, 2, Instructions::bplRelative));
+        register(new Opcode(0x30, "BMI", AddressingMode.Relative, 2, Instructions::bmiRelative));
+        register(new Opcode(0x50, "BVC", AddressingMode.Relative, 2, Instructions::bvcRelative));
+        register(new Opcode(0x70, "BVS", AddressingMode.Relative, 2, Instructions::bvsRelative));
+        register(new Opcode(0x90, "BCC", AddressingMode.Relative, 2, Instructions::bccRelative));
+        register(new Opcode(0xb0, "BCS", AddressingMode.Relative, 2, Instructions::bcsRelative));
+        register(new Opcode(0xd0, "BNE", AddressingMode.Relative, 2, Instructions::bneRelative));
+        register(new Opcode(0xf0, "BEQ", AddressingMode.Relative, 2, Instructions::beqRelative));
+
+        // CMP
+        register(new Opcode(0xc9, "CMP", AddressingMode.Immediate, 2, Instructions::cmpImmediate));
+        register(new Opcode(0xc5, "CMP", AddressingMode.ZeroPage, 3, Instructions::cmpZeroPage));
+        register(new Opcode(0xd5, "CMP", AddressingMode.ZeroPageX, 4, Instructions::cmpZeroPageX));
+        register(new Opcode(0xcd, "CMP", AddressingMode.Absolute, 4, Instructions::cmpAbsolute));
+        register(new Opcode(0xdd, "CMP", AddressingMode.AbsoluteX, 4, Instructions::cmpAbsoluteX));
+        register(new Opcode(0xd9, "CMP", AddressingMode.AbsoluteY, 4, Instructions::cmpAbsoluteY));
+        register(new Opcode(0xc1, "CMP", AddressingMode.IndirectX, 6, Instructions::cmpIndirectX));
+        register(new Opcode(0xd1, "CMP", AddressingMode.IndirectY, 5, Instructions::cmpIndirectY));
+
+        // CPX, CPY
+        register(new Opcode(0xe0, "CPX", AddressingMode.Immediate, 2, Instructions::cpxImmediate));
+        register(new Opcode(0xe4, "CPX", AddressingMode.ZeroPage, 3, Instructions::cpxZeroPage));
+        register(new Opcode(0xec, "CPX", AddressingMode.Absolute, 4, Instructions::cpxAbsolute));
+        register(new Opcode(0xc0, "CPY", AddressingMode.Immediate, 2, Instructions::cpyImmediate));
+        register(new Opcode(0xc4, "CPY", AddressingMode.ZeroPage, 3, Instructions::cpyZeroPage));
+        register(new Opcode(0xcc, "CPY", AddressingMode.Absolute, 4, Instructions::cpyAbsolute));
+
+        // DEC
+        register(new Opcode(0xc6, "DEC", AddressingMode.ZeroPage, 5, Instructions::decZeroPage));
+        register(new Opcode(0xd6, "DEC", AddressingMode.ZeroPageX, 6, Instructions::decZeroPageX));
+        register(new Opcode(0xce, "DEC", AddressingMode.Absolute, 6, Instructions::decAbsolute));
+        register(new Opcode(0xde, "DEC", AddressingMode.AbsoluteX, 7, Instructions::decAbsoluteX));
+
+        // EOR
+        register(new Opcode(0x49, "EOR", AddressingMode.Immediate, 2, Instructions::eorImmediate));
+        register(new Opcode(0x45, "EOR", AddressingMode.ZeroPage, 3, Instructions::eorZeroPage));
+        register(new Opcode(0x55, "EOR", AddressingMode.ZeroPageX, 4, Instructions::eorZeroPageX));
+        register(new Opcode(0x4d, "EOR", AddressingMode.Absolute, 4, Instructions::eorAbsolute));
+        register(new Opcode(0x5d, "EOR", AddressingMode.AbsoluteX, 4, Instructions::eorAbsoluteX));
+        register(new Opcode(0x59, "EOR", AddressingMode.AbsoluteY, 4, Instructions::eorAbsoluteY));
+        register(new Opcode(0x41, "EOR", AddressingMode.IndirectX, 6, Instructions::eorIndirectX));
+        register(new Opcode(0x51, "EOR", AddressingMode.IndirectY, 5, Instructions::eorIndirectY));
+
+        // Flag instructions
+        register(new Opcode(0x18, "CLC", AddressingMode.Implied, 2, Instructions::clcImplied));
+        register(new Opcode(0x38, "SEC", AddressingMode.Implied, 2, Instructions::secImplied));
+        register(new Opcode(0x58, "CLI", AddressingMode.Implied, 2, Instructions::cliImplied));
+        register(new Opcode(0x78, "SEI", AddressingMode.Implied, 2, Instructions::seiImplied));
+        register(new Opcode(0xb8, "CLV", AddressingMode.Implied, 2, Instructions::clvImplied));
+        register(new Opcode(0xd8, "CLD", AddressingMode.Implied, 2, Instructions::cldImplied));
+        register(new Opcode(0xf8, "SED", AddressingMode.Implied, 2, Instructions::sedImplied));
+
+        // INC
+        register(new Opcode(0xe6, "INC", AddressingMode.ZeroPage, 5, Instructions::incZeroPage));
+        register(new Opcode(0xf6, "INC", AddressingMode.ZeroPageX, 6, Instructions::incZeroPageX));
+        register(new Opcode(0xee, "INC", AddressingMode.Absolute, 6, Instructions::incAbsolute));
+        register(new Opcode(0xfe, "INC", AddressingMode.AbsoluteX, 7, Instructions::incAbsoluteX));
+
+        // JMP, JSR
+        register(new Opcode(0x4c, "JMP", AddressingMode.Absolute, 3, Instructions::jmpAbsolute));
+        register(new Opcode(0x6c, "JMP", AddressingMode.Indirect, 5, Instructions::jmpIndirect));
+        register(new Opcode(0x20, "JSR", AddressingMode.Absolute, 6, Instructions::jsrAbsolute));
+
+        // LDA
+        register(new Opcode(0xa9, "LDA", AddressingMode.Immediate, 2, Instructions::ldaImmediate));
+        register(new Opcode(0xa5, "LDA", AddressingMode.ZeroPage, 3, Instructions::ldaZeroPage));
+        register(new Opcode(0xb5, "LDA", AddressingMode.ZeroPageX, 4, Instructions::ldaZeroPageX));
+        register(new Opcode(0xad, "LDA", AddressingMode.Absolute, 4, Instructions::ldaAbsolute));
+        register(new Opcode(0xbd, "LDA", AddressingMode.AbsoluteX, 4, Instructions::ldaAbsoluteX));
+        register(new Opcode(0xb9, "LDA", AddressingMode.AbsoluteY, 4, Instructions::ldaAbsoluteY));
+        register(new Opcode(0xa1, "LDA", AddressingMode.IndirectX, 6, Instructions::ldaIndirectX));
+        register(new Opcode(0xb1, "LDA", AddressingMode.IndirectY, 5, Instructions::ldaIndirectY));
+
+        // LDX
+        register(new Opcode(0xa2, "LDX", AddressingMode.Immediate, 2, Instructions::ldxImmediate));
+        register(new Opcode(0xa6, "LDX", AddressingMode.ZeroPage, 3, Instructions::ldxZeroPage));
+        register(new Opcode(0xb6, "LDX", AddressingMode.ZeroPageY, 4, Instructions::ldxZeroPageY));
+        register(new Opcode(0xae, "LDX", AddressingMode.Absolute, 4, Instructions::ldxAbsolute));
+        register(new Opcode(0xbe, "LDX", AddressingMode.AbsoluteY, 4, Instructions::ldxAbsoluteY));
+
+        // LDY
+        register(new Opcode(0xa0, "LDY", AddressingMode.Immediate, 2, Instructions::ldyImmediate));
+        register(new Opcode(0xa4, "LDY", AddressingMode.ZeroPage, 3, Instructions::ldyZeroPage));
+        register(new Opcode(0xb4, "LDY", AddressingMode.ZeroPageX, 4, Instructions::ldyZeroPageX));
+        register(new Opcode(0xac, "LDY", AddressingMode.Absolute, 4, Instructions::ldyAbsolute));
+        register(new Opcode(0xbc, "LDY", AddressingMode.AbsoluteX, 4, Instructions::ldyAbsoluteX));
+
+        // LSR
+        register(new Opcode(0x4a, "LSR", AddressingMode.Implied, 2, Instructions::lsrImplied));
+        register(new Opcode(0x46, "LSR", AddressingMode.ZeroPage, 5, Instructions::lsrZeroPage));
+        register(new Opcode(0x56, "LSR", AddressingMode.ZeroPageX, 6, Instructions::lsrZeroPageX));
+        register(new Opcode(0x4e, "LSR", AddressingMode.Absolute, 6, Instructions::lsrAbsolute));
+        register(new Opcode(0x5e, "LSR", AddressingMode.AbsoluteX, 7, Instructions::lsrAbsoluteX));
+
+        // ORA
+        register(new Opcode(0x09, "ORA", AddressingMode.Immediate, 2, Instructions::oraImmediate));
+        register(new Opcode(0x05, "ORA", AddressingMode.ZeroPage, 3, Instructions::oraZeroPage));
+        register(new Opcode(0x15, "ORA", AddressingMode.ZeroPageX, 4, Instructions::oraZeroPageX));
+        register(new Opcode(0x0d, "ORA", AddressingMode.Absolute, 4, Instructions::oraAbsolute));
+        register(new Opcode(0x1d, "ORA", AddressingMode.AbsoluteX, 4, Instructions::oraAbsoluteX));
+        register(new Opcode(0x19, "ORA", AddressingMode.AbsoluteY, 4, Instructions::oraAbsoluteY));
+        register(new Opcode(0x01, "ORA", AddressingMode.IndirectX, 6, Instructions::oraIndirectX));
+        register(new Opcode(0x11, "ORA", AddressingMode.IndirectY, 5, Instructions::oraIndirectY));
+
+        // Register instructions
+        register(new Opcode(0xaa, "TAX", AddressingMode.Implied, 2, Instructions::taxImplied));
+        register(new Opcode(0x8a, "TXA", AddressingMode.Implied, 2, Instructions::txaImplied));
+        register(new Opcode(0xca, "DEX", AddressingMode.Implied, 2, Instructions::dexImplied));
+        register(new Opcode(0xe8, "INX", AddressingMode.Implied, 2, Instructions::inxImplied));
+        register(new Opcode(0xa8, "TAY", AddressingMode.Implied, 2, Instructions::tayImplied));
+        register(new Opcode(0x98, "TYA", AddressingMode.Implied, 2, Instructions::tyaImplied));
+        register(new Opcode(0x88, "DEY", AddressingMode.Implied, 2, Instructions::deyImplied));
+        register(new Opcode(0xc8, "INY", AddressingMode.Implied, 2, Instructions::inyImplied));
+
+        // ROR
+        register(new Opcode(0x6a, "ROR", AddressingMode.Implied, 2, Instructions::rorImplied));
+        register(new Opcode(0x66, "ROR", AddressingMode.ZeroPage, 5, Instructions::rorZeroPage));
+        register(new Opcode(0x76, "ROR", AddressingMode.ZeroPageX, 6, Instructions::rorZeroPageX));
+        register(new Opcode(0x6e, "ROR", AddressingMode.Absolute, 6, Instructions::rorAbsolute));
+        register(new Opcode(0x7e, "ROR", AddressingMode.AbsoluteX, 7, Instructions::rorAbsoluteX));
+
+        // ROL
+        register(new Opcode(0x2a, "ROL", AddressingMode.Implied, 2, Instructions::rolImplied));
+        register(new Opcode(0x26, "ROL", AddressingMode.ZeroPage, 5, Instructions::rolZeroPage));
+        register(new Opcode(0x36, "ROL", AddressingMode.ZeroPageX, 6, Instructions::rolZeroPageX));
+        register(new Opcode(0x2e, "ROL", AddressingMode.Absolute, 6, Instructions::rolAbsolute));
+        register(new Opcode(0x3e, "ROL", AddressingMode.AbsoluteX, 7, Instructions::rolAbsoluteX));
+
+        // RTI, RTS
+        register(new Opcode(0x40, "RTI", AddressingMode.Implied, 6, Instructions::rtiImplied));
+        register(new Opcode(0x60, "RTS", AddressingMode.Implied, 6, Instructions::rtsImplied));
+
+        // SBC
+        register(new Opcode(0xe9, "SBC", AddressingMode.Immediate, 2, Instructions::sbcImmediate));
+        register(new Opcode(0xe5, "SBC", AddressingMode.ZeroPage, 3, Instructions::sbcZeroPage));
+        register(new Opcode(0xf5, "SBC", AddressingMode.ZeroPageX, 4, Instructions::sbcZeroPageX));
+        register(new Opcode(0xed, "SBC", AddressingMode.Absolute, 4, Instructions::sbcAbsolute));
+        register(new Opcode(0xfd, "SBC", AddressingMode.AbsoluteX, 4, Instructions::sbcAbsoluteX));
+        register(new Opcode(0xf9, "SBC", AddressingMode.AbsoluteY, 4, Instructions::sbcAbsoluteY));
+        register(new Opcode(0xe1, "SBC", AddressingMode.IndirectX, 6, Instructions::sbcIndirectX));
+        register(new Opcode(0xf1, "SBC", AddressingMode.IndirectY, 5, Instructions::sbcIndirectY));
+
+        // STA
+        register(new Opcode(0x85, "STA", AddressingMode.ZeroPage, 3, Instructions::staZeroPage));
+        register(new Opcode(0x95, "STA", AddressingMode.ZeroPageX, 4, Instructions::staZeroPageX));
+        register(new Opcode(0x8d, "STA", AddressingMode.Absolute, 4, Instructions::staAbsolute));
+        register(new Opcode(0x9d, "STA", AddressingMode.AbsoluteX, 5, Instructions::staAbsoluteX));
+        register(new Opcode(0x99, "STA", AddressingMode.AbsoluteY, 5, Instructions::staAbsoluteY));
+        register(new Opcode(0x81, "STA", AddressingMode.IndirectX, 6, Instructions::staIndirectX));
+        register(new Opcode(0x91, "STA", AddressingMode.IndirectY, 6, Instructions::staIndirectY));
+
+        // STX, STY
+        register(new Opcode(0x86, "STX", AddressingMode.ZeroPage, 3, Instructions::stxZeroPage));
+        register(new Opcode(0x96, "STX", AddressingMode.ZeroPageY, 4, Instructions::stxZeroPageY));
+        register(new Opcode(0x8e, "STX", AddressingMode.Absolute, 4, Instructions::stxAbsolute));
+        register(new Opcode(0x84, "STY", AddressingMode.ZeroPage, 3, Instructions::styZeroPage));
+        register(new Opcode(0x94, "STY", AddressingMode.ZeroPageX, 4, Instructions::styZeroPageX));
+        register(new Opcode(0x8c, "STY", AddressingMode.Absolute, 4, Instructions::styAbsolute));
+
+        // Stack instructions
+        register(new Opcode(0x9a, "TXS", AddressingMode.Implied, 2, Instructions::txsImplied));
+        register(new Opcode(0xba, "TSX", AddressingMode.Implied, 2, Instructions::tsxImplied));
+        register(new Opcode(0x48, "PHA", AddressingMode.Implied, 3, Instructions::phaImplied));
+        register(new Opcode(0x68, "PLA", AddressingMode.Implied, 4, Instructions::plaImplied));
+        register(new Opcode(0x08, "PHP", AddressingMode.Implied, 3, Instructions::phpImplied));
+        register(new Opcode(0x28, "PLP", AddressingMode.Implied, 4, Instructions::plpImplied));
+
+        // Unofficial NOPs
+        register(new Opcode(0x80, "NOP", AddressingMode.Immediate, 2, Instructions::nopImmediate));
+        register(new Opcode(0x82, "NOP", AddressingMode.Immediate, 2, Instructions::nopImmediate));
+        register(new Opcode(0x89, "NOP", AddressingMode.Immediate, 2, Instructions::nopImmediate));
+        register(new Opcode(0xc2, "NOP", AddressingMode.Immediate, 2, Instructions::nopImmediate));
+        register(new Opcode(0xe2, "NOP", AddressingMode.Immediate, 2, Instructions::nopImmediate));
+        register(new Opcode(0x04, "NOP", AddressingMode.ZeroPage, 3, Instructions::nopZeroPage));
+        register(new Opcode(0x44, "NOP", AddressingMode.ZeroPage, 3, Instructions::nopZeroPage));
+        register(new Opcode(0x64, "NOP", AddressingMode.ZeroPage, 3, Instructions::nopZeroPage));
+        register(new Opcode(0x14, "NOP", AddressingMode.ZeroPageX, 4, Instructions::nopZeroPageX));
+        register(new Opcode(0x34, "NOP", AddressingMode.ZeroPageX, 4, Instructions::nopZeroPageX));
+        register(new Opcode(0x54, "NOP", AddressingMode.ZeroPageX, 4, Instructions::nopZeroPageX));
+        register(new Opcode(0x74, "NOP", AddressingMode.ZeroPageX, 4, Instructions::nopZeroPageX));
+        register(new Opcode(0xd4, "NOP", AddressingMode.ZeroPageX, 4, Instructions::nopZeroPageX));
+        register(new Opcode(0xf4, "NOP", AddressingMode.ZeroPageX, 4, Instructions::nopZeroPageX));
+        register(new Opcode(0x0c, "NOP", AddressingMode.Absolute, 4, Instructions::nopAbsolute));
+        register(new Opcode(0x1c, "NOP", AddressingMode.AbsoluteX, 4, Instructions::nopAbsoluteX));
+        register(new Opcode(0x3c, "NOP", AddressingMode.AbsoluteX, 4, Instructions::nopAbsoluteX));
+        register(new Opcode(0x5c, "NOP", AddressingMode.AbsoluteX, 4, Instructions::nopAbsoluteX));
+        register(new Opcode(0x7c, "NOP", AddressingMode.AbsoluteX, 4, Instructions::nopAbsoluteX));
+        register(new Opcode(0xdc, "NOP", AddressingMode.AbsoluteX, 4, Instructions::nopAbsoluteX));
+        register(new Opcode(0xfc, "NOP", AddressingMode.AbsoluteX, 4, Instructions::nopAbsoluteX));
+
+        // LAX
+        register(new Opcode(0xa7, "LAX", AddressingMode.ZeroPage, 3, Instructions::laxZeroPage));
+        register(new Opcode(0xb7, "LAX", AddressingMode.ZeroPageY, 4, Instructions::laxZeroPageY));
+        register(new Opcode(0xaf, "LAX", AddressingMode.Absolute, 4, Instructions::laxAbsolute));
+        register(new Opcode(0xbf, "LAX", AddressingMode.AbsoluteY, 4, Instructions::laxAbsoluteY));
+        register(new Opcode(0xa3, "LAX", AddressingMode.IndirectX, 6, Instructions::laxIndirectX));
+        register(new Opcode(0xb3, "LAX", AddressingMode.IndirectY, 5, Instructions::laxIndirectY));
+
+        // SAX
+        register(new Opcode(0x87, "SAX", AddressingMode.ZeroPage, 3, Instructions::saxZeroPage));
+        register(new Opcode(0x97, "SAX", AddressingMode.ZeroPageY, 4, Instructions::saxZeroPageY));
+        register(new Opcode(0x8f, "SAX", AddressingMode.Absolute, 4, Instructions::saxAbsolute));
+        register(new Opcode(0x83, "SAX", AddressingMode.IndirectX, 6, Instructions::saxIndirectX));
+
+        // Immediate-mode combined operations
+        register(new Opcode(0x4b, "ALR", AddressingMode.Immediate, 2, Instructions::alrImmediate));
+        register(new Opcode(0x0b, "ANC", AddressingMode.Immediate, 2, Instructions::ancImmediate));
+        register(new Opcode(0x6b, "ARR", AddressingMode.Immediate, 2, Instructions::arrImmediate));
+        register(new Opcode(0xcb, "AXS", AddressingMode.Immediate, 2, Instructions::axsImmediate));
+
+        // DCP
+        register(new Opcode(0xc7, "DCP", AddressingMode.ZeroPage, 5, Instructions::dcpZeroPage));
+        register(new Opcode(0xd7, "DCP", AddressingMode.ZeroPageX, 6, Instructions::dcpZeroPageX));
+        register(new Opcode(0xcf, "DCP", AddressingMode.Absolute, 6, Instructions::dcpAbsolute));
+        register(new Opcode(0xdf, "DCP", AddressingMode.AbsoluteX, 7, Instructions::dcpAbsoluteX));
+        register(new Opcode(0xdb, "DCP", AddressingMode.AbsoluteY, 7, Instructions::dcpAbsoluteY));
+        register(new Opcode(0xc3, "DCP", AddressingMode.IndirectX, 8, Instructions::dcpIndirectX));
+        register(new Opcode(0xd3, "DCP", AddressingMode.IndirectY, 8, Instructions::dcpIndirectY));
+
+        // ISC
+        register(new Opcode(0xe7, "ISC", AddressingMode.ZeroPage, 5, Instructions::iscZeroPage));
+        register(new Opcode(0xf7, "ISC", AddressingMode.ZeroPageX, 6, Instructions::iscZeroPageX));
+        register(new Opcode(0xef, "ISC", AddressingMode.Absolute, 6, Instructions::iscAbsolute));
+        register(new Opcode(0xff, "ISC", AddressingMode.AbsoluteX, 7, Instructions::iscAbsoluteX));
+        register(new Opcode(0xfb, "ISC", AddressingMode.AbsoluteY, 7, Instructions::iscAbsoluteY));
+        register(new Opcode(0xe3, "ISC", AddressingMode.IndirectX, 8, Instructions::iscIndirectX));
+        register(new Opcode(0xf3, "ISC", AddressingMode.IndirectY, 8, Instructions::iscIndirectY));
+
+        // RLA
+        register(new Opcode(0x27, "RLA", AddressingMode.ZeroPage, 5, Instructions::rlaZeroPage));
+        register(new Opcode(0x37, "RLA", AddressingMode.ZeroPageX, 6, Instructions::rlaZeroPageX));
+        register(new Opcode(0x2f, "RLA", AddressingMode.Absolute, 6, Instructions::rlaAbsolute));
+        register(new Opcode(0x3f, "RLA", AddressingMode.AbsoluteX, 7, Instructions::rlaAbsoluteX));
+        register(new Opcode(0x3b, "RLA", AddressingMode.AbsoluteY, 7, Instructions::rlaAbsoluteY));
+        register(new Opcode(0x23, "RLA", AddressingMode.IndirectX, 8, Instructions::rlaIndirectX));
+        register(new Opcode(0x33, "RLA", AddressingMode.IndirectY, 8, Instructions::rlaIndirectY));
+
+        // RRA
+        register(new Opcode(0x67, "RRA", AddressingMode.ZeroPage, 5, Instructions::rraZeroPage));
+        register(new Opcode(0x77, "RRA", AddressingMode.ZeroPageX, 6, Instructions::rraZeroPageX));
+        register(new Opcode(0x6f, "RRA", AddressingMode.Absolute, 6, Instructions::rraAbsolute));
+        register(new Opcode(0x7f, "RRA", AddressingMode.AbsoluteX, 7, Instructions::rraAbsoluteX));
+        register(new Opcode(0x7b, "RRA", AddressingMode.AbsoluteY, 7, Instructions::rraAbsoluteY));
+        register(new Opcode(0x63, "RRA", AddressingMode.IndirectX, 8, Instructions::rraIndirectX));
+        register(new Opcode(0x73, "RRA", AddressingMode.IndirectY, 8, Instructions::rraIndirectY));
+
+        // SLO
+        register(new Opcode(0x07, "SLO", AddressingMode.ZeroPage, 5, Instructions::sloZeroPage));
+        register(new Opcode(0x17, "SLO", AddressingMode.ZeroPageX, 6, Instructions::sloZeroPageX));
+        register(new Opcode(0x0f, "SLO", AddressingMode.Absolute, 6, Instructions::sloAbsolute));
+        register(new Opcode(0x1f, "SLO", AddressingMode.AbsoluteX, 7, Instructions::sloAbsoluteX));
+        register(new Opcode(0x1b, "SLO", AddressingMode.AbsoluteY, 7, Instructions::sloAbsoluteY));
+        register(new Opcode(0x03, "SLO", AddressingMode.IndirectX, 8, Instructions::sloIndirectX));
+        register(new Opcode(0x13, "SLO", AddressingMode.IndirectY, 8, Instructions::sloIndirectY));
+
+        // SRE
+        register(new Opcode(0x47, "SRE", AddressingMode.ZeroPage, 5, Instructions::sreZeroPage));
+        register(new Opcode(0x57, "SRE", AddressingMode.ZeroPageX, 6, Instructions::sreZeroPageX));
+        register(new Opcode(0x4f, "SRE", AddressingMode.Absolute, 6, Instructions::sreAbsolute));
+        register(new Opcode(0x5f, "SRE", AddressingMode.AbsoluteX, 7, Instructions::sreAbsoluteX));
+        register(new Opcode(0x5b, "SRE", AddressingMode.AbsoluteY, 7, Instructions::sreAbsoluteY));
+        register(new Opcode(0x43, "SRE", AddressingMode.IndirectX, 8, Instructions::sreIndirectX));
+        register(new Opcode(0x53, "SRE", AddressingMode.IndirectY, 8, Instructions::sreIndirectY));
+    }
+
+    private InstructionTable() {
+        // the table is static
+    }
+}
@@ -0,0 +1,1362 @@
+package emu;
+
+final class Instructions {
+    /*
+
+    The implementation of every opcode the CPU supports
+
+    Each method implements one opcode (or a group of opcodes with identical semantics, like the unofficial NOPs)
+    Methods are named <mnemonic><addressing mode> so that a method can always be found from its table entry
+    Addressing mode resolution is handled by the CPU; the methods here only combine a mode with an operation
+
+    See InstructionTable for the mapping from opcodes to these methods
+
+     */
+
+    /*
+
+    BRK and NOP
+
+     */
+
+    static void brkImplied(CPU cpu, int operand) {
+        cpu.signal(Signal.BRK);
+    }
+
+    // NOP -- 0xea is official; the others are not
+    static void nopImplied(CPU cpu, int operand) {
+        // do nothing
+    }
+
+    /*
+
+    ADC
+    Add with Carry
+
+    Affects flags N, Z, C, V
+    A + M + C   ->  A, C
+
+    */
+
+    static void adcImmediate(CPU cpu, int operand) {
+        cpu.add(operand);
+    }
+
+    static void adcZeroPage(CPU cpu, int operand) {
+        cpu.add(cpu.read(operand));
+    }
+
+    static void adcZeroPageX(CPU cpu, int operand) {
+        cpu.add(cpu.read(cpu.zeroPageX(operand)));
+    }
+
+    static void adcAbsolute(CPU cpu, int operand) {
+        cpu.add(cpu.read(operand));
+    }
+
+    static void adcAbsoluteX(CPU cpu, int operand) {
+        cpu.add(cpu.read(cpu.absoluteX(operand)));
+    }
+
+    static void adcAbsoluteY(CPU cpu, int operand) {
+        cpu.add(cpu.read(cpu.absoluteY(operand)));
+    }
+
+    static void adcIndirectX(CPU cpu, int operand) {
+        cpu.add(cpu.read(cpu.indexedIndirect(operand)));
+    }
+
+    static void adcIndirectY(CPU cpu, int operand) {
+        cpu.add(cpu.read(cpu.indirectIndexed(operand)));
+    }
+
+    /*
+
+    AND
+    Bitwise AND with Accumulator
+
+    Affects flags N, Z
+    A & M   ->  A
+
+     */
+
+    static void andImmediate(CPU cpu, int operand) {
+        cpu.and(operand);
+    }
+
+    static void andZeroPage(CPU cpu, int operand) {
+        cpu.and(cpu.read(operand));
+    }
+
+    static void andZeroPageX(CPU cpu, int operand) {
+        cpu.and(cpu.read(cpu.zeroPageX(operand)));
+    }
+
+    static void andAbsolute(CPU cpu, int operand) {
+        cpu.and(cpu.read(operand));
+    }
+
+    static void andAbsoluteX(CPU cpu, int operand) {
+        cpu.and(cpu.read(cpu.absoluteX(operand)));
+    }
+
+    static void andAbsoluteY(CPU cpu, int operand) {
+        cpu.and(cpu.read(cpu.absoluteY(operand)));
+    }
+
+    static void andIndirectX(CPU cpu, int operand) {
+        cpu.and(cpu.read(cpu.indexedIndirect(operand)));
+    }
+
+    static void andIndirectY(CPU cpu, int operand) {
+        cpu.and(cpu.read(cpu.indirectIndexed(operand)));
+    }
+
+    /*
+
+    ASL
+    Arithmetic Shift Left
+
+    Shifts all bits left, moving 0 into bit 0 and bit 7 into the carry
+    Affects flags N, Z, C
+
+     */
+
+    static void aslImplied(CPU cpu, int operand) {
+        // ASL A
+        boolean b7 = (((cpu.a & 0xFF) >> 7) & 1) > 0;
+
+        // perform the bitshift
+        cpu.a <<= 1;
+
+        // update the flags
+        if (b7) cpu.setFlag(Status.CARRY);
+        cpu.updateNZFlags(cpu.a);
+    }
+
+    static void aslZeroPage(CPU cpu, int operand) {
+        cpu.shiftLeft(operand);
+    }
+
+    static void aslZeroPageX(CPU cpu, int operand) {
+        cpu.shiftLeft(cpu.zeroPageX(operand));
+    }
+
+    static void aslAbsolute(CPU cpu, int operand) {
+        cpu.shiftLeft(operand);
+    }
+
+    static void aslAbsoluteX(CPU cpu, int operand) {
+        cpu.shiftLeft(cpu.absoluteX(operand));
+    }
+
+    /*
+
+    BIT
+    Test bits. This sets the Z flag as if the value at the address were ANDed with A
+    The N and V flags are set to match bits 7 and 6, respectively, of the value stored at the tested address
+    However, it does not modify the A register
+
+    Affects flags N, V, Z
+
+     */
+
+    static void bitZeroPage(CPU cpu, int operand) {
+        bit(cpu, operand);
+    }
+
+    static void bitAbsolute(CPU cpu, int operand) {
+        bit(cpu, operand);
+    }
+
+    private static void bit(CPU cpu, int address) {
+        // get the value, update Z flag
+        if (((cpu.a & 0xFF) & cpu.read(address)) == 0) {
+            cpu.setFlag(Status.ZERO);
+        } else {
+            cpu.clearFlag(Status.ZERO);
+        }
+
+        // update the N and V flags
+        // N should be equal to bit 7
+        if ((address & 0b10000000) != 0)
+            cpu.setFlag(Status.NEGATIVE);
+        else
+            cpu.clearFlag(Status.NEGATIVE);
+
+        // V should be equal to bit 6
+        if ((address & 0b01000000) != 0)
+            cpu.setFlag(Status.OVERFLOW);
+        else
+            cpu.clearFlag(Status.OVERFLOW);
+    }
+
+    /*
+
+    Branch Instructions
+        BPL -   Branch on Plus (N flag clear)
+        BMI -   Branch on Minus (N flag set)
+        BVC -   Branch on Overflow clear
+        BVS -   Branch on Overflow set
+        BCC -   Branch on Carry clear
+        BCS -   Branch on Carry set
+        BNE -   Branch on not equal (Z flag clear)
+        BEQ -   Branch on equal (Z flag set)
+
+    All branch instructions use relative addressing mode
+
+     */
+
+    static void bplRelative(CPU cpu, int operand) {
+        cpu.branchIfClear(Status.NEGATIVE, operand);
+    }
+
+    static void bmiRelative(CPU cpu, int operand) {
+        cpu.branchIfSet(Status.NEGATIVE, operand);
+    }
+
+    static void bvcRelative(CPU cpu, int operand) {
+        cpu.branchIfClear(Status.OVERFLOW, operand);
+    }
+
+    static void bvsRelative(CPU cpu, int operand) {
+        cpu.branchIfSet(Status.OVERFLOW, operand);
+    }
+
+    static void bccRelative(CPU cpu, int operand) {
+        cpu.branchIfClear(Status.CARRY, operand);
+    }
+
+    static void bcsRelative(CPU cpu, int operand) {
+        cpu.branchIfSet(Status.CARRY, operand);
+    }
+
+    static void bneRelative(CPU cpu, int operand) {
+        cpu.branchIfClear(Status.ZERO, operand);
+    }
+
+    static void beqRelative(CPU cpu, int operand) {
+        cpu.branchIfSet(Status.ZERO, operand);
+    }
+
+    /*
+
+    CMP
+    Compare Accumulator
+
+    Compares the accumulator to some value. It sets flags as if a subtraction had been carried out.
+    If:
+        A != Val    ->  Clear C, Z; set N
+        A == Val    ->  Set Z flag
+        A >= Val    ->  Set Carry
+        A >= $80    ->  Set N flag
+    Affects N, Z, C flags
+
+     */
+
+    static void cmpImmediate(CPU cpu, int operand) {
+        cpu.compare(cpu.a, (short) operand);
+    }
+
+    static void cmpZeroPage(CPU cpu, int operand) {
+        cpu.compare(cpu.a, cpu.read(operand));
+    }
+
+    static void cmpZeroPageX(CPU cpu, int operand) {
+        cpu.compare(cpu.a, cpu.read(cpu.zeroPageX(operand)));
+    }
+
+    static void cmpAbsolute(CPU cpu, int operand) {
+        cpu.compare(cpu.a, cpu.read(operand));
+    }
+
+    static void cmpAbsoluteX(CPU cpu, int operand) {
+        cpu.compare(cpu.a, cpu.read(cpu.absoluteX(operand)));
+    }
+
+    static void cmpAbsoluteY(CPU cpu, int operand) {
+        cpu.compare(cpu.a, cpu.read(cpu.absoluteY(operand)));
+    }
+
+    static void cmpIndirectX(CPU cpu, int operand) {
+        cpu.compare(cpu.a, cpu.read(cpu.indexedIndirect(operand)));
+    }
+
+    static void cmpIndirectY(CPU cpu, int operand) {
+        cpu.compare(cpu.a, cpu.read(cpu.indirectIndexed(operand)));
+    }
+
+    /*
+
+    CPX, CPY
+    Compare X, Y Register
+
+    Sets flags identically to the CMP instruction.
+
+     */
+
+    static void cpxImmediate(CPU cpu, int operand) {
+        cpu.compare(cpu.x, (short) operand);
+    }
+
+    static void cpxZeroPage(CPU cpu, int operand) {
+        cpu.compare(cpu.x, cpu.read(operand));
+    }
+
+    static void cpxAbsolute(CPU cpu, int operand) {
+        cpu.compare(cpu.x, cpu.read(operand));
+    }
+
+    static void cpyImmediate(CPU cpu, int operand) {
+        cpu.compare(cpu.y, (short) operand);
+    }
+
+    static void cpyZeroPage(CPU cpu, int operand) {
+        cpu.compare(cpu.y, cpu.read(operand));
+    }
+
+    static void cpyAbsolute(CPU cpu, int operand) {
+        cpu.compare(cpu.y, cpu.read(operand));
+    }
+
+    /*
+
+    DEC
+    Decrement memory
+
+    Affects N and Z flags, depending on whether the result is negative or 0
+
+     */
+
+    static void decZeroPage(CPU cpu, int operand) {
+        cpu.decrement(operand);
+    }
+
+    static void decZeroPageX(CPU cpu, int operand) {
+        cpu.decrement(cpu.zeroPageX(operand));
+    }
+
+    static void decAbsolute(CPU cpu, int operand) {
+        cpu.decrement(operand);
+    }
+
+    static void decAbsoluteX(CPU cpu, int operand) {
+        cpu.decrement(cpu.absoluteX(operand));
+    }
+
+    /*
+
+    EOR
+    Bitwise XOR
+
+    Performs XOR on accumulator and another value, storing the result in the accumulator
+
+    Affects N and Z flags, depending on the value of the result
+
+     */
+
+    static void eorImmediate(CPU cpu, int operand) {
+        cpu.xor(operand);
+    }
+
+    static void eorZeroPage(CPU cpu, int operand) {
+        cpu.xor(cpu.read(operand));
+    }
+
+    static void eorZeroPageX(CPU cpu, int operand) {
+        cpu.xor(cpu.read(cpu.zeroPageX(operand)));
+    }
+
+    static void eorAbsolute(CPU cpu, int operand) {
+        cpu.xor(cpu.read(operand));
+    }
+
+    static void eorAbsoluteX(CPU cpu, int operand) {
+        cpu.xor(cpu.read(cpu.absoluteX(operand)));
+    }
+
+    static void eorAbsoluteY(CPU cpu, int operand) {
+        cpu.xor(cpu.read(cpu.absoluteY(operand)));
+    }
+
+    static void eorIndirectX(CPU cpu, int operand) {
+        cpu.xor(cpu.read(cpu.indexedIndirect(operand)));
+    }
+
+    static void eorIndirectY(CPU cpu, int operand) {
+        cpu.xor(cpu.read(cpu.indirectIndexed(operand)));
+    }
+
+    /*
+
+    Flag / Status Instructions
+    These affect flags where noted
+
+    NB: The CLD and SED instructions are enabled, but the decimal flag is not implemented on this processor
+
+     */
+
+    static void clcImplied(CPU cpu, int operand) {
+        cpu.clearFlag(Status.CARRY);
+    }
+
+    static void secImplied(CPU cpu, int operand) {
+        cpu.setFlag(Status.CARRY);
+    }
+
+    static void cliImplied(CPU cpu, int operand) {
+        cpu.clearFlag(Status.INTERRUPT_DISABLE);
+    }
+
+    static void seiImplied(CPU cpu, int operand) {
+        cpu.setFlag(Status.INTERRUPT_DISABLE);
+    }
+
+    static void clvImplied(CPU cpu, int operand) {
+        cpu.clearFlag(Status.OVERFLOW);
+    }
+
+    static void cldImplied(CPU cpu, int operand) {
+        cpu.clearFlag(Status.DECIMAL);
+    }
+
+    static void sedImplied(CPU cpu, int operand) {
+        cpu.setFlag(Status.DECIMAL);
+    }
+
+    /*
+
+    INC
+    Increment memory
+
+    Affects N and Z flags, depending on the result
+
+     */
+
+    static void incZeroPage(CPU cpu, int operand) {
+        cpu.increment(operand);
+    }
+
+    static void incZeroPageX(CPU cpu, int operand) {
+        cpu.increment(cpu.zeroPageX(operand));
+    }
+
+    static void incAbsolute(CPU cpu, int operand) {
+        cpu.increment(operand);
+    }
+
+    static void incAbsoluteX(CPU cpu, int operand) {
+        cpu.increment(cpu.absoluteX(operand));
+    }
+
+    /*
+
+    JMP
+    Jump to memory address
+
+    Transfers program execution to the following address OR the location contained within the following address
+    Note: Indirect jump should never use a vector beginning on the last byte of a page
+    For example:
+        jmp ($30ff)
+    will not fetch the address from $3100, $30ff, but rather from $3000, $30ff
+
+    Affects no flags
+
+     */
+
+    static void jmpAbsolute(CPU cpu, int operand) {
+        cpu.pc = operand;
+    }
+
+    static void jmpIndirect(CPU cpu, int operand) {
+        int ptrLow = operand & 0xFF;
+        int ptrHigh = operand & 0xFF00;
+
+        int addressLow = cpu.read(ptrHigh | ptrLow);
+        int addressHigh = cpu.read(ptrHigh | ((ptrLow + 1) & 0xFF));
+
+        cpu.pc = ((addressHigh & 0xFF) << 8) | (addressLow & 0xFF);
+    }
+
+    /*
+
+    JSR
+    Jump to Subroutine
+
+    Pushes (return address - 1) onto the stack (push high, then push low) and jumps to the address given
+
+     */
+
+    static void jsrAbsolute(CPU cpu, int operand) {
+        // the PC already points to the next instruction
+        int returnAddress = (cpu.pc - 1) & 0xFFFF;
+        byte returnLow = (byte) (returnAddress & 0xFF);
+        byte returnHigh = (byte) ((returnAddress >> 8) & 0xFF);
+
+        // write the return address to the stack
+        cpu.pushToStack(returnHigh);
+        cpu.pushToStack(returnLow);
+
+        // transfer control to the operand
+        cpu.pc = operand;
+    }
+
+    /*
+
+    LDA, LDX, LDY
+    Load Register
+
+    Loads a register with some value.
+    Affects flags N, Z
+
+     */
+
+    static void ldaImmediate(CPU cpu, int operand) {
+        cpu.a = (byte) operand;
+        cpu.updateNZFlags(cpu.a);
+    }
+
+    static void ldaZeroPage(CPU cpu, int operand) {
+        cpu.a = cpu.read(operand);
+        cpu.updateNZFlags(cpu.a);
+    }
+
+    static void ldaZeroPageX(CPU cpu, int operand) {
+        cpu.a = cpu.read(cpu.zeroPageX(operand));
+        cpu.updateNZFlags(cpu.a);
+    }
+
+    static void ldaAbsolute(CPU cpu, int operand) {
+        cpu.a = cpu.read(operand);
+        cpu.updateNZFlags(cpu.a);
+    }
+
+    static void ldaAbsoluteX(CPU cpu, int operand) {
+        cpu.a = cpu.read(cpu.absoluteX(operand));
+        cpu.updateNZFlags(cpu.a);
+    }
+
+    static void ldaAbsoluteY(CPU cpu, int operand) {
+        cpu.a = cpu.read(cpu.absoluteY(operand));
+        cpu.updateNZFlags(cpu.a);
+    }
+
+    static void ldaIndirectX(CPU cpu, int operand) {
+        cpu.a = cpu.read(cpu.indexedIndirect(operand));
+        cpu.updateNZFlags(cpu.a);
+    }
+
+    static void ldaIndirectY(CPU cpu, int operand) {
+        cpu.a = cpu.read(cpu.indirectIndexed(operand));
+        cpu.updateNZFlags(cpu.a);
+    }
+
+    static void ldxImmediate(CPU cpu, int operand) {
+        cpu.x = (byte) operand;
+        cpu.updateNZFlags(cpu.x);
+    }
+
+    static void ldxZeroPage(CPU cpu, int operand) {
+        cpu.x = cpu.read(operand);
+        cpu.updateNZFlags(cpu.x);
+    }
+
+    static void ldxZeroPageY(CPU cpu, int operand) {
+        cpu.x = cpu.read(cpu.zeroPageY(operand));
+        cpu.updateNZFlags(cpu.x);
+    }
+
+    static void ldxAbsolute(CPU cpu, int operand) {
+        cpu.x = cpu.read(operand);
+        cpu.updateNZFlags(cpu.x);
+    }
+
+    static void ldxAbsoluteY(CPU cpu, int operand) {
+        cpu.x = cpu.read(cpu.absoluteY(operand));
+        cpu.updateNZFlags(cpu.x);
+    }
+
+    static void ldyImmediate(CPU cpu, int operand) {
+        cpu.y = (byte) operand;
+        cpu.updateNZFlags(cpu.y);
+    }
+
+    static void ldyZeroPage(CPU cpu, int operand) {
+        cpu.y = cpu.read(operand);
+        cpu.updateNZFlags(cpu.y);
+    }
+
+    static void ldyZeroPageX(CPU cpu, int operand) {
+        cpu.y = cpu.read(cpu.zeroPageX(operand));
+        cpu.updateNZFlags(cpu.y);
+    }
+
+    static void ldyAbsolute(CPU cpu, int operand) {
+        cpu.y = cpu.read(operand);
+        cpu.updateNZFlags(cpu.y);
+    }
+
+    static void ldyAbsoluteX(CPU cpu, int operand) {
+        cpu.y = cpu.read(cpu.absoluteX(operand));
+        cpu.updateNZFlags(cpu.y);
+    }
+
+    /*
+
+    LSR
+    Logical shift right
+
+    Shifts some memory (or A) to the right one position.
+    0 is shifted into bit 7 and the original bit zero is shifted in to the carry flag
+    Since 0 is shifted into bit 7, this will always clear the N flag
+
+    Affects flags N, Z, C
+
+     */
+
+    static void lsrImplied(CPU cpu, int operand) {
+        cpu.shiftRight();
+    }
+
+    static void lsrZeroPage(CPU cpu, int operand) {
+        cpu.shiftRight(operand);
+    }
+
+    static void lsrZeroPageX(CPU cpu, int operand) {
+        cpu.shiftRight(cpu.zeroPageX(operand));
+    }
+
+    static void lsrAbsolute(CPU cpu, int operand) {
+        cpu.shiftRight(operand);
+    }
+
+    static void lsrAbsoluteX(CPU cpu, int operand) {
+        cpu.shiftRight(cpu.absoluteX(operand));
+    }
+
+    /*
+
+    ORA
+    Bitwise OR with Accumulator
+
+    Operates like EOR or AND, performing bit logic with the accumulator and some value.
+
+    Affects flags N, Z based on the result
+
+     */
+
+    static void oraImmediate(CPU cpu, int operand) {
+        cpu.or(operand);
+    }
+
+    static void oraZeroPage(CPU cpu, int operand) {
+        cpu.or(cpu.read(operand));
+    }
+
+    static void oraZeroPageX(CPU cpu, int operand) {
+        cpu.or(cpu.read(cpu.zeroPageX(operand)));
+    }
+
+    static void oraAbsolute(CPU cpu, int operand) {
+        cpu.or(cpu.read(operand));
+    }
+
+    static void oraAbsoluteX(CPU cpu, int operand) {
+        cpu.or(cpu.read(cpu.absoluteX(operand)));
+    }
+
+    static void oraAbsoluteY(CPU cpu, int operand) {
+        cpu.or(cpu.read(cpu.absoluteY(operand)));
+    }
+
+    static void oraIndirectX(CPU cpu, int operand) {
+        cpu.or(cpu.read(cpu.indexedIndirect(operand)));
+    }
+
+    static void oraIndirectY(CPU cpu, int operand) {
+        cpu.or(cpu.read(cpu.indirectIndexed(operand)));
+    }
+
+    /*
+
+    Register Instructions
+
+    These instructions are all implied mode
+
+     */
+
+    static void taxImplied(CPU cpu, int operand) {
+        cpu.x = cpu.a;
+        cpu.updateNZFlags(cpu.a);
+    }
+
+    static void txaImplied(CPU cpu, int operand) {
+        cpu.a = cpu.x;
+        cpu.updateNZFlags(cpu.a);
+    }
+
+    static void dexImplied(CPU cpu, int operand) {
+        cpu.x--;
+        cpu.updateNZFlags(cpu.x);
+    }
+
+    static void inxImplied(CPU cpu, int operand) {
+        cpu.x++;
+        cpu.updateNZFlags(cpu.x);
+    }
+
+    static void tayImplied(CPU cpu, int operand) {
+        cpu.y = cpu.a;
+        cpu.updateNZFlags(cpu.a);
+    }
+
+    static void tyaImplied(CPU cpu, int operand) {
+        cpu.a = cpu.y;
+        cpu.updateNZFlags(cpu.a);
+    }
+
+    static void deyImplied(CPU cpu, int operand) {
+        cpu.y--;
+        cpu.updateNZFlags(cpu.y);
+    }
+
+    static void inyImplied(CPU cpu, int operand) {
+        cpu.y++;
+        cpu.updateNZFlags(cpu.y);
+    }
+
+    /*
+
+    ROR
+    Rotate Right
+
+    Shifts all bits right one position. The Carry is shifted into bit 7 and the original bit 0 is shifted into Carry
+
+    Affects flags N, Z, C
+
+     */
+
+    static void rorImplied(CPU cpu, int operand) {
+        boolean b0 = (cpu.a &= 0x01) != 0;
+        cpu.a >>= 1;
+
+        if (cpu.isSet(Status.CARRY))
+            cpu.a |= 0x80;
+
+        if (b0)
+            cpu.setFlag(Status.CARRY);
+        else
+            cpu.clearFlag(Status.CARRY);
+    }
+
+    static void rorZeroPage(CPU cpu, int operand) {
+        cpu.rotateRight(operand);
+    }
+
+    static void rorZeroPageX(CPU cpu, int operand) {
+        cpu.rotateRight(cpu.zeroPageX(operand));
+    }
+
+    static void rorAbsolute(CPU cpu, int operand) {
+        cpu.rotateRight(operand);
+    }
+
+    static void rorAbsoluteX(CPU cpu, int operand) {
+        cpu.rotateRight(cpu.absoluteX(operand));
+    }
+
+    /*
+
+    ROL
+    Rotate Left
+
+    Shifts all bits left
+
+     */
+
+    static void rolImplied(CPU cpu, int operand) {
+        boolean b7 = (cpu.a &= 0x80) != 0;
+        cpu.a <<= 1;
+
+        if (cpu.isSet(Status.CARRY))
+            cpu.a |= 0x01;
+
+        if (b7)
+            cpu.setFlag(Status.CARRY);
+        else
+            cpu.clearFlag(Status.CARRY);
+    }
+
+    static void rolZeroPage(CPU cpu, int operand) {
+        cpu.rotateLeft(operand);
+    }
+
+    static void rolZeroPageX(CPU cpu, int operand) {
+        cpu.rotateLeft(cpu.zeroPageX(operand));
+    }
+
+    static void rolAbsolute(CPU cpu, int operand) {
+        cpu.rotateLeft(operand);
+    }
+
+    static void rolAbsoluteX(CPU cpu, int operand) {
+        cpu.rotateLeft(cpu.absoluteX(operand));
+    }
+
+    /*
+
+    RTI
+    Return from Interrupt
+
+    RTI retrieves the processor status flags and the PC from the stack in that order
+    Unlike RTS, the return address on the stack is the *actual address*, NOT (address - 1)
+
+    Affects all flags
+
+     */
+
+    static void rtiImplied(CPU cpu, int operand) {
+        // get status
+        cpu.setStatus(cpu.pullFromStack());
+
+        // get pc; remember we always push high, low
+        byte returnLow = cpu.pullFromStack();
+        byte returnHigh = cpu.pullFromStack();
+        cpu.pc = ((returnHigh << 8) & 0xFF00) | (returnLow & 0xFF);
+    }
+
+    /*
+
+    RTS
+    Return from subroutine
+
+    Pulls the low byte, then the high byte, of the return address - 1.
+    It then adds 1 to get the proper return address.
+
+     */
+
+    static void rtsImplied(CPU cpu, int operand) {
+        // fetch the low, then high bytes of the return address
+        byte returnLow = cpu.pullFromStack();
+        byte returnHigh = cpu.pullFromStack();
+
+        // pack them into the pc and add one to ensure we return to the right place
+        cpu.pc = ((((returnHigh << 8) & 0xFF00) | (returnLow & 0xFF)) + 1) & 0xFFFF;
+    }
+
+    /*
+
+    SBC
+    Subtract with carry
+
+    To subtract, set the carry before the operation. If the bit is cleared, it indicates a borrow occurred.
+
+    Affects flags N, V, Z, C
+
+     */
+
+    static void sbcImmediate(CPU cpu, int operand) {
+        cpu.subtract(operand);
+    }
+
+    static void sbcZeroPage(CPU cpu, int operand) {
+        cpu.subtract(cpu.read(operand));
+    }
+
+    static void sbcZeroPageX(CPU cpu, int operand) {
+        cpu.subtract(cpu.read(cpu.zeroPageX(operand)));
+    }
+
+    static void sbcAbsolute(CPU cpu, int operand) {
+        cpu.subtract(cpu.read(operand));
+    }
+
+    static void sbcAbsoluteX(CPU cpu, int operand) {
+        cpu.subtract(cpu.read(cpu.absoluteX(operand)));
+    }
+
+    static void sbcAbsoluteY(CPU cpu, int operand) {
+        cpu.subtract(cpu.read(cpu.absoluteY(operand)));
+    }
+
+    static void sbcIndirectX(CPU cpu, int operand) {
+        cpu.subtract(cpu.read(cpu.indexedIndirect(operand)));
+    }
+
+    static void sbcIndirectY(CPU cpu, int operand) {
+        cpu.subtract(cpu.read(cpu.indirectIndexed(operand)));
+    }
+
+    /*
+
+    STA, STX, STY
+    Store Register
+
+    Stores a register at a given place in memory.
+
+    Affects no flags
+
+     */
+
+    static void staZeroPage(CPU cpu, int operand) {
+        cpu.storeInMemory(cpu.a, operand);
+    }
+
+    static void staZeroPageX(CPU cpu, int operand) {
+        cpu.storeInMemory(cpu.a, cpu.zeroPageX(operand));
+    }
+
+    static void staAbsolute(CPU cpu, int operand) {
+        cpu.storeInMemory(cpu.a, operand);
+    }
+
+    static void staAbsoluteX(CPU cpu, int operand) {
+        cpu.storeInMemory(cpu.a, cpu.absoluteX(operand));
+    }
+
+    static void staAbsoluteY(CPU cpu, int operand) {
+        cpu.storeInMemory(cpu.a, cpu.absoluteY(operand));
+    }
+
+    static void staIndirectX(CPU cpu, int operand) {
+        cpu.storeInMemory(cpu.a, cpu.indexedIndirect(operand));
+    }
+
+    static void staIndirectY(CPU cpu, int operand) {
+        cpu.storeInMemory(cpu.a, cpu.indirectIndexed(operand));
+    }
+
+    static void stxZeroPage(CPU cpu, int operand) {
+        cpu.storeInMemory(cpu.x, operand);
+    }
+
+    static void stxZeroPageY(CPU cpu, int operand) {
+        cpu.storeInMemory(cpu.x, cpu.zeroPageY(operand));
+    }
+
+    static void stxAbsolute(CPU cpu, int operand) {
+        cpu.storeInMemory(cpu.x, operand);
+    }
+
+    static void styZeroPage(CPU cpu, int operand) {
+        cpu.storeInMemory(cpu.y, operand);
+    }
+
+    static void styZeroPageX(CPU cpu, int operand) {
+        cpu.storeInMemory(cpu.y, cpu.zeroPageX(operand));
+    }
+
+    static void styAbsolute(CPU cpu, int operand) {
+        cpu.storeInMemory(cpu.y, operand);
+    }
+
+    /*
+
+    Stack Instructions
+    Handle all operations with the stack
+
+    We can:
+        - Transfer SP to and from X
+        - Push and pull (pop) A
+        - Push and pull (pop) the processor status
+
+    Note that push instructions write the data to memory[stack pointer], *then* decrement
+    Likewise, pull instructions increment, *then* retrieve data from the stack
+
+    Affect no flags
+
+     */
+
+    static void txsImplied(CPU cpu, int operand) {
+        cpu.sp = cpu.x;
+    }
+
+    static void tsxImplied(CPU cpu, int operand) {
+        cpu.x = cpu.sp;
+    }
+
+    static void phaImplied(CPU cpu, int operand) {
+        cpu.pushToStack(cpu.a);
+    }
+
+    static void plaImplied(CPU cpu, int operand) {
+        cpu.a = cpu.pullFromStack();
+    }
+
+    static void phpImplied(CPU cpu, int operand) {
+        cpu.pushToStack(cpu.getStatus());
+    }
+
+    static void plpImplied(CPU cpu, int operand) {
+        cpu.setStatus(cpu.pullFromStack());
+    }
+
+    /*
+
+    Unofficial opcodes that we support go here
+
+     */
+
+    // 2- and 3-byte NOPs; the operand is fetched by the dispatcher and ignored
+    static void nopImmediate(CPU cpu, int operand) {
+        // do nothing
+    }
+
+    static void nopZeroPage(CPU cpu, int operand) {
+        // do nothing
+    }
+
+    static void nopZeroPageX(CPU cpu, int operand) {
+        // do nothing
+    }
+
+    static void nopAbsolute(CPU cpu, int operand) {
+        // do nothing
+    }
+
+    static void nopAbsoluteX(CPU cpu, int operand) {
+        // do nothing
+    }
+
+    /*
+
+    LAX
+    LAX performs an LDA and then a TAX
+
+     */
+
+    static void laxZeroPage(CPU cpu, int operand) {
+        lax(cpu, cpu.read(operand));
+    }
+
+    static void laxZeroPageY(CPU cpu, int operand) {
+        lax(cpu, cpu.read(cpu.zeroPageY(operand)));
+    }
+
+    static void laxAbsolute(CPU cpu, int operand) {
+        lax(cpu, cpu.read(operand));
+    }
+
+    static void laxAbsoluteY(CPU cpu, int operand) {
+        lax(cpu, cpu.read(cpu.absoluteY(operand)));
+    }
+
+    static void laxIndirectX(CPU cpu, int operand) {
+        lax(cpu, cpu.read(cpu.indexedIndirect(operand)));
+    }
+
+    static void laxIndirectY(CPU cpu, int operand) {
+        lax(cpu, cpu.read(cpu.indirectIndexed(operand)));
+    }
+
+    private static void lax(CPU cpu, byte value) {
+        cpu.a = value;
+        cpu.x = cpu.a;
+        cpu.updateNZFlags(cpu.x);
+    }
+
+    /*
+
+    SAX
+    SAX performs a bitwise AND on A and X and stores the result in memory
+
+    Affects no flags
+
+     */
+
+    static void saxZeroPage(CPU cpu, int operand) {
+        cpu.storeInMemory((byte)(cpu.a & cpu.x), operand);
+    }
+
+    static void saxZeroPageY(CPU cpu, int operand) {
+        cpu.storeInMemory((byte)(cpu.a & cpu.x), cpu.zeroPageY(operand));
+    }
+
+    static void saxAbsolute(CPU cpu, int operand) {
+        cpu.storeInMemory((byte)(cpu.a & cpu.x), operand);
+    }
+
+    static void saxIndirectX(CPU cpu, int operand) {
+        cpu.storeInMemory((byte)(cpu.a & cpu.x), cpu.indexedIndirect(operand));
+    }
+
+    /*
+
+    Immediate-mode combined operations
+
+     */
+
+    static void alrImmediate(CPU cpu, int operand) {
+        // ALR is the equivalent of an AND #imm and then LSR A
+        cpu.and(operand);
+        cpu.shiftRight();
+    }
+
+    static void ancImmediate(CPU cpu, int operand) {
+        // ANC performs and AND imm and then copies the N flag to C
+        cpu.and(operand);
+        if (cpu.isSet(Status.NEGATIVE))
+            cpu.setFlag(Status.CARRY);
+        else
+            cpu.clearFlag(Status.CARRY);
+    }
+
+    static void arrImmediate(CPU cpu, int operand) {
+        // Similar to AND #imm; ROR A
+        // todo: apparently this sets C and V differently, but I haven't verified this
+        cpu.and(operand);
+
+        // rotate
+        boolean carry = cpu.isSet(Status.CARRY);
+        cpu.shiftRight();
+        if (carry)
+            cpu.a |= 0x80;
+    }
+
+    static void axsImmediate(CPU cpu, int operand) {
+        // todo: validate the behavior of this instruction
+        // Sets X to { (A and X) - imm, without borrow } and updates NZC
+        byte old_a = cpu.a;
+        cpu.and(cpu.x);
+        cpu.x = cpu.a;
+        cpu.a = old_a;
+        cpu.x -= operand;
+        cpu.updateNZFlags(cpu.x);
+    }
+
+    /*
+
+    DCP -- a DEC followed by CMP (but with more addressing modes)
+
+     */
+
+    static void dcpZeroPage(CPU cpu, int operand) {
+        dcp(cpu, operand);
+    }
+
+    static void dcpZeroPageX(CPU cpu, int operand) {
+        dcp(cpu, cpu.zeroPageX(operand));
+    }
+
+    static void dcpAbsolute(CPU cpu, int operand) {
+        dcp(cpu, operand);
+    }
+
+    static void dcpAbsoluteX(CPU cpu, int operand) {
+        dcp(cpu, cpu.absoluteX(operand));
+    }
+
+    static void dcpAbsoluteY(CPU cpu, int operand) {
+        dcp(cpu, cpu.absoluteY(operand));
+    }
+
+    static void dcpIndirectX(CPU cpu, int operand) {
+        dcp(cpu, cpu.indexedIndirect(operand));
+    }
+
+    static void dcpIndirectY(CPU cpu, int operand) {
+        dcp(cpu, cpu.indirectIndexed(operand));
+    }
+
+    private static void dcp(CPU cpu, int address) {
+        byte value = (byte)(cpu.read(address) - 1);
+        cpu.write(address, value);
+        cpu.compare(cpu.a, value);
+    }
+
+    /*
+
+    ISC -- an INC followed by a SBC
+
+     */
+
+    static void iscZeroPage(CPU cpu, int operand) {
+        isc(cpu, operand);
+    }
+
+    static void iscZeroPageX(CPU cpu, int operand) {
+        isc(cpu, cpu.zeroPageX(operand));
+    }
+
+    static void iscAbsolute(CPU cpu, int operand) {
+        isc(cpu, operand);
+    }
+
+    static void iscAbsoluteX(CPU cpu, int operand) {
+        isc(cpu, cpu.absoluteX(operand));
+    }
+
+    static void iscAbsoluteY(CPU cpu, int operand) {
+        isc(cpu, cpu.absoluteY(operand));
+    }
+
+    static void iscIndirectX(CPU cpu, int operand) {
+        isc(cpu, cpu.indexedIndirect(operand));
+    }
+
+    static void iscIndirectY(CPU cpu, int operand) {
+        isc(cpu, cpu.indirectIndexed(operand));
+    }
+
+    private static void isc(CPU cpu, int address) {
+        byte value = (byte)(cpu.read(address) + 1);
+        cpu.write(address, value);
+        cpu.subtract(value);
+    }
+
+    /*
+
+    RLA -- ROL followed by AND
+
+     */
+
+    static void rlaZeroPage(CPU cpu, int operand) {
+        rla(cpu, operand);
+    }
+
+    static void rlaZeroPageX(CPU cpu, int operand) {
+        rla(cpu, cpu.zeroPageX(operand));
+    }
+
+    static void rlaAbsolute(CPU cpu, int operand) {
+        rla(cpu, operand);
+    }
+
+    static void rlaAbsoluteX(CPU cpu, int operand) {
+        rla(cpu, cpu.absoluteX(operand));
+    }
+
+    static void rlaAbsoluteY(CPU cpu, int operand) {
+        rla(cpu, cpu.absoluteY(operand));
+    }
+
+    static void rlaIndirectX(CPU cpu, int operand) {
+        rla(cpu, cpu.indexedIndirect(operand));
+    }
+
+    static void rlaIndirectY(CPU cpu, int operand) {
+        rla(cpu, cpu.indirectIndexed(operand));
+    }
+
+    private static void rla(CPU cpu, int address) {
+        cpu.rotateLeft(address);
+        cpu.and(cpu.read(address));
+    }
+
+    /*
+
+    RRA -- ROR followed by ADC
+
+     */
+
+    static void rraZeroPage(CPU cpu, int operand) {
+        rra(cpu, operand);
+    }
+
+    static void rraZeroPageX(CPU cpu, int operand) {
+        rra(cpu, cpu.zeroPageX(operand));
+    }
+
+    static void rraAbsolute(CPU cpu, int operand) {
+        rra(cpu, operand);
+    }
+
+    static void rraAbsoluteX(CPU cpu, int operand) {
+        rra(cpu, cpu.absoluteX(operand));
+    }
+
+    static void rraAbsoluteY(CPU cpu, int operand) {
+        rra(cpu, cpu.absoluteY(operand));
+    }
+
+    static void rraIndirectX(CPU cpu, int operand) {
+        rra(cpu, cpu.indexedIndirect(operand));
+    }
+
+    static void rraIndirectY(CPU cpu, int operand) {
+        rra(cpu, cpu.indirectIndexed(operand));
+    }
+
+    private static void rra(CPU cpu, int address) {
+        cpu.rotateRight(address);
+        cpu.add(cpu.read(address));
+    }
+
+    /*
+
+    SLO -- ASL followed by ORA
+
+     */
+
+    static void sloZeroPage(CPU cpu, int operand) {
+        slo(cpu, operand);
+    }
+
+    static void sloZeroPageX(CPU cpu, int operand) {
+        slo(cpu, cpu.zeroPageX(operand));
+    }
+
+    static void sloAbsolute(CPU cpu, int operand) {
+        slo(cpu, operand);
+    }
+
+    static void sloAbsoluteX(CPU cpu, int operand) {
+        slo(cpu, cpu.absoluteX(operand));
+    }
+
+    static void sloAbsoluteY(CPU cpu, int operand) {
+        slo(cpu, cpu.absoluteY(operand));
+    }
+
+    static void sloIndirectX(CPU cpu, int operand) {
+        slo(cpu, cpu.indexedIndirect(operand));
+    }
+
+    static void sloIndirectY(CPU cpu, int operand) {
+        slo(cpu, cpu.indirectIndexed(operand));
+    }
+
+    private static void slo(CPU cpu, int address) {
+        cpu.shiftLeft(address);
+        cpu.or(cpu.read(address));
+    }
+
+    /*
+
+    SRE -- LSR followed by EOR
+
+     */
+
+    static void sreZeroPage(CPU cpu, int operand) {
+        sre(cpu, operand);
+    }
+
+    static void sreZeroPageX(CPU cpu, int operand) {
+        sre(cpu, cpu.zeroPageX(operand));
+    }
+
+    static void sreAbsolute(CPU cpu, int operand) {
+        sre(cpu, operand);
+    }
+
+    static void sreAbsoluteX(CPU cpu, int operand) {
+        sre(cpu, cpu.absoluteX(operand));
+    }
+
+    static void sreAbsoluteY(CPU cpu, int operand) {
+        sre(cpu, cpu.absoluteY(operand));
+    }
+
+    static void sreIndirectX(CPU cpu, int operand) {
+        sre(cpu, cpu.indexedIndirect(operand));
+    }
+
+    static void sreIndirectY(CPU cpu, int operand) {
+        sre(cpu, cpu.indirectIndexed(operand));
+    }
+
+    private static void sre(CPU cpu, int address) {
+        cpu.shiftRight(address);
+        cpu.xor(cpu.read(address));
+    }
+}
@@ -0,0 +1,166 @@
+package emu;
+
+public final class IntervalTimer implements Device {
+    /*
+
+    A programmable interval timer, memory-mapped at one page (DEFAULT_PAGE unless configured otherwise)
+
+    The timer counts down from a reload value, one tick every 1, 16, 256 or 4096 CPU cycles (the prescaler). When it
+        reaches zero it expires: it sets the expired flag, raises an IRQ if enabled, and either reloads and carries
+        on (repeat mode) or stops.
+    Nothing is ticked. Starting the timer schedules its expiry at a cycle deadline, and the count is worked out from
+        that deadline when read, so the timer costs nothing between expiries.
+
+    Registers (they repeat every 8 bytes throughout the page):
+        +0  RELOAD_LOW  the low byte of the reload value
+        +1  RELOAD_HIGH the high byte; a reload value of 0 means 65536
+        +2  CONTROL     bit 0: running; writing 1 (re)starts the count from the reload value, writing 0 stops it
+                        bit 1: raise an IRQ on expiry
+                        bit 2: repeat; reload and keep counting on expiry
+                        bits 4-5: prescaler; 0 = 1 cycle per tick, 1 = 16, 2 = 256, 3 = 4096
+        +3  STATUS      bit 7: expired; set on expiry, cleared by writing anything here
+        +4  COUNT_LOW   the low byte of the current count (read-only)
+        +5  COUNT_HIGH  the high byte (read-only)
+
+     */
+
+    final public static int DEFAULT_PAGE = 0x20;
+
+    // register offsets
+    final private static int RELOAD_LOW = 0;
+    final private static int RELOAD_HIGH = 1;
+    final private static int CONTROL = 2;
+    final private static int STATUS = 3;
+    final private static int COUNT_LOW = 4;
+    final private static int COUNT_HIGH = 5;
+
+    // control and status bits
+    final private static int RUNNING = 0x01;
+    final private static int IRQ_ENABLE = 0x02;
+    final private static int REPEAT = 0x04;
+    final private static int PRESCALER_SHIFT = 4;
+    final private static int EXPIRED = 0x80;
+
+    final private int page;
+    final private ScheduledEvent expire;
+    private Emulator emulator;
+
+    private int reload; // the reload value, 0-65535
+    private int control;
+    private int status;
+    private long deadline;  // the cycle at which the running timer expires
+
+    private int getPeriod() {
+        // the number of cycles from reload to expiry
+        int ticks = this.reload == 0 ? 0x10000 : this.reload;
+        return ticks << (4 * ((this.control >> PRESCALER_SHIFT) & 0x03));
+    }
+
+    private int getCount() {
+        // the number of ticks left before expiry; 0 when stopped
+        if ((this.control & RUNNING) == 0) {
+            return 0;
+        }
+
+        int shift = 4 * ((this.control >> PRESCALER_SHIFT) & 0x03);
+        long remaining = Math.max(this.deadline - this.emulator.getCycles(), 0);
+        return (int) (((remaining + (1L << shift) - 1) >> shift) & 0xFFFF);
+    }
+
+    private void start(long cycle) {
+        // Starts counting down from the reload value at 'cycle'
+        this.emulator.cancel(this.expire);
+        this.deadline = cycle + this.getPeriod();
+        this.emulator.schedule(this.deadline, this.expire);
+    }
+
+    private void expire(long cycle) {
+        this.status |= EXPIRED;
+        if ((this.control & REPEAT) != 0) {
+            this.start(cycle);
+        } else {
+            this.control &= ~RUNNING;
+        }
+
+        if ((this.control & IRQ_ENABLE) != 0) {
+            this.emulator.irq();
+        }
+    }
+
+    @Override
+    public void attach(Emulator emulator) throws Exception {
+        emulator.mapDevice(this.page, 1, this);
+        this.emulator = emulator;
+        this.reset();
+    }
+
+    @Override
+    public void reset() {
+        this.reload = 0;
+        this.control = 0;
+        this.status = 0;
+        this.deadline = 0;
+    }
+
+    @Override
+    public byte read(int address) {
+        switch (address & 0x07) {
+            case RELOAD_LOW:
+                return (byte) this.reload;
+            case RELOAD_HIGH:
+                return (byte) (this.reload >> 8);
+            case CONTROL:
+                return (byte) this.control;
+            case STATUS:
+                return (byte) this.status;
+            case COUNT_LOW:
+                return (byte) this.getCount();
+            case COUNT_HIGH:
+                return (byte) (this.getCount() >> 8);
+            default:
+                return 0;
+        }
+    }
+
+    @Override
+    public void write(int address, byte value) {
+        int data = value & 0xFF;
+        switch (address & 0x07) {
+            case RELOAD_LOW:
+                this.reload = (this.reload & 0xFF00) | data;
+                break;
+            case RELOAD_HIGH:
+                this.reload = (this.reload & 0x00FF) | (data << 8);
+                break;
+            case CONTROL:
+                this.control = data & (RUNNING | IRQ_ENABLE | REPEAT | (0x03 << PRESCALER_SHIFT));
+                if ((this.control & RUNNING) != 0) {
+                    this.start(this.emulator.getCycles());
+                } else {
+                    this.emulator.cancel(this.expire);
+                }
+                break;
+            case STATUS:
+                this.status = 0;
+                break;
+            default:
+                // the count is read-only
+                break;
+        }
+    }
+
+    public IntervalTimer(int page) {
+        /*
+        Creates a timer; it is mapped when it is added to the emulator
+
+        @param  page    The page to map the timer's registers at
+         */
+
+        this.page = page;
+        this.expire = this::expire;
+    }
+
+    public IntervalTimer() {
+        this(DEFAULT_PAGE);
+    }
+}
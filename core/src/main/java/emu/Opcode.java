@@ -0,0 +1,134 @@
+package emu;
+
+final class Opcode {
+    /*
+
+    An entry in the CPU's dispatch table
+    Pairs an opcode with its mnemonic, addressing mode, timing, and the operation that implements it
+
+     */
+
+    final int opcode;   // the opcode byte
+    final String mnemonic;  // the instruction mnemonic, e.g. "ADC"
+    final AddressingMode mode;  // the addressing mode; determines how many operand bytes are fetched
+    final int length;   // the length of the instruction in bytes, including the opcode
+    final int cycles;   // the base number of clock cycles the instruction takes
+    final boolean pageCrossPenalty; // whether the instruction takes an extra cycle when indexing crosses a page
+    final boolean endsBlock;    // whether the instruction may transfer control, ending a basic block
+    final boolean writesMemory; // whether the instruction may write to memory (including the stack)
+    final boolean mayUnmaskIrq; // whether the instruction may clear the I flag, so that a pending IRQ ends the slice
+    final String handler;   // the name of the method in Instructions that implements it, e.g. "adcImmediate"
+    final Operation operation;  // the implementation
+
+    private static int getLength(AddressingMode mode) {
+        // Get the length of an instruction from its addressing mode
+        switch (mode) {
+            case Implied:
+                return 1;
+            case Absolute:
+            case AbsoluteX:
+            case AbsoluteY:
+            case Indirect:
+                return 3;
+            default:
+                return 2;
+        }
+    }
+
+    private static boolean hasPageCrossPenalty(String mnemonic, AddressingMode mode) {
+        /*
+        Only instructions that just read their operand pay for crossing a page, and only in the indexed modes
+        Stores and read-modify-write instructions always take the extra cycle, so it is part of their base count
+         */
+        if (mode != AddressingMode.AbsoluteX && mode != AddressingMode.AbsoluteY && mode != AddressingMode.IndirectY) {
+            return false;
+        }
+
+        switch (mnemonic) {
+            case "ADC":
+            case "AND":
+            case "CMP":
+            case "EOR":
+            case "LAX":
+            case "LDA":
+            case "LDX":
+            case "LDY":
+            case "NOP":
+            case "ORA":
+            case "SBC":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isControlTransfer(String mnemonic, AddressingMode mode) {
+        // Branches, jumps, calls and returns may change the PC; BRK halts the CPU
+        switch (mnemonic) {
+            case "BRK":
+            case "JMP":
+            case "JSR":
+            case "RTI":
+            case "RTS":
+                return true;
+            default:
+                return mode == AddressingMode.Relative;
+        }
+    }
+
+    private static boolean isWrite(String mnemonic, AddressingMode mode) {
+        switch (mnemonic) {
+            // stores and pushes
+            case "STA":
+            case "STX":
+            case "STY":
+            case "SAX":
+            case "PHA":
+            case "PHP":
+            case "JSR":
+                return true;
+            // read-modify-write instructions only write to memory if they don't operate on the accumulator
+            case "ASL":
+            case "LSR":
+            case "ROL":
+            case "ROR":
+            case "INC":
+            case "DEC":
+            case "SLO":
+            case "RLA":
+            case "SRE":
+            case "RRA":
+            case "DCP":
+            case "ISC":
+                return mode != AddressingMode.Implied;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean mayClearInterruptDisable(String mnemonic) {
+        // CLI clears the I flag; PLP and RTI set the whole status register
+        switch (mnemonic) {
+            case "CLI":
+            case "PLP":
+            case "RTI":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    Opcode(int opcode, String mnemonic, AddressingMode mode, int cycles, Operation operation) {
+        this.opcode = opcode & 0xFF;
+        this.mnemonic = mnemonic;
+        this.mode = mode;
+        this.length = getLength(mode);
+        this.cycles = cycles;
+        this.pageCrossPenalty = hasPageCrossPenalty(mnemonic, mode);
+        this.endsBlock = isControlTransfer(mnemonic, mode);
+        this.writesMemory = isWrite(mnemonic, mode);
+        this.mayUnmaskIrq = mayClearInterruptDisable(mnemonic);
+        this.handler = mnemonic.toLowerCase() + mode.name();
+        this.operation = operation;
+    }
+}
@@ -0,0 +1,17 @@
+package emu;
+
+@FunctionalInterface
+interface Operation {
+    /*
+
+    The semantics of a single opcode
+    By the time an operation is executed, the dispatcher has already fetched the operand and advanced the PC past
+        the instruction, so an operation only needs to resolve its addressing mode and do its work
+
+    @param  cpu The CPU the operation acts on
+    @param  operand The raw operand; a byte (0-255) for 2-byte instructions, a word (0-65535) for 3-byte instructions
+
+     */
+
+    void execute(CPU cpu, int operand);
+}
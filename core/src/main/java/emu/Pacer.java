@@ -0,0 +1,87 @@
+package emu;
+
+import java.util.concurrent.locks.LockSupport;
+
+final class Pacer {
+    /*
+
+    Paces the CPU against the host clock so that it runs at a given emulated clock rate
+
+    The pacer is anchored to a point in time and the cycle count at that time; the number of cycles that should have
+        elapsed is always computed from the anchor, never accumulated slice by slice. This means rounding errors and
+        oversleeping in one slice are made up in the next rather than adding up (drift compensation).
+    If the emulator falls too far behind -- a GC pause, a debugger stop, the window being dragged -- the pacer moves
+        its anchor instead of running a long burst to catch up.
+
+    In turbo mode there is no pacing at all; the CPU runs as fast as the host allows.
+
+     */
+
+    final private static long NANOS_PER_SECOND = 1_000_000_000L;
+    final private static long MAX_LAG_NANOS = 50_000_000L; // how far behind we may fall before giving up on catching up
+    final private static long SLICE_NANOS = 1_000_000L;    // paced slices are 1 ms of emulated time
+
+    private long clockRate; // the emulated clock rate, in Hz
+    private boolean turbo;  // whether pacing is disabled
+    private long anchorNanos;   // System.nanoTime() at the anchor
+    private long anchorCycles;  // the CPU cycle count at the anchor
+
+    void resync(long cycles) {
+        // Moves the anchor to the present; the CPU is considered to be exactly on time
+        this.anchorNanos = System.nanoTime();
+        this.anchorCycles = cycles;
+    }
+
+    void awaitCycles(long cycles) {
+        /*
+        Parks the calling thread until the host clock reaches the time at which the CPU should have run 'cycles'
+        If the CPU is behind, this returns at once, so the next slices run back to back until it has caught up. If it
+            is more than MAX_LAG_NANOS behind, the anchor is moved to the present instead, so that the CPU carries on
+            at its usual rate rather than running a long burst to catch up.
+
+        @param  cycles  The CPU's current cycle count
+         */
+
+        long deadline = this.anchorNanos + (long) ((cycles - this.anchorCycles) * ((double) NANOS_PER_SECOND / this.clockRate));
+        long remaining = deadline - System.nanoTime();
+        if (remaining < -MAX_LAG_NANOS) {
+            // too far behind; pretend we were on time
+            this.resync(cycles);
+            return;
+        }
+
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    long getSliceCycles() {
+        // the number of cycles in one paced slice
+        return Math.max(this.clockRate * SLICE_NANOS / NANOS_PER_SECOND, 1);
+    }
+
+    long getClockRate() {
+        return this.clockRate;
+    }
+
+    void setClockRate(long clockRate, long cycles) {
+        this.clockRate = clockRate;
+        this.resync(cycles);
+    }
+
+    boolean isTurbo() {
+        return this.turbo;
+    }
+
+    void setTurbo(boolean turbo, long cycles) {
+        this.turbo = turbo;
+        this.resync(cycles);
+    }
+
+    Pacer(long clockRate) {
+        this.clockRate = clockRate;
+        this.turbo = false;
+        this.resync(0);
+    }
+}
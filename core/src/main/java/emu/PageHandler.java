@@ -0,0 +1,15 @@
+package emu;
+
+public interface PageHandler {
+    /*
+
+    A memory-mapped device, as seen by the memory bus
+    Once mapped (see Emulator.mapDevice), the device handles every CPU read and write to its pages. It is only ever
+        called from the thread running the CPU.
+
+     */
+
+    byte read(int address);
+
+    void write(int address, byte value);
+}
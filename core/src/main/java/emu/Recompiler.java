@@ -0,0 +1,337 @@
+package emu;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.HashMap;
+
+final class Recompiler {
+    /*
+
+    Translates hot basic blocks into JVM bytecode
+
+    Each block becomes a hidden class implementing CompiledBlock. Its execute method does, for each instruction, what
+        the interpreter would: apply any page-crossing penalty, set the PC to the following instruction, call the
+        instruction's method in Instructions directly (invokestatic, with the operand as a constant), and count the
+        instruction and its cycles. There is no fetch, decode or dispatch left, and since each call site has a single
+        target, the JIT can inline the instructions into one method.
+    After any instruction that may write to memory, the block returns if the write set CPU.leaveBlock (it invalidated
+        decoded code, or a device cut the slice short). The same goes for any instruction that may clear the I flag,
+        which ends the slice if an IRQ is pending (see CPU.setStatus), so the IRQ is taken as soon as it would be by
+        the interpreter.
+
+    The class file is written by hand. It uses version 49 (Java 5), so it needs no stack map frames, and contains
+        nothing but the constant pool, a constructor and execute().
+
+     */
+
+    // the number of times a block must be entered before it is compiled
+    final static int THRESHOLD = 64;
+
+    final private static String CPU_CLASS = "emu/CPU";
+    final private static String CLASS_NAME = "emu/RecompiledBlock";
+
+    // the JVM instructions we need
+    final private static int ICONST_0 = 0x03;
+    final private static int LCONST_1 = 0x0a;
+    final private static int BIPUSH = 0x10;
+    final private static int SIPUSH = 0x11;
+    final private static int LDC_W = 0x13;
+    final private static int ALOAD_0 = 0x2a;
+    final private static int ALOAD_1 = 0x2b;
+    final private static int DUP = 0x59;
+    final private static int LADD = 0x61;
+    final private static int I2L = 0x85;
+    final private static int IFEQ = 0x99;
+    final private static int RETURN = 0xb1;
+    final private static int GETFIELD = 0xb4;
+    final private static int PUTFIELD = 0xb5;
+    final private static int INVOKEVIRTUAL = 0xb6;
+    final private static int INVOKESPECIAL = 0xb7;
+    final private static int INVOKESTATIC = 0xb8;
+
+    final private MethodHandles.Lookup lookup;
+    private long attempts;  // the number of blocks compiled, or that could not be
+    private long failures;  // the number of blocks that could not be compiled
+    private String lastFailure; // why the last of them could not be; null if none has failed
+
+    CompiledBlock compile(DecodedInstruction block) {
+        /*
+        Compiles the block starting with 'block'
+
+        @param  block   The first instruction of the block
+        @return The compiled block, or null if it could not be compiled (the interpreter is used instead, and the
+            failure is only counted; see getFailures)
+         */
+
+        this.attempts++;
+        try {
+            byte[] classFile = this.generate(block);
+            Class<?> compiled = this.lookup.defineHiddenClass(classFile, true).lookupClass();
+            return (CompiledBlock) compiled.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | IOException | LinkageError e) {
+            this.failures++;
+            this.lastFailure = e.toString();
+            return null;
+        }
+    }
+
+    long getAttempts() {
+        return this.attempts;
+    }
+
+    long getFailures() {
+        return this.failures;
+    }
+
+    String getLastFailure() {
+        return this.lastFailure;
+    }
+
+    private byte[] generate(DecodedInstruction block) throws IOException {
+        ConstantPool pool = new ConstantPool();
+        int thisClass = pool.classRef(CLASS_NAME);
+        int superClass = pool.classRef("java/lang/Object");
+        int blockInterface = pool.classRef("emu/CompiledBlock");
+        int objectInit = pool.methodRef("java/lang/Object", "<init>", "()V");
+        int codeAttribute = pool.utf8("Code");
+        int initName = pool.utf8("<init>");
+        int initDescriptor = pool.utf8("()V");
+        int executeName = pool.utf8("execute");
+        int executeDescriptor = pool.utf8("(Lemu/CPU;)V");
+
+        // the constructor just calls Object's
+        ByteArrayOutputStream init = new ByteArrayOutputStream();
+        init.write(ALOAD_0);
+        init.write(INVOKESPECIAL);
+        writeShort(init, objectInit);
+        init.write(RETURN);
+
+        ByteArrayOutputStream execute = this.generateExecute(block, pool);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);  // minor version
+        out.writeShort(49); // major version
+        pool.writeTo(out);
+        out.writeShort(0x0030); // ACC_FINAL | ACC_SUPER
+        out.writeShort(thisClass);
+        out.writeShort(superClass);
+        out.writeShort(1);  // interfaces
+        out.writeShort(blockInterface);
+        out.writeShort(0);  // fields
+        out.writeShort(2);  // methods
+        writeMethod(out, initName, initDescriptor, codeAttribute, 1, 1, init.toByteArray());
+        writeMethod(out, executeName, executeDescriptor, codeAttribute, 6, 2, execute.toByteArray());
+        out.writeShort(0);  // attributes
+        out.flush();
+
+        return bytes.toByteArray();
+    }
+
+    private ByteArrayOutputStream generateExecute(DecodedInstruction block, ConstantPool pool) {
+        // Generates the code for execute(CPU); local 1 is the CPU
+
+        int pc = pool.fieldRef(CPU_CLASS, "pc", "I");
+        int cycles = pool.fieldRef(CPU_CLASS, "cycles", "J");
+        int instructions = pool.fieldRef(CPU_CLASS, "instructions", "J");
+        int leaveBlock = pool.fieldRef(CPU_CLASS, "leaveBlock", "Z");
+
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+        for (DecodedInstruction decoded = block; decoded != null; decoded = decoded.following) {
+            Opcode instruction = decoded.instruction;
+
+            // cpu.cycles += cpu.pageCrossPenaltyX(operand), etc.
+            if (instruction.pageCrossPenalty) {
+                String penalty;
+                switch (instruction.mode) {
+                    case AbsoluteX:
+                        penalty = "pageCrossPenaltyX";
+                        break;
+                    case AbsoluteY:
+                        penalty = "pageCrossPenaltyY";
+                        break;
+                    default:
+                        penalty = "pageCrossPenaltyIndirectY";
+                        break;
+                }
+
+                code.write(ALOAD_1);
+                code.write(DUP);
+                code.write(GETFIELD);
+                writeShort(code, cycles);
+                code.write(ALOAD_1);
+                pushInt(code, pool, decoded.operand);
+                code.write(INVOKEVIRTUAL);
+                writeShort(code, pool.methodRef(CPU_CLASS, penalty, "(I)I"));
+                code.write(I2L);
+                code.write(LADD);
+                code.write(PUTFIELD);
+                writeShort(code, cycles);
+            }
+
+            // cpu.pc = next
+            code.write(ALOAD_1);
+            pushInt(code, pool, decoded.next);
+            code.write(PUTFIELD);
+            writeShort(code, pc);
+
+            // Instructions.handler(cpu, operand)
+            code.write(ALOAD_1);
+            pushInt(code, pool, decoded.operand);
+            code.write(INVOKESTATIC);
+            writeShort(code, pool.methodRef("emu/Instructions", instruction.handler, "(Lemu/CPU;I)V"));
+
+            // cpu.cycles += cycles
+            code.write(ALOAD_1);
+            code.write(DUP);
+            code.write(GETFIELD);
+            writeShort(code, cycles);
+            pushInt(code, pool, instruction.cycles);
+            code.write(I2L);
+            code.write(LADD);
+            code.write(PUTFIELD);
+            writeShort(code, cycles);
+
+            // cpu.instructions++
+            code.write(ALOAD_1);
+            code.write(DUP);
+            code.write(GETFIELD);
+            writeShort(code, instructions);
+            code.write(LCONST_1);
+            code.write(LADD);
+            code.write(PUTFIELD);
+            writeShort(code, instructions);
+
+            // if (cpu.leaveBlock) return;
+            if ((instruction.writesMemory || instruction.mayUnmaskIrq) && decoded.following != null) {
+                code.write(ALOAD_1);
+                code.write(GETFIELD);
+                writeShort(code, leaveBlock);
+                code.write(IFEQ);
+                writeShort(code, 4);    // skip the return; the offset is from the IFEQ
+                code.write(RETURN);
+            }
+        }
+        code.write(RETURN);
+
+        return code;
+    }
+
+    private static void pushInt(ByteArrayOutputStream code, ConstantPool pool, int value) {
+        // Pushes an int constant using the shortest instruction available
+        if (value >= 0 && value <= 5) {
+            code.write(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            code.write(BIPUSH);
+            code.write(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            code.write(SIPUSH);
+            writeShort(code, value);
+        } else {
+            code.write(LDC_W);
+            writeShort(code, pool.integer(value));
+        }
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int value) {
+        out.write((value >> 8) & 0xFF);
+        out.write(value & 0xFF);
+    }
+
+    private static void writeMethod(DataOutputStream out, int name, int descriptor, int codeAttribute, int maxStack,
+                                    int maxLocals, byte[] code) throws IOException {
+        // Writes a public method with the given code
+        out.writeShort(0x0001); // ACC_PUBLIC
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);  // attributes; just the code
+
+        out.writeShort(codeAttribute);
+        out.writeInt(12 + code.length); // the attribute's length, not counting its name and this
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0);  // exception table
+        out.writeShort(0);  // attributes
+    }
+
+    private static final class ConstantPool {
+        /*
+        The class file's constant pool
+        Entries are shared, so each string, class or member appears once
+         */
+
+        final private ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        final private HashMap<String, Integer> indices = new HashMap<>();
+        private int count = 1;  // entry 0 is unused
+
+        private int add(String key, byte[] entry) {
+            Integer index = this.indices.get(key);
+            if (index == null) {
+                index = this.count++;
+                this.entries.write(entry, 0, entry.length);
+                this.indices.put(key, index);
+            }
+
+            return index;
+        }
+
+        int utf8(String value) {
+            ByteArrayOutputStream entry = new ByteArrayOutputStream();
+            try {
+                DataOutputStream out = new DataOutputStream(entry);
+                out.writeByte(1);
+                out.writeUTF(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+
+            return this.add("utf8 " + value, entry.toByteArray());
+        }
+
+        int integer(int value) {
+            byte[] entry = {3, (byte) (value >> 24), (byte) (value >> 16), (byte) (value >> 8), (byte) value};
+            return this.add("int " + value, entry);
+        }
+
+        int classRef(String name) {
+            int nameIndex = this.utf8(name);
+            return this.add("class " + name, new byte[]{7, (byte) (nameIndex >> 8), (byte) nameIndex});
+        }
+
+        private int nameAndType(String name, String descriptor) {
+            int nameIndex = this.utf8(name);
+            int descriptorIndex = this.utf8(descriptor);
+            byte[] entry = {12, (byte) (nameIndex >> 8), (byte) nameIndex, (byte) (descriptorIndex >> 8), (byte) descriptorIndex};
+            return this.add("nat " + name + " " + descriptor, entry);
+        }
+
+        private int memberRef(int tag, String owner, String name, String descriptor) {
+            int classIndex = this.classRef(owner);
+            int natIndex = this.nameAndType(name, descriptor);
+            byte[] entry = {(byte) tag, (byte) (classIndex >> 8), (byte) classIndex, (byte) (natIndex >> 8), (byte) natIndex};
+            return this.add(tag + " " + owner + "." + name + " " + descriptor, entry);
+        }
+
+        int fieldRef(String owner, String name, String descriptor) {
+            return this.memberRef(9, owner, name, descriptor);
+        }
+
+        int methodRef(String owner, String name, String descriptor) {
+            return this.memberRef(10, owner, name, descriptor);
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeShort(this.count);
+            this.entries.writeTo(out);
+        }
+    }
+
+    Recompiler() {
+        this.lookup = MethodHandles.lookup();
+    }
+}
@@ -0,0 +1,17 @@
+package emu;
+
+@FunctionalInterface
+public interface ScheduledEvent {
+    /*
+
+    A callback scheduled to run at a given CPU cycle (see Emulator.schedule)
+    Events run on the thread running the CPU, between instructions, as soon as the cycle count reaches their cycle
+
+    @param  cycle   The cycle the event was scheduled for; the CPU may be a few cycles past it, since an instruction
+                        is never interrupted. Periodic events should schedule their next run from this, not from the
+                        current cycle count, so they don't drift.
+
+     */
+
+    void fire(long cycle);
+}
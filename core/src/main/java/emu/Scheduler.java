@@ -0,0 +1,152 @@
+package emu;
+
+import java.util.Arrays;
+
+final class Scheduler {
+    /*
+
+    Runs events at given CPU cycles, for devices (see ScheduledEvent)
+
+    Pending events are kept in a binary min-heap ordered by cycle, so the next one is always at the root; events due
+        on the same cycle run in the order they were scheduled.
+    The emulator never runs the CPU past the next due cycle (see Emulator.run), so nothing needs to be checked per
+        instruction: the scheduler is only consulted when the CPU stops, and then only the root is examined.
+
+     */
+
+    final private static int INITIAL_CAPACITY = 16;
+
+    // the heap, as parallel arrays; entry i's children are 2i+1 and 2i+2
+    private long[] due; // the cycle each event is due
+    private long[] order;   // the order each event was scheduled in, to break ties
+    private ScheduledEvent[] events;
+    private int size;
+    private long scheduled; // the number of events ever scheduled
+
+    long nextDue() {
+        // the cycle the next event is due; Long.MAX_VALUE if there is none
+        return this.size == 0 ? Long.MAX_VALUE : this.due[0];
+    }
+
+    void schedule(long cycle, ScheduledEvent event) {
+        // Schedules 'event' to run once the CPU reaches 'cycle'
+        if (this.size == this.events.length) {
+            int capacity = this.events.length * 2;
+            this.due = Arrays.copyOf(this.due, capacity);
+            this.order = Arrays.copyOf(this.order, capacity);
+            this.events = Arrays.copyOf(this.events, capacity);
+        }
+
+        int i = this.size++;
+        this.due[i] = cycle;
+        this.order[i] = this.scheduled++;
+        this.events[i] = event;
+        this.siftUp(i);
+    }
+
+    void cancel(ScheduledEvent event) {
+        // Cancels every pending run of 'event'; the remaining entries are compacted and the heap rebuilt
+        int kept = 0;
+        for (int i = 0; i < this.size; i++) {
+            if (this.events[i] != event) {
+                this.move(i, kept++);
+            }
+        }
+
+        Arrays.fill(this.events, kept, this.size, null);
+        this.size = kept;
+        for (int i = this.size / 2 - 1; i >= 0; i--) {
+            this.siftDown(i);
+        }
+    }
+
+    void clear() {
+        Arrays.fill(this.events, 0, this.size, null);
+        this.size = 0;
+    }
+
+    void runDue(long cycles) {
+        /*
+        Runs every event due at or before 'cycles', in order
+        An event may schedule others; any of those that are already due run too
+
+        @param  cycles  The CPU's current cycle count
+         */
+
+        while (this.size > 0 && this.due[0] <= cycles) {
+            long cycle = this.due[0];
+            ScheduledEvent event = this.events[0];
+            this.removeFirst();
+            event.fire(cycle);
+        }
+    }
+
+    private void removeFirst() {
+        // Removes the root, filling its place with the last entry
+        int last = --this.size;
+        if (last != 0) {
+            this.move(last, 0);
+            this.siftDown(0);
+        }
+        this.events[last] = null;
+    }
+
+    private boolean before(int i, int j) {
+        // Whether entry i must run before entry j
+        return this.due[i] < this.due[j] || (this.due[i] == this.due[j] && this.order[i] < this.order[j]);
+    }
+
+    private void move(int from, int to) {
+        this.due[to] = this.due[from];
+        this.order[to] = this.order[from];
+        this.events[to] = this.events[from];
+    }
+
+    private void swap(int i, int j) {
+        long due = this.due[i];
+        long order = this.order[i];
+        ScheduledEvent event = this.events[i];
+        this.move(j, i);
+        this.due[j] = due;
+        this.order[j] = order;
+        this.events[j] = event;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!this.before(i, parent)) {
+                break;
+            }
+            this.swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int first = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < this.size && this.before(left, first)) {
+                first = left;
+            }
+            if (right < this.size && this.before(right, first)) {
+                first = right;
+            }
+            if (first == i) {
+                break;
+            }
+            this.swap(i, first);
+            i = first;
+        }
+    }
+
+    Scheduler() {
+        this.due = new long[INITIAL_CAPACITY];
+        this.order = new long[INITIAL_CAPACITY];
+        this.events = new ScheduledEvent[INITIAL_CAPACITY];
+        this.size = 0;
+        this.scheduled = 0;
+    }
+}
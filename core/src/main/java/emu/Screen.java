@@ -0,0 +1,226 @@
+package emu;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class Screen implements Device {
+    /*
+
+    The screen, and the vertical blank that paces the program
+
+    The screen shows a 32x32 framebuffer in RAM. Frames are defined in emulated cycles, not host time: every
+        clockRate / frameRate cycles a vertical blank begins, at which point
+        - the framebuffer is latched (copied), so the frame shown is exactly what RAM held at that cycle, and
+        - an NMI is raised, telling the program it may draw the next frame.
+    Since this is all driven by the cycle count, the frames a program produces are the same on every run, whatever
+        the host's speed, and running unpaced runs frames faster than real time.
+
+    The framebuffer is ordinary RAM, so the screen maps no pages. It does have the bus watch them, though, so that it
+        knows which pixels were written during the frame: only those are compared with the last frame, and a new
+        frame is only latched if one of them changed. Each frame records which pixels changed (see Frame), so the
+        renderer can repaint just those, and skip frames that did not change at all.
+
+    Frames are handed to the UI through a triple buffer of three Frames, so that neither thread ever waits for the
+        other, and nothing is allocated per frame. The emulation thread latches into the back buffer, then swaps it
+        with the ready one, marking it fresh; the UI swaps its front buffer with the ready one when it is fresh.
+        Each swap is a single atomic exchange, which also hands the frame's contents over safely.
+
+     */
+
+    final public static int WIDTH = 32;
+    final public static int HEIGHT = 32;
+    final public static int DEFAULT_FRAME_RATE = 30;   // frames (and NMIs) per second
+    final public static int DEFAULT_ADDRESS = 0x2400;  // where the framebuffer is in memory
+
+    final private static int PIXELS = WIDTH * HEIGHT;
+    final private static int BITMAP_LENGTH = PIXELS / 64;   // the length of a bitmap with one bit per pixel
+
+    // the bits of 'ready': the index of the buffer, and whether it holds a frame the UI has not taken
+    final private static int INDEX = 0x03;
+    final private static int FRESH = 0x04;
+
+    private Emulator emulator;
+    private int frameRate;  // frames per emulated second
+    private int address;    // the address of the framebuffer
+    final private byte[] latched;   // the most recently latched frame's pixels
+    private long version;   // and its version
+    private long frames;    // the number of vertical blanks since the last reset
+    final private long[] written;   // the pixels written during the frame, collected from the bus at each vertical blank
+    final private long[] changed;   // the pixels of the frame being latched that changed
+
+    // the triple buffer
+    final private Frame[] buffers;
+    private int back;   // the buffer frames are latched into; only used by the emulation thread
+    final private AtomicInteger ready;  // the buffer between the two, with FRESH if it holds a new frame
+    private int front;  // the buffer the UI is showing; only used by the UI
+    private int watchedAddress; // the framebuffer address the bus is watching; -1 if none
+    private boolean compareAll; // whether the next latch must compare every pixel, as memory may have changed unseen
+    final private ScheduledEvent vblank;
+
+    public int getFrameRate() {
+        return this.frameRate;
+    }
+
+    public void setFrameRate(int frameRate) throws Exception {
+        // Sets the number of frames per emulated second; takes effect at the next vertical blank
+        if (frameRate <= 0) {
+            throw new Exception("Frame rate must be positive");
+        }
+
+        this.frameRate = frameRate;
+    }
+
+    public int getAddress() {
+        return this.address;
+    }
+
+    public void setAddress(int address) throws Exception {
+        // Moves the framebuffer; takes effect at the next vertical blank
+        if (address < 0 || address + WIDTH * HEIGHT > 0x10000) {
+            throw new Exception(String.format("The framebuffer cannot start at $%04x", address));
+        }
+
+        this.address = address;
+    }
+
+    public Frame takeFrame() {
+        /*
+        Takes the newest frame, for display; only one thread (the UI) may take frames
+        The frame keeps its contents until the next call, when it may be reused for a later frame. If no frame was
+            latched since the last call, the same frame is returned again.
+
+        @return The newest frame
+         */
+
+        if ((this.ready.get() & FRESH) != 0) {
+            this.front = this.ready.getAndSet(this.front) & INDEX;
+        }
+
+        return this.buffers[this.front];
+    }
+
+    long getFrameCount() {
+        return this.frames;
+    }
+
+    private long getFrameCycles() {
+        // the length of a frame, in cycles, at the current clock rate
+        return Math.max(this.emulator.getClockRate() / this.frameRate, 1);
+    }
+
+    private static int pageCount(int address) {
+        // the number of pages a framebuffer at 'address' covers
+        return ((address + PIXELS - 1) >> 8) - (address >> 8) + 1;
+    }
+
+    private void watch(Bus bus) {
+        // Has the bus watch the framebuffer's pages, and no others
+        if (this.watchedAddress >= 0) {
+            bus.watch(this.watchedAddress >> 8, pageCount(this.watchedAddress), false);
+        }
+
+        bus.watch(this.address >> 8, pageCount(this.address), true);
+        this.watchedAddress = this.address;
+        this.compareAll = true;
+    }
+
+    private void latch() {
+        // Latches the framebuffer as the new frame, unless none of the pixels written during the frame changed
+        Bus bus = this.emulator.getBus();
+        if (this.address != this.watchedAddress) {
+            this.watch(bus);
+        }
+
+        boolean written = bus.takeWrites(this.address, PIXELS, this.written);
+        if (this.compareAll) {
+            Arrays.fill(this.written, -1L);
+            written = true;
+            this.compareAll = false;
+        }
+
+        if (!written) {
+            return;
+        }
+
+        byte[] memory = this.emulator.getMemory();
+        boolean changed = false;
+        Arrays.fill(this.changed, 0);
+        for (int word = 0; word < BITMAP_LENGTH; word++) {
+            long bits = this.written[word];
+            while (bits != 0) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (memory[this.address + index] != this.latched[index]) {
+                    this.latched[index] = memory[this.address + index];
+                    this.changed[word] |= 1L << index;
+                    changed = true;
+                }
+            }
+        }
+
+        if (changed) {
+            this.publish();
+        }
+    }
+
+    private void publish() {
+        // Copies the latched frame into the back buffer, and swaps it with the ready one
+        this.buffers[this.back].set(this.latched, this.changed, ++this.version);
+        this.back = this.ready.getAndSet(this.back | FRESH) & INDEX;
+    }
+
+    private void vblank(long cycle) {
+        // Latches the frame and raises the NMI, then schedules the next vertical blank
+        this.latch();
+        this.frames++;
+
+        this.emulator.nmi();
+        this.emulator.schedule(cycle + this.getFrameCycles(), this.vblank);
+    }
+
+    @Override
+    public void attach(Emulator emulator) {
+        this.emulator = emulator;
+        this.reset();
+    }
+
+    @Override
+    public void reset() {
+        // start from a blank frame; every pixel counts as changed, as we cannot know what was shown before
+        Arrays.fill(this.latched, (byte) 0);
+        Arrays.fill(this.changed, -1L);
+        this.publish();
+        this.frames = 0;
+        this.compareAll = true;
+        this.emulator.schedule(this.emulator.getCycles() + this.getFrameCycles(), this.vblank);
+    }
+
+    @Override
+    public byte read(int address) {
+        // the screen maps no pages, so it is never read
+        return 0;
+    }
+
+    @Override
+    public void write(int address, byte value) {
+        // likewise, it is never written
+    }
+
+    public Screen() {
+        this.frameRate = DEFAULT_FRAME_RATE;
+        this.address = DEFAULT_ADDRESS;
+        this.latched = new byte[PIXELS];
+        this.version = 0;
+        this.frames = 0;
+        this.written = new long[BITMAP_LENGTH];
+        this.changed = new long[BITMAP_LENGTH];
+        this.buffers = new Frame[]{new Frame(PIXELS), new Frame(PIXELS), new Frame(PIXELS)};
+        this.front = 0;
+        this.ready = new AtomicInteger(1);
+        this.back = 2;
+        this.watchedAddress = -1;
+        this.compareAll = true;
+        this.vblank = this::vblank;
+    }
+
+}
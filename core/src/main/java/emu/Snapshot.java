@@ -0,0 +1,72 @@
+package emu;
+
+public final class Snapshot {
+    /*
+    An immutable copy of the CPU's state at some point in time
+    The emulation thread publishes these so that the UI can read registers and memory without touching the CPU
+     */
+
+    final private byte a;
+    final private byte x;
+    final private byte y;
+    final private byte sp;
+    final private byte status;
+    final private int pc;
+    final private long cycles;
+    final private byte[] memory;
+    final private long frameCount;
+
+    public byte getA() {
+        return this.a;
+    }
+
+    public byte getX() {
+        return this.x;
+    }
+
+    public byte getY() {
+        return this.y;
+    }
+
+    public byte getStackPointer() {
+        return this.sp;
+    }
+
+    public byte getStatus() {
+        return this.status;
+    }
+
+    public int getPC() {
+        return this.pc;
+    }
+
+    public long getCycles() {
+        return this.cycles;
+    }
+
+    public byte readMemory(int address) {
+        return this.memory[address & 0xFFFF];
+    }
+
+    public byte[] getMemory() {
+        // the snapshot's copy of memory; callers must not modify it
+        return this.memory;
+    }
+
+    public long getFrameCount() {
+        // the number of vertical blanks since the last reset; unchanged frames are not latched again, but are counted
+        return this.frameCount;
+    }
+
+    Snapshot(CPU cpu, Screen screen) {
+        this.a = cpu.a;
+        this.x = cpu.x;
+        this.y = cpu.y;
+        this.sp = cpu.sp;
+        this.status = cpu.getStatus();
+        this.pc = cpu.pc;
+        this.cycles = cpu.cycles;
+        this.memory = cpu.memory.clone();
+        this.frameCount = screen.getFrameCount();
+    }
+}
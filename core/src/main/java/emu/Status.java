@@ -1,4 +1,4 @@
-package assembler;
+package emu;
 
 public final class Status {
     public static final byte NEGATIVE = (byte)0b10000000;
@@ -0,0 +1,18 @@
+package emu;
+
+public enum StopReason {
+    /*
+
+    The reasons the CPU may stop executing
+    These are returned from CPU.run and CPU.step instead of being thrown, so that the common path carries no
+        exception handling and a fault costs nothing until it actually happens
+
+     */
+
+    RUNNING,    // the CPU is still running; a slice used its whole budget, or a single step completed
+    BREAKPOINT, // the debugger stopped at a breakpoint
+    PAUSED, // the debugger is paused
+    BRK,    // the program executed BRK, which this emulator treats as a halt
+    ILLEGAL_OPCODE, // the CPU fetched an opcode it does not implement and halted
+    TERMINATED  // the CPU was halted from outside the program, or has not been started
+}
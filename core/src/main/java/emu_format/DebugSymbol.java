@@ -1,11 +1,11 @@
-package assembler;
+package emu_format;
 
 public class DebugSymbol {
     private String label;
     final private int line;
     final private short address;
 
-    void setLabel(String label) {
+    public void setLabel(String label) {
         this.label = label;
     }
 
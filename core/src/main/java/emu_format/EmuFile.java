@@ -1,6 +1,5 @@
 package emu_format;
 
-import assembler.DebugSymbol;
 import emu.Input;
 
 import java.io.*;
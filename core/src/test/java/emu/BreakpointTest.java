@@ -0,0 +1,168 @@
+package emu;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BreakpointTest {
+    /*
+
+    Tests breakpoints through the emulator: conditions, hit counts, and the per-block check (Debugger.hasBreakpoints)
+
+    The program counts X up forever, storing it at $20:
+        $8000   LDX #0
+        $8002   loop: INX
+        $8003   STX $20
+        $8005   JMP loop
+
+     */
+
+    final private static long SLICE = 1_000_000;
+
+    private Emulator emu;
+
+    @BeforeEach
+    void setUp() {
+        this.emu = new Emulator();
+        this.emu.setDebugMode(true);
+        this.emu.setIdleSkippingEnabled(false);
+
+        int[] code = {0xA2, 0x00, 0xE8, 0x86, 0x20, 0x4C, 0x02, 0x80, 0x40};
+        for (int i = 0; i < code.length; i++) {
+            this.emu.writeToMemory(0x8000 + i, (byte) code[i]);
+        }
+
+        int[] vectors = {0x8008, 0x8000, 0x8008};   // NMI, reset, IRQ; the interrupt handlers just return
+        for (int i = 0; i < vectors.length; i++) {
+            this.emu.writeToMemory(0xFFFA + 2 * i, (byte) vectors[i]);
+            this.emu.writeToMemory(0xFFFB + 2 * i, (byte) (vectors[i] >> 8));
+        }
+
+        this.emu.reset();
+    }
+
+    private void continueFromBreakpoint() {
+        // as the debugger panel does: step past the breakpoint, then resume
+        this.emu.step();
+        this.emu.debugger.resume();
+    }
+
+    @Test
+    void unconditionalBreakpoint() {
+        this.emu.debugger.setBreakpoint(0x8002);
+        assertEquals(StopReason.BREAKPOINT, this.emu.run(SLICE));
+        assertEquals(0x8002, this.emu.debugger.getPC());
+        assertEquals(1, this.emu.debugger.getHitCount(0x8002));
+        assertNull(this.emu.debugger.getCondition(0x8002));
+        assertTrue(this.emu.debugger.isPaused());
+        assertEquals(StopReason.PAUSED, this.emu.run(SLICE));
+    }
+
+    @Test
+    void conditionOnMemory() throws Exception {
+        this.emu.debugger.setBreakpoint(0x8002, " mem[$20] == 10 ");
+        assertEquals("mem[$20] == 10", this.emu.debugger.getCondition(0x8002));
+        assertEquals(StopReason.BREAKPOINT, this.emu.run(SLICE));
+        assertEquals(10, this.emu.debugger.getX());
+        assertEquals(11, this.emu.debugger.getHitCount(0x8002));    // reached with X from 0 to 10
+
+        // X wraps around, so the condition holds again 256 hits later
+        this.continueFromBreakpoint();
+        assertEquals(StopReason.BREAKPOINT, this.emu.run(SLICE));
+        assertEquals(10, this.emu.debugger.getX());
+        assertEquals(11 + 256, this.emu.debugger.getHitCount(0x8002));
+    }
+
+    @Test
+    void conditionOnHitCountWithinABlock() throws Exception {
+        this.emu.debugger.setBreakpoint(0x8003, "hits == 5");
+        assertEquals(StopReason.BREAKPOINT, this.emu.run(SLICE));
+        assertEquals(0x8003, this.emu.debugger.getPC());
+        assertEquals(5, this.emu.debugger.getX());
+
+        this.continueFromBreakpoint();
+        assertEquals(StopReason.RUNNING, this.emu.run(SLICE));
+    }
+
+    @Test
+    void hitCountsAcrossResets() throws Exception {
+        this.emu.debugger.setBreakpoint(0x8002, "hits == 3");
+        assertEquals(StopReason.BREAKPOINT, this.emu.run(SLICE));
+        assertEquals(3, this.emu.debugger.getHitCount(0x8002));
+
+        // resetting the CPU keeps the count, so the condition does not hold again
+        this.emu.reset();
+        this.emu.debugger.resume();
+        assertEquals(StopReason.RUNNING, this.emu.run(SLICE));
+        assertTrue(this.emu.debugger.getHitCount(0x8002) > 3);
+
+        // setting the breakpoint again at the same address starts the count again
+        this.emu.reset();
+        this.emu.debugger.setBreakpoint(0x8002, "hits == 3");
+        assertEquals(0, this.emu.debugger.getHitCount(0x8002));
+        assertEquals(StopReason.BREAKPOINT, this.emu.run(SLICE));
+        assertEquals(3, this.emu.debugger.getHitCount(0x8002));
+        assertEquals(2, this.emu.debugger.getX());
+
+        // and without a condition, it breaks every time
+        this.emu.debugger.setBreakpoint(0x8002, "");
+        assertNull(this.emu.debugger.getCondition(0x8002));
+        this.continueFromBreakpoint();
+        assertEquals(StopReason.BREAKPOINT, this.emu.run(SLICE));
+        assertEquals(1, this.emu.debugger.getHitCount(0x8002));
+    }
+
+    @Test
+    void invalidConditionLeavesNoBreakpoint() {
+        assertThrows(Exception.class, () -> this.emu.debugger.setBreakpoint(0x8002, "X =="));
+        assertTrue(this.emu.debugger.getBreakpoints().isEmpty());
+        assertEquals(StopReason.RUNNING, this.emu.run(SLICE));
+    }
+
+    @Test
+    void breakpointsSetAfterABlockIsCompiled() throws Exception {
+        // run long enough for the loop to be compiled, then break inside it
+        this.emu.setRecompilerEnabled(true);
+        assertEquals(StopReason.RUNNING, this.emu.run(SLICE));
+        this.emu.debugger.setBreakpoint(0x8003, "X == 7");
+        assertEquals(StopReason.BREAKPOINT, this.emu.run(SLICE));
+        assertEquals(0x8003, this.emu.debugger.getPC());
+        assertEquals(7, this.emu.debugger.getX());
+
+        this.continueFromBreakpoint();
+        this.emu.debugger.removeBreakpoint(0x8003);
+        assertEquals(StopReason.RUNNING, this.emu.run(SLICE));
+    }
+
+    @Test
+    void blocksAreCheckedAgainWhenBreakpointsChange() {
+        CPU cpu = new CPU(true);
+        Debugger debugger = cpu.debugger;
+        cpu.memory[0x0200] = (byte) 0xE8;   // INX
+        cpu.memory[0x0201] = (byte) 0xE8;   // INX
+        cpu.memory[0x0202] = (byte) 0x60;   // RTS, which ends the block
+        DecodedInstruction block = cpu.blockCache.get(0x0200);
+        assertEquals(0x0203, block.end);
+
+        int version = debugger.getBreakpointsVersion();
+        assertFalse(debugger.hasBreakpoints(block, 0x0200, version));
+
+        // outside the block
+        debugger.setBreakpoint(0x0203);
+        version = debugger.getBreakpointsVersion();
+        assertFalse(debugger.hasBreakpoints(block, 0x0200, version));
+
+        // inside it; the cached answer is only used while the version is the same
+        debugger.setBreakpoint(0x0202);
+        assertFalse(debugger.hasBreakpoints(block, 0x0200, version));
+        version = debugger.getBreakpointsVersion();
+        assertTrue(debugger.hasBreakpoints(block, 0x0200, version));
+
+        debugger.removeBreakpoint(0x0202);
+        assertNotEquals(version, debugger.getBreakpointsVersion());
+        version = debugger.getBreakpointsVersion();
+        assertFalse(debugger.hasBreakpoints(block, 0x0200, version));
+        assertEquals(java.util.List.of(0x0203), debugger.getBreakpoints());
+    }
+}
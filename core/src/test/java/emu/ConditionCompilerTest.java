@@ -0,0 +1,132 @@
+package emu;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConditionCompilerTest {
+    /*
+
+    Tests parsing, precedence, literals and constant folding of breakpoint conditions
+
+     */
+
+    private CPU cpu;
+
+    @BeforeEach
+    void setUp() {
+        this.cpu = new CPU();
+        this.cpu.a = 0x10;
+        this.cpu.x = (byte) 0xFF;
+        this.cpu.y = 3;
+        this.cpu.memory[0x20] = 4;
+        this.cpu.pc = 0x1234;
+    }
+
+    private int evaluate(String condition) throws Exception {
+        return ConditionCompiler.compile(condition).evaluate(this.cpu, 7);
+    }
+
+    private String error(String condition) {
+        return assertThrows(Exception.class, () -> ConditionCompiler.compile(condition)).getMessage();
+    }
+
+    @Test
+    void comparisonsBindTighterThanLogicalOperators() throws Exception {
+        assertEquals(1, this.evaluate("A == $10 && mem[$20] > 3"));
+        assertEquals(0, this.evaluate("A == $10 && mem[$20] > 4"));
+        assertEquals(1, this.evaluate("A == 3 || mem[$20] == 4 && Y == 3"));
+        assertEquals(0, this.evaluate("(A == 3 || mem[$20] == 4) && Y == 4"));
+    }
+
+    @Test
+    void bitwiseOperatorsBindLooserThanComparisons() throws Exception {
+        // as in C: 1 | (2 == 2), not (1 | 2) == 2
+        assertEquals(1, this.evaluate("1 | 2 == 2"));
+        assertEquals(0, this.evaluate("(1 | 2) == 2"));
+        assertEquals(7, this.evaluate("1 | 2 ^ 4 & 6"));   // 1 | (2 ^ (4 & 6))
+        assertEquals(1, this.evaluate("1 + 2 == 3"));
+        assertEquals(1, this.evaluate("1 < 2 == 1"));       // (1 < 2) == 1
+    }
+
+    @Test
+    void unaryOperators() throws Exception {
+        assertEquals(0, this.evaluate("!A"));
+        assertEquals(1, this.evaluate("!!A"));
+        assertEquals(-1, this.evaluate("~0"));
+        assertEquals(-16, this.evaluate("-A"));
+        assertEquals(15, this.evaluate("A - 1"));
+        assertEquals(17, this.evaluate("A - -1"));
+    }
+
+    @Test
+    void operatorsAreNotSplitFromLongerOnes() throws Exception {
+        assertEquals(1, this.evaluate("A <= $10"));
+        assertEquals(0, this.evaluate("A < $10"));
+        assertEquals(1, this.evaluate("A>=$10&&A<=$10"));
+        assertEquals(0, this.evaluate("A&1"));
+        assertEquals(1, this.evaluate("A&&1"));
+        assertEquals(1, this.evaluate("A||0"));
+        assertEquals(0x11, this.evaluate("A|1"));
+        assertEquals(1, this.evaluate("A!=1"));
+        assertEquals(0, this.evaluate("!A==1"));            // (!A) == 1
+    }
+
+    @Test
+    void literals() throws Exception {
+        assertEquals(31, this.evaluate("$1F"));
+        assertEquals(31, this.evaluate("$1f"));
+        assertEquals(31, this.evaluate("0x1F"));
+        assertEquals(31, this.evaluate("0X1f"));
+        assertEquals(5, this.evaluate("%101"));
+        assertEquals(0, this.evaluate("0"));
+        assertEquals(100, this.evaluate("100"));
+    }
+
+    @Test
+    void registersFlagsAndMemory() throws Exception {
+        assertEquals(0x10, this.evaluate("a"));
+        assertEquals(0xFF, this.evaluate("X"));            // unsigned
+        assertEquals(0x1234, this.evaluate("PC"));
+        assertEquals(this.cpu.getStatus() & 0xFF, this.evaluate("P"));
+        assertEquals(this.cpu.isSet(Status.ZERO) ? 1 : 0, this.evaluate("Z"));
+        assertEquals(7, this.evaluate("hits"));
+        assertEquals(4, this.evaluate("mem[$1F + 1]"));
+        assertEquals(4, this.evaluate("mem[$10020]"));     // addresses wrap to 16 bits
+        assertEquals(4, this.evaluate("mem[Y + 29]"));
+    }
+
+    @Test
+    void constantsAreFolded() throws Exception {
+        // a folded condition never touches the CPU
+        assertEquals(1, ConditionCompiler.compile("(2 + 3 == 5) && !0 && ~0 == -1").evaluate(null, 0));
+        assertEquals(3, ConditionCompiler.compile("%1 | $2").evaluate(null, 0));
+
+        // memory is read, not folded; the sum is not truncated to a byte
+        this.cpu.memory[0xFFFA] = (byte) 0xFF;
+        assertEquals(0, this.evaluate("mem[$FFFA] + 1 == 0"));
+        assertEquals(1, this.evaluate("mem[$FF00 + $FA] + 1 == $100"));
+    }
+
+    @Test
+    void logicalOperatorsShortCircuit() throws Exception {
+        // the right operand would read the memory at an address taken from the CPU, which is null here
+        assertEquals(0, ConditionCompiler.compile("0 && mem[A]").evaluate(null, 0));
+        assertEquals(1, ConditionCompiler.compile("1 || mem[A]").evaluate(null, 0));
+    }
+
+    @Test
+    void errorsGiveTheColumn() {
+        assertEquals("The condition is empty", this.error("  "));
+        assertEquals("Expected a value at column 5", this.error("A =="));
+        assertEquals("Unknown name 'foo' at column 6", this.error("A == foo"));
+        assertEquals("Expected ']' at column 6", this.error("mem[1"));
+        assertEquals("Expected '[' at column 5", this.error("mem $20"));
+        assertEquals("Unexpected '2' at column 3", this.error("1 2"));
+        assertEquals("Unexpected '=' at column 3", this.error("A = 1"));
+        assertEquals("Expected ')' at column 3", this.error("(A"));
+        assertEquals("Expected a number at column 2", this.error("$"));
+        assertEquals("Unexpected '&' at column 5", this.error("A & & B"));
+    }
+}
@@ -0,0 +1,234 @@
+package emu;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CyclesTest {
+    /*
+
+    Tests cycle counting: the base count of every opcode, the page-crossing and branch penalties, and run()'s budget
+
+     */
+
+    // the base cycle count of each opcode on the NMOS 6502, by opcode; 0 for the KIL opcodes
+    final private static int[] NMOS_CYCLES = {
+            7, 6, 0, 8, 3, 3, 5, 5, 3, 2, 2, 2, 4, 4, 6, 6,
+            2, 5, 0, 8, 4, 4, 6, 6, 2, 4, 2, 7, 4, 4, 7, 7,
+            6, 6, 0, 8, 3, 3, 5, 5, 4, 2, 2, 2, 4, 4, 6, 6,
+            2, 5, 0, 8, 4, 4, 6, 6, 2, 4, 2, 7, 4, 4, 7, 7,
+            6, 6, 0, 8, 3, 3, 5, 5, 3, 2, 2, 2, 3, 4, 6, 6,
+            2, 5, 0, 8, 4, 4, 6, 6, 2, 4, 2, 7, 4, 4, 7, 7,
+            6, 6, 0, 8, 3, 3, 5, 5, 4, 2, 2, 2, 5, 4, 6, 6,
+            2, 5, 0, 8, 4, 4, 6, 6, 2, 4, 2, 7, 4, 4, 7, 7,
+            2, 6, 2, 6, 3, 3, 3, 3, 2, 2, 2, 2, 4, 4, 4, 4,
+            2, 6, 0, 6, 4, 4, 4, 4, 2, 5, 2, 5, 5, 5, 5, 5,
+            2, 6, 2, 6, 3, 3, 3, 3, 2, 2, 2, 2, 4, 4, 4, 4,
+            2, 5, 0, 5, 4, 4, 4, 4, 2, 4, 2, 4, 4, 4, 4, 4,
+            2, 6, 2, 8, 3, 3, 5, 5, 2, 2, 2, 2, 4, 4, 6, 6,
+            2, 5, 0, 8, 4, 4, 6, 6, 2, 4, 2, 7, 4, 4, 7, 7,
+            2, 6, 2, 8, 3, 3, 5, 5, 2, 2, 2, 2, 4, 4, 6, 6,
+            2, 5, 0, 8, 4, 4, 6, 6, 2, 4, 2, 7, 4, 4, 7, 7,
+    };
+
+    // the opcodes that take an extra cycle when indexing crosses a page
+    final private static int[] PAGE_CROSS_PENALTY = {
+            0x11, 0x19, 0x1d, 0x31, 0x39, 0x3d, 0x51, 0x59, 0x5d, 0x71, 0x79, 0x7d,     // ORA, AND, EOR, ADC
+            0xb1, 0xb9, 0xbd, 0xbc, 0xbe, 0xb3, 0xbf,   // LDA, LDY, LDX, LAX
+            0xd1, 0xd9, 0xdd, 0xf1, 0xf9, 0xfd,     // CMP, SBC
+            0x1c, 0x3c, 0x5c, 0x7c, 0xdc, 0xfc,     // NOP abs,X
+    };
+
+    private CPU cpu;
+
+    @BeforeEach
+    void setUp() {
+        this.cpu = new CPU();
+        this.cpu.recompile = false;
+        this.cpu.fuse = false;
+        this.cpu.skipIdle = false;
+    }
+
+    private void load(int address, int... code) {
+        for (int i = 0; i < code.length; i++) {
+            this.cpu.memory[address + i] = (byte) code[i];
+        }
+    }
+
+    private long cyclesFor(int pc) {
+        // Steps one instruction at 'pc', returning how many cycles it took
+        this.cpu.pc = pc;
+        long start = this.cpu.cycles;
+        assertEquals(StopReason.RUNNING, this.cpu.step());
+        return this.cpu.cycles - start;
+    }
+
+    @Test
+    void baseCyclesMatchTheNmosTables() {
+        for (int opcode = 0; opcode < 256; opcode++) {
+            Opcode entry = InstructionTable.OPCODES[opcode];
+            if (entry != null) {
+                assertEquals(NMOS_CYCLES[opcode], entry.cycles, String.format("$%02x %s", opcode, entry.handler));
+            }
+        }
+    }
+
+    @Test
+    void onlyIndexedReadsPayForCrossingAPage() {
+        for (int opcode = 0; opcode < 256; opcode++) {
+            Opcode entry = InstructionTable.OPCODES[opcode];
+            if (entry != null) {
+                final int op = opcode;
+                boolean expected = Arrays.stream(PAGE_CROSS_PENALTY).anyMatch(penalty -> penalty == op);
+                assertEquals(expected, entry.pageCrossPenalty, String.format("$%02x %s", opcode, entry.handler));
+            }
+        }
+    }
+
+    @Test
+    void crossingAPageCostsACycle() {
+        this.cpu.signal(Signal.RESET);
+        this.load(0x8000, 0xbd, 0xf0, 0x12);   // LDA $12f0,X
+        this.load(0x8010, 0x9d, 0xf0, 0x12);   // STA $12f0,X
+        this.load(0x8020, 0xb1, 0x40);         // LDA ($40),Y
+        this.load(0x8030, 0xbe, 0xf0, 0x12);   // LDX $12f0,Y
+        this.load(0x0040, 0xf0, 0x12);
+
+        this.cpu.x = 0x0f;
+        this.cpu.y = 0x0f;
+        assertEquals(4, this.cyclesFor(0x8000));
+        assertEquals(5, this.cyclesFor(0x8010));
+        assertEquals(5, this.cyclesFor(0x8020));
+        assertEquals(4, this.cyclesFor(0x8030));
+
+        // the penalty depends on the index before the instruction, even if it changes it
+        this.cpu.x = 0x10;
+        this.cpu.y = 0x10;
+        assertEquals(5, this.cyclesFor(0x8000));
+        assertEquals(5, this.cyclesFor(0x8010));   // stores always take the extra cycle
+        assertEquals(6, this.cyclesFor(0x8020));
+        assertEquals(5, this.cyclesFor(0x8030));
+    }
+
+    @Test
+    void takenBranchesCostOneCycleOrTwoAcrossAPage() {
+        this.cpu.signal(Signal.RESET);
+        this.load(0x8000, 0xd0, 0x10);     // BNE +16, to $8012
+        this.load(0x80f0, 0xd0, 0x10);     // BNE +16, to $8102
+        this.load(0x8100, 0xd0, 0xf0);     // BNE -16, to $80f2
+
+        this.cpu.setFlag(Status.ZERO);
+        assertEquals(2, this.cyclesFor(0x8000));
+        assertEquals(0x8002, this.cpu.pc);
+
+        this.cpu.clearFlag(Status.ZERO);
+        assertEquals(3, this.cyclesFor(0x8000));
+        assertEquals(0x8012, this.cpu.pc);
+        assertEquals(4, this.cyclesFor(0x80f0));
+        assertEquals(0x8102, this.cpu.pc);
+        assertEquals(4, this.cyclesFor(0x8100));
+        assertEquals(0x80f2, this.cpu.pc);
+    }
+
+    @Test
+    void interruptsAndResetTakeSevenCycles() {
+        long start = this.cpu.cycles;
+        this.cpu.signal(Signal.RESET);
+        assertEquals(7, this.cpu.cycles - start);
+
+        this.cpu.clearFlag(Status.INTERRUPT_DISABLE);
+        start = this.cpu.cycles;
+        this.cpu.signal(Signal.IRQ);
+        assertEquals(7, this.cpu.cycles - start);
+    }
+
+    @Test
+    void takingAnInterruptCountsAgainstTheBudget() {
+        // the interrupt handlers at $9000 are a run of NOPs
+        this.load(0xfffa, 0x00, 0x90);
+        this.load(0xfffe, 0x00, 0x90);
+        for (int i = 0; i < 16; i++) {
+            this.load(0x9000 + i, 0xea);
+        }
+        this.load(0x8000, 0x58, 0x4c, 0x01, 0x80);    // CLI; loop: JMP loop
+        this.cpu.signal(Signal.RESET);
+        this.cpu.step();
+
+        this.cpu.raiseInterrupt(CPU.IRQ_LINE);
+        long start = this.cpu.cycles;
+        assertEquals(StopReason.RUNNING, this.cpu.run(7));
+        assertEquals(7, this.cpu.cycles - start);
+        assertEquals(0x9000, this.cpu.pc);
+
+        this.cpu.raiseInterrupt(CPU.NMI_LINE);
+        start = this.cpu.cycles;
+        assertEquals(StopReason.RUNNING, this.cpu.run(10));
+        assertEquals(11, this.cpu.cycles - start);  // the NMI, then two NOPs
+    }
+
+    private void loadBranchLoop() {
+        /*
+        A loop whose branch crosses a page, so each iteration takes 2 + 4 cycles:
+            $80fe   loop: INX
+            $80ff   BNE loop
+         */
+
+        this.load(0x8000, 0x4c, 0xfe, 0x80);   // JMP loop
+        this.load(0x80fe, 0xe8, 0xd0, 0xfd);
+        this.cpu.signal(Signal.RESET);
+        assertEquals(StopReason.RUNNING, this.cpu.step());
+    }
+
+    @Test
+    void runStopsAtTheFirstInstructionBoundaryInTheBudget() {
+        this.loadBranchLoop();
+
+        // ten iterations fit exactly
+        long start = this.cpu.cycles;
+        assertEquals(StopReason.RUNNING, this.cpu.run(60));
+        assertEquals(60, this.cpu.cycles - start);
+        assertEquals(10, this.cpu.x);
+        assertEquals(0x80fe, this.cpu.pc);
+
+        // with a cycle to spare, the next instruction is started, and the slice overruns by one
+        start = this.cpu.cycles;
+        assertEquals(StopReason.RUNNING, this.cpu.run(61));
+        assertEquals(62, this.cpu.cycles - start);
+        assertEquals(21, this.cpu.x);
+        assertEquals(0x80ff, this.cpu.pc);
+
+        // and the branch, once started, is paid for in full
+        start = this.cpu.cycles;
+        assertEquals(StopReason.RUNNING, this.cpu.run(1));
+        assertEquals(4, this.cpu.cycles - start);
+        assertEquals(0x80fe, this.cpu.pc);
+    }
+
+    @Test
+    void budgetsAreTheSameWithEveryTier() {
+        // the branch loop, run in uneven slices with each way of executing it, ends up at the same cycle and state
+        long expectedCycles = -1;
+        int expectedX = -1;
+        for (int tiers = 0; tiers < 8; tiers++) {
+            this.setUp();
+            this.cpu.recompile = (tiers & 1) != 0;
+            this.cpu.fuse = (tiers & 2) != 0;
+            this.cpu.skipIdle = (tiers & 4) != 0;
+            this.loadBranchLoop();
+
+            for (int slice = 1; slice < 200; slice += 7) {
+                this.cpu.run(slice);
+            }
+
+            if (expectedCycles < 0) {
+                expectedCycles = this.cpu.cycles;
+                expectedX = this.cpu.x & 0xFF;
+            }
+            assertEquals(expectedCycles, this.cpu.cycles, "tiers " + tiers);
+            assertEquals(expectedX, this.cpu.x & 0xFF, "tiers " + tiers);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package emu;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionTiersTest {
+    /*
+
+    Tests that run() agrees with step() whichever way it executes code: decoded blocks, fused runs (see Fusion),
+        compiled blocks (see Recompiler) and skipped idle loops, and that all of them see self-modifying code
+
+    Every test is run with each combination of the recompiler, fusion and idle skipping, and compared against a
+        second CPU that only ever steps.
+
+     */
+
+    final private static int CODE = 0x0200;    // random programs are generated from here...
+    final private static int CODE_END = 0x0600;    // ...to here
+    final private static int DATA = 0x0600;    // and mostly read and write $0600-$07ff
+    final private static int SEEDS = 150;
+    final private static long CYCLES = 20_000;  // the most cycles each program is run for
+
+    private static CPU newCpu(byte[] image, int tiers) {
+        CPU cpu = new CPU();
+        System.arraycopy(image, 0, cpu.memory, 0, image.length);
+        cpu.recompile = (tiers & 1) != 0;
+        cpu.fuse = (tiers & 2) != 0;
+        cpu.skipIdle = (tiers & 4) != 0;
+        cpu.signal(Signal.RESET);
+        return cpu;
+    }
+
+    private static String describe(int tiers) {
+        return String.format("recompile %b, fuse %b, skip idle %b", (tiers & 1) != 0, (tiers & 2) != 0,
+                (tiers & 4) != 0);
+    }
+
+    private static void assertSameState(CPU expected, CPU actual, String context) {
+        assertEquals(expected.halted, actual.halted, context + ": halted");
+        assertEquals(expected.cycles, actual.cycles, context + ": cycles");
+        assertEquals(expected.instructions, actual.instructions, context + ": instructions");
+        assertEquals(expected.pc, actual.pc, context + ": PC");
+        assertEquals(expected.a, actual.a, context + ": A");
+        assertEquals(expected.x, actual.x, context + ": X");
+        assertEquals(expected.y, actual.y, context + ": Y");
+        assertEquals(expected.sp, actual.sp, context + ": SP");
+        assertEquals(expected.getStatus(), actual.getStatus(), context + ": P");
+        assertArrayEquals(expected.memory, actual.memory, context + ": memory");
+    }
+
+    /*
+
+    Random programs
+
+     */
+
+    private static int operand(Random random, AddressingMode mode) {
+        switch (mode) {
+            case Absolute:
+            case AbsoluteX:
+            case AbsoluteY:
+                // mostly data, but sometimes code (so the program modifies itself) or anywhere at all
+                int kind = random.nextInt(10);
+                if (kind < 7) {
+                    return DATA + random.nextInt(0x200);
+                } else if (kind < 9) {
+                    return CODE + random.nextInt(CODE_END - CODE);
+                }
+                return random.nextInt(0x10000);
+            default:
+                return random.nextInt(0x100);
+        }
+    }
+
+    private static byte[] generate(long seed) {
+        /*
+        Generates a random program of basic blocks at CODE, over random memory
+        Each block is a few random instructions (or fused runs, or an idle loop's body), ending with a branch back to
+            its start, a jump or call to another block, a return, or nothing (falling through to the next block)
+         */
+
+        Random random = new Random(seed);
+        byte[] memory = new byte[0x10000];
+        random.nextBytes(memory);
+
+        List<Opcode> straight = new ArrayList<>();  // instructions that do not end a block, except BRK
+        List<Opcode> reads = new ArrayList<>(); // and those of them that only read, for idle loops
+        List<Opcode> branches = new ArrayList<>();
+        for (Opcode entry : InstructionTable.OPCODES) {
+            if (entry == null) {
+                continue;
+            } else if (entry.mode == AddressingMode.Relative) {
+                branches.add(entry);
+            } else if (!entry.endsBlock && !entry.mnemonic.equals("SEI")) {
+                straight.add(entry);
+                if (!entry.writesMemory && entry.mode != AddressingMode.Implied
+                        && entry.mode != AddressingMode.Immediate && !entry.mnemonic.startsWith("LD")
+                        && !entry.mnemonic.equals("LAX")) {
+                    reads.add(entry);
+                }
+            }
+        }
+
+        // the blocks start every 32 bytes or so; the last block is left to run into the random memory after it
+        List<Integer> starts = new ArrayList<>();
+        int address = CODE;
+        while (address < CODE_END - 48) {
+            starts.add(address);
+            int start = address;
+
+            int length = 1 + random.nextInt(10);
+            boolean idle = random.nextInt(8) == 0;
+            for (int i = 0; i < length; i++) {
+                if (!idle && random.nextInt(4) == 0) {
+                    // a run the interpreter fuses
+                    Fusion fusion = FusionTable.FUSIONS[random.nextInt(FusionTable.FUSIONS.length)];
+                    for (Opcode entry : fusion.instructions) {
+                        address = emit(memory, address, entry, entry.mode == AddressingMode.Relative
+                                ? random.nextInt(6) : operand(random, entry.mode));
+                    }
+                } else {
+                    List<Opcode> pool = idle ? reads : straight;
+                    Opcode entry = pool.get(random.nextInt(pool.size()));
+                    address = emit(memory, address, entry, operand(random, entry.mode));
+                }
+            }
+
+            int end = random.nextInt(idle ? 2 : 6);
+            if (end == 0) {
+                // a branch back to the start of the block
+                Opcode branch = branches.get(random.nextInt(branches.size()));
+                address = emit(memory, address, branch, (start - (address + 2)) & 0xFF);
+            } else if (end == 1) {
+                address = emit(memory, address, InstructionTable.OPCODES[0x4c], idle ? start : starts.get(0));
+            } else if (end == 2 && starts.size() > 1) {
+                address = emit(memory, address, InstructionTable.OPCODES[0x20],
+                        starts.get(random.nextInt(starts.size())));
+            } else if (end == 3) {
+                address = emit(memory, address, InstructionTable.OPCODES[0x60], 0);
+            }
+        }
+
+        // the interrupt handlers are blocks too
+        int nmi = starts.get(random.nextInt(starts.size()));
+        int irq = starts.get(random.nextInt(starts.size()));
+        memory[0xfffa] = (byte) nmi;
+        memory[0xfffb] = (byte) (nmi >> 8);
+        memory[0xfffc] = (byte) CODE;
+        memory[0xfffd] = (byte) (CODE >> 8);
+        memory[0xfffe] = (byte) irq;
+        memory[0xffff] = (byte) (irq >> 8);
+        return memory;
+    }
+
+    private static int emit(byte[] memory, int address, Opcode entry, int operand) {
+        memory[address] = (byte) entry.opcode;
+        if (entry.length > 1) {
+            memory[address + 1] = (byte) operand;
+        }
+        if (entry.length > 2) {
+            memory[address + 2] = (byte) (operand >> 8);
+        }
+
+        return address + entry.length;
+    }
+
+    @Test
+    void runAgreesWithStep() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            byte[] image = generate(seed);
+            for (int tiers = 0; tiers < 8; tiers++) {
+                String context = "seed " + seed + ", " + describe(tiers);
+                CPU stepped = newCpu(image, tiers);
+                CPU running = newCpu(image, tiers);
+
+                // the slices and interrupts are the same for each tier
+                Random random = new Random(seed);
+                while (!running.halted && running.cycles < CYCLES) {
+                    int interrupt = random.nextInt(40);
+                    if (interrupt == 0) {
+                        stepped.raiseInterrupt(CPU.NMI_LINE);
+                        running.raiseInterrupt(CPU.NMI_LINE);
+                    } else if (interrupt < 4) {
+                        stepped.raiseInterrupt(CPU.IRQ_LINE);
+                        running.raiseInterrupt(CPU.IRQ_LINE);
+                    }
+
+                    // bring the two to the same instruction boundary; a step takes an interrupt and the instruction
+                    // after it together, while a slice may end in between
+                    running.run(1 + random.nextInt(300));
+                    while (true) {
+                        if (!stepped.halted && stepped.cycles < running.cycles) {
+                            stepped.step();
+                        } else if (!running.halted && running.cycles < stepped.cycles) {
+                            running.run(1 + random.nextInt(300));
+                        } else {
+                            break;
+                        }
+                    }
+
+                    // an illegal opcode halts without taking a cycle
+                    if (running.halted && !stepped.halted) {
+                        stepped.step();
+                    } else if (stepped.halted && !running.halted) {
+                        running.run(1);
+                    }
+
+                    assertSameState(stepped, running, context);
+                }
+            }
+        }
+    }
+
+    /*
+
+    Self-modifying code
+
+     */
+
+    private static void selfModifyingBlock(byte[] memory, int block) {
+        /*
+        Assembles the block the tests below modify, and a program that calls it 100 times, then points ($20) at it
+            and calls it 100 more. The block is:
+                LDA #$c8
+                LDY #0
+                STA ($20),Y
+                INX     ; replaced with INY ($c8) once ($20) points here
+                RTS
+        The first 100 calls compile it, and the next modifies it while it runs.
+         */
+
+        int[] code = {0xa9, 0xc8, 0xa0, 0x00, 0x91, 0x20, 0xe8, 0x60};
+        for (int i = 0; i < code.length; i++) {
+            memory[block + i] = (byte) code[i];
+        }
+
+        int inx = block + 6;
+        int[] main = {
+                0x20, block & 0xFF, block >> 8,     // $0200 JSR block
+                0xc6, 0x10,                         //       DEC $10
+                0xd0, 0xf9,                         //       BNE $0200
+                0xa9, inx & 0xFF, 0x85, 0x20,       //       LDA #<inx ; STA $20
+                0xa9, inx >> 8, 0x85, 0x21,         //       LDA #>inx ; STA $21
+                0xa9, 100, 0x85, 0x10,              //       LDA #100 ; STA $10
+                0x20, block & 0xFF, block >> 8,     // $0213 JSR block
+                0xc6, 0x10,                         //       DEC $10
+                0xd0, 0xf9,                         //       BNE $0213
+                0x00                                //       BRK
+        };
+        for (int i = 0; i < main.length; i++) {
+            memory[0x0200 + i] = (byte) main[i];
+        }
+
+        memory[0x10] = 100;
+        memory[0x20] = 0x00;    // ($20) starts out pointing at $0700
+        memory[0x21] = 0x07;
+        memory[0xfffc] = 0x00;
+        memory[0xfffd] = 0x02;
+    }
+
+    private static void runToCompletion(byte[] image, int expectedX, int expectedY) {
+        for (int tiers = 0; tiers < 8; tiers++) {
+            String context = describe(tiers);
+            CPU stepped = newCpu(image, tiers);
+            CPU running = newCpu(image, tiers);
+            while (!stepped.halted) {
+                stepped.step();
+            }
+            while (!running.halted) {
+                running.run(1000);
+            }
+
+            assertEquals(StopReason.BRK, running.haltReason, context);
+            assertEquals(expectedX, running.x & 0xFF, context);
+            assertEquals(expectedY, running.y & 0xFF, context);
+            assertSameState(stepped, running, context);
+        }
+    }
+
+    @Test
+    void writesIntoTheRunningBlock() {
+        // the 101st call replaces its own INX before reaching it; after that, each call runs INY once
+        byte[] image = new byte[0x10000];
+        selfModifyingBlock(image, 0x0400);
+        runToCompletion(image, 100, 1);
+    }
+
+    @Test
+    void writesIntoABlockStartingOnThePreviousPage() {
+        // the same, but the block starts on page 3, and the write is to page 4
+        byte[] image = new byte[0x10000];
+        selfModifyingBlock(image, 0x03fc);
+        assertEquals(0x04, (0x03fc + 6) >> 8);
+        runToCompletion(image, 100, 1);
+    }
+
+    @Test
+    void fusedRunsWriteIntoTheirBlock() {
+        /*
+        A fused LDA zp / STA abs writes the operand of the instruction after it:
+            $0300   loop: LDA $10
+                    STA $0306
+                    LDX #0      ; the operand is replaced with the value of $10
+                    TXA
+                    CLC
+                    ADC $11
+                    STA $11
+                    DEC $10
+                    BNE loop
+                    BRK
+        so $11 ends up as the sum of 1 to 200, modulo 256
+         */
+
+        int[] code = {0xa5, 0x10, 0x8d, 0x06, 0x03, 0xa2, 0x00, 0x8a, 0x18, 0x65, 0x11, 0x85, 0x11, 0xc6, 0x10,
+                0xd0, 0xef, 0x00};
+        DecodedInstruction lda = new DecodedInstruction(InstructionTable.OPCODES[0xa5], 0x10, 0x0302);
+        lda.following = new DecodedInstruction(InstructionTable.OPCODES[0x8d], 0x0306, 0x0305);
+        Fusion fusion = FusionTable.find(lda);
+        assertNotNull(fusion);
+
+        byte[] image = new byte[0x10000];
+        for (int i = 0; i < code.length; i++) {
+            image[0x0300 + i] = (byte) code[i];
+        }
+        image[0x10] = (byte) 200;
+        image[0xfffc] = 0x00;
+        image[0xfffd] = 0x03;
+
+        runToCompletion(image, 1, 0);
+        CPU cpu = newCpu(image, 7);
+        while (!cpu.halted) {
+            cpu.run(1000);
+        }
+        assertEquals((200 * 201 / 2) & 0xFF, cpu.memory[0x11] & 0xFF);
+        assertTrue(cpu.fusionCounts[fusion.id] > 0);
+    }
+}
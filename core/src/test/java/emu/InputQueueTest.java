@@ -0,0 +1,168 @@
+package emu;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InputQueueTest {
+    /*
+
+    Tests the input queue, with a device at $D000 that records every write the queue delivers
+
+     */
+
+    final private static int DEVICE = 0xD000;
+
+    private CPU cpu;
+    private InputQueue queue;
+    private List<Integer> writes;   // each write as (address offset << 8) | value
+
+    @BeforeEach
+    void setUp() throws Exception {
+        this.cpu = new CPU();
+        this.queue = new InputQueue();
+        this.writes = new ArrayList<>();
+        this.cpu.bus.mapDevice(DEVICE >> 8, 1, new PageHandler() {
+            @Override
+            public byte read(int address) {
+                return 0;
+            }
+
+            @Override
+            public void write(int address, byte value) {
+                InputQueueTest.this.writes.add(((address - DEVICE) << 8) | (value & 0xFF));
+            }
+        });
+    }
+
+    @Test
+    void deliversInOrderWhenDue() {
+        assertEquals(Long.MAX_VALUE, this.queue.nextDue());
+        assertTrue(this.queue.post(DEVICE, (byte) 1, false, 0));
+        assertTrue(this.queue.post(DEVICE + 1, (byte) 2, false, 100));
+        assertTrue(this.queue.post(DEVICE + 2, (byte) 3, false, 50));  // held back by the event before it
+        assertEquals(0, this.queue.nextDue());
+
+        this.cpu.cycles = 10;
+        this.queue.deliverDue(this.cpu);
+        assertEquals(List.of(0x0001), this.writes);
+        assertEquals(100, this.queue.nextDue());
+
+        this.cpu.cycles = 99;
+        this.queue.deliverDue(this.cpu);
+        assertEquals(1, this.writes.size());
+
+        this.cpu.cycles = 100;
+        this.queue.deliverDue(this.cpu);
+        assertEquals(List.of(0x0001, 0x0102, 0x0203), this.writes);
+        assertEquals(Long.MAX_VALUE, this.queue.nextDue());
+    }
+
+    @Test
+    void dropsEventsWhenFull() {
+        for (int i = 0; i < InputQueue.CAPACITY; i++) {
+            assertTrue(this.queue.post(DEVICE, (byte) i, false, 0));
+        }
+        assertFalse(this.queue.post(DEVICE, (byte) 0xFF, false, 0));
+
+        // delivering frees the slots again, around the ring
+        this.queue.deliverDue(this.cpu);
+        assertEquals(InputQueue.CAPACITY, this.writes.size());
+        for (int i = 0; i < InputQueue.CAPACITY; i++) {
+            assertEquals(i, (int) this.writes.get(i));
+        }
+
+        for (int i = 0; i < InputQueue.CAPACITY; i++) {
+            assertTrue(this.queue.post(DEVICE, (byte) 1, false, 0));
+        }
+        assertFalse(this.queue.post(DEVICE, (byte) 2, false, 0));
+    }
+
+    @Test
+    void clearDropsEverything() {
+        for (int i = 0; i < InputQueue.CAPACITY; i++) {
+            assertTrue(this.queue.post(DEVICE, (byte) i, false, 1000));
+        }
+
+        this.queue.clear();
+        assertEquals(Long.MAX_VALUE, this.queue.nextDue());
+        this.cpu.cycles = 1000;
+        this.queue.deliverDue(this.cpu);
+        assertTrue(this.writes.isEmpty());
+
+        // and the ring is free again
+        assertTrue(this.queue.post(DEVICE, (byte) 7, false, 0));
+        this.queue.deliverDue(this.cpu);
+        assertEquals(List.of(0x0007), this.writes);
+    }
+
+    @Test
+    void raisesAnIrqOnceWritten() {
+        this.cpu.memory[0xFFFE] = 0x00;
+        this.cpu.memory[0xFFFF] = (byte) 0x90;
+        this.cpu.memory[0x9000] = (byte) 0xEA;  // NOP
+        this.cpu.memory[0x8000] = (byte) 0xEA;
+        this.cpu.status &= ~Status.INTERRUPT_DISABLE;
+        this.cpu.pc = 0x8000;
+        this.cpu.sp = (byte) 0xFF;
+
+        assertTrue(this.queue.post(DEVICE, (byte) 0x41, true, 0));
+        this.queue.deliverDue(this.cpu);
+        assertEquals(List.of(0x0041), this.writes);
+
+        // the IRQ is taken before the next instruction
+        this.cpu.step();
+        assertEquals(0x9001, this.cpu.pc);
+    }
+
+    @Test
+    void concurrentProducers() throws Exception {
+        /*
+        Several threads post as fast as they can, retrying while the queue is full, while this thread delivers
+        Every event must arrive exactly once, and each producer's events in the order it posted them
+         */
+
+        final int producers = 4;
+        final int events = 5_000;
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < events; i++) {
+                    while (!this.queue.post(DEVICE + producer, (byte) i, false, 0)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+
+        final int total = producers * events;
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (this.writes.size() < total) {
+            assertTrue(System.nanoTime() < deadline, "timed out with " + this.writes.size() + " events delivered");
+            this.queue.deliverDue(this.cpu);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        this.queue.deliverDue(this.cpu);
+        assertEquals(total, this.writes.size());
+        assertEquals(Long.MAX_VALUE, this.queue.nextDue());
+
+        int[] next = new int[producers];
+        for (int write : this.writes) {
+            int producer = write >> 8;
+            assertEquals(next[producer] & 0xFF, write & 0xFF, "out of order from producer " + producer);
+            next[producer]++;
+        }
+        for (int p = 0; p < producers; p++) {
+            assertEquals(events, next[p]);
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package emu;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstructionsTest {
+    /*
+
+    Tests the dispatch table, the addressing modes, and the instructions whose behaviour differs from the old switch
+    Each test assembles a few instructions at $8000, resets the CPU, and steps through them
+
+     */
+
+    final private static int ORG = 0x8000;
+
+    // the 151 documented opcodes of the NMOS 6502
+    final private static int[] OFFICIAL = {
+            0x00, 0x01, 0x05, 0x06, 0x08, 0x09, 0x0a, 0x0d, 0x0e, 0x10, 0x11, 0x15, 0x16, 0x18, 0x19, 0x1d, 0x1e,
+            0x20, 0x21, 0x24, 0x25, 0x26, 0x28, 0x29, 0x2a, 0x2c, 0x2d, 0x2e, 0x30, 0x31, 0x35, 0x36, 0x38, 0x39,
+            0x3d, 0x3e, 0x40, 0x41, 0x45, 0x46, 0x48, 0x49, 0x4a, 0x4c, 0x4d, 0x4e, 0x50, 0x51, 0x55, 0x56, 0x58,
+            0x59, 0x5d, 0x5e, 0x60, 0x61, 0x65, 0x66, 0x68, 0x69, 0x6a, 0x6c, 0x6d, 0x6e, 0x70, 0x71, 0x75, 0x76,
+            0x78, 0x79, 0x7d, 0x7e, 0x81, 0x84, 0x85, 0x86, 0x88, 0x8a, 0x8c, 0x8d, 0x8e, 0x90, 0x91, 0x94, 0x95,
+            0x96, 0x98, 0x99, 0x9a, 0x9d, 0xa0, 0xa1, 0xa2, 0xa4, 0xa5, 0xa6, 0xa8, 0xa9, 0xaa, 0xac, 0xad, 0xae,
+            0xb0, 0xb1, 0xb4, 0xb5, 0xb6, 0xb8, 0xb9, 0xba, 0xbc, 0xbd, 0xbe, 0xc0, 0xc1, 0xc4, 0xc5, 0xc6, 0xc8,
+            0xc9, 0xca, 0xcc, 0xcd, 0xce, 0xd0, 0xd1, 0xd5, 0xd6, 0xd8, 0xd9, 0xdd, 0xde, 0xe0, 0xe1, 0xe4, 0xe5,
+            0xe6, 0xe8, 0xe9, 0xea, 0xec, 0xed, 0xee, 0xf0, 0xf1, 0xf5, 0xf6, 0xf8, 0xf9, 0xfd, 0xfe
+    };
+
+    private CPU cpu;
+
+    @BeforeEach
+    void setUp() {
+        this.cpu = new CPU();
+    }
+
+    private void execute(int... code) {
+        // Assembles 'code' at ORG, resets the CPU, and steps until the PC leaves the code
+        for (int i = 0; i < code.length; i++) {
+            this.cpu.memory[ORG + i] = (byte) code[i];
+        }
+
+        this.cpu.signal(Signal.RESET);
+        while (this.cpu.pc >= ORG && this.cpu.pc < ORG + code.length) {
+            assertEquals(StopReason.RUNNING, this.cpu.step());
+        }
+    }
+
+    private void poke(int address, int... values) {
+        for (int i = 0; i < values.length; i++) {
+            this.cpu.memory[(address + i) & 0xFFFF] = (byte) values[i];
+        }
+    }
+
+    private int peek(int address) {
+        return this.cpu.memory[address] & 0xFF;
+    }
+
+    /*
+
+    The dispatch table
+
+     */
+
+    @Test
+    void everyEntryIsConsistent() throws Exception {
+        for (int opcode = 0; opcode < 256; opcode++) {
+            Opcode entry = InstructionTable.OPCODES[opcode];
+            if (entry == null) {
+                continue;
+            }
+
+            String name = String.format("$%02x %s", opcode, entry.handler);
+            assertEquals(opcode, entry.opcode, name);
+
+            int length;
+            switch (entry.mode) {
+                case Implied:
+                    length = 1;
+                    break;
+                case Absolute:
+                case AbsoluteX:
+                case AbsoluteY:
+                case Indirect:
+                    length = 3;
+                    break;
+                default:
+                    length = 2;
+                    break;
+            }
+            assertEquals(length, entry.length, name);
+
+            // the operation is the handler the entry names; the recompiler calls it by that name
+            Method handler = Instructions.class.getDeclaredMethod(entry.handler, CPU.class, int.class);
+            assertTrue(Modifier.isStatic(handler.getModifiers()), name);
+            assertEquals(entry.handler, entry.mnemonic.toLowerCase() + entry.mode.name(), name);
+        }
+    }
+
+    @Test
+    void everyOfficialOpcodeIsSupported() {
+        assertEquals(151, OFFICIAL.length);
+        for (int opcode : OFFICIAL) {
+            assertNotNull(InstructionTable.OPCODES[opcode], String.format("$%02x", opcode));
+        }
+    }
+
+    @Test
+    void unsupportedOpcodesHalt() {
+        // $02 is a KIL on the NMOS 6502, and has no entry
+        assertNull(InstructionTable.OPCODES[0x02]);
+        this.poke(ORG, 0xea, 0x02);
+        this.cpu.signal(Signal.RESET);
+        assertEquals(StopReason.RUNNING, this.cpu.step());
+        assertEquals(StopReason.ILLEGAL_OPCODE, this.cpu.step());
+        assertEquals("Illegal instruction $02 at $8001", this.cpu.getFaultMessage());
+    }
+
+    /*
+
+    Instructions the old switch got wrong
+
+     */
+
+    @Test
+    void incAbsoluteIgnoresX() {
+        this.poke(0x1234, 0x10, 0, 0, 0, 0, 0x20);
+        this.execute(0xa2, 0x05,   // LDX #5
+                0xee, 0x34, 0x12);  // INC $1234
+        assertEquals(0x11, this.peek(0x1234));
+        assertEquals(0x20, this.peek(0x1239));
+    }
+
+    @Test
+    void incAbsoluteXIsIndexed() {
+        this.poke(0x1234, 0x10, 0, 0, 0, 0, 0x20);
+        this.execute(0xa2, 0x05,   // LDX #5
+                0xfe, 0x34, 0x12);  // INC $1234,X
+        assertEquals(0x10, this.peek(0x1234));
+        assertEquals(0x21, this.peek(0x1239));
+    }
+
+    @Test
+    void ldxAndLdyZeroPageDoNotSignExtend() {
+        this.poke(0x0090, 0x11);
+        this.poke(0xff90, 0x22);
+        this.execute(0xa6, 0x90,   // LDX $90
+                0xa4, 0x90);    // LDY $90
+        assertEquals(0x11, this.cpu.x & 0xFF);
+        assertEquals(0x11, this.cpu.y & 0xFF);
+
+        // and likewise when indexed
+        this.poke(0x0091, 0x33);
+        this.execute(0xa0, 0x01,   // LDY #1
+                0xb6, 0x90,     // LDX $90,Y
+                0xa2, 0x01,     // LDX #1
+                0xb4, 0x90);    // LDY $90,X
+        assertEquals(0x01, this.cpu.x & 0xFF);
+        assertEquals(0x33, this.cpu.y & 0xFF);
+    }
+
+    @Test
+    void dcpIndirectDoesNotSignExtendThePointer() {
+        // both pointers are $1280; a sign-extended low byte would give $ff80
+        this.poke(0x0040, 0x80, 0x12);
+        this.poke(0x1280, 0x05, 0x07);
+        this.execute(0xa9, 0x04,   // LDA #4
+                0xa2, 0x01,     // LDX #1
+                0xc3, 0x3f,     // DCP ($3f,X)
+                0xa0, 0x01,     // LDY #1
+                0xd3, 0x40);    // DCP ($40),Y
+        assertEquals(0x04, this.peek(0x1280));
+        assertEquals(0x06, this.peek(0x1281));
+        assertEquals(0, this.peek(0xff80));
+        assertEquals(0, this.peek(0xff81));
+
+        // A < 6, so C is clear and N set
+        assertFalse(this.cpu.isSet(Status.CARRY));
+        assertTrue(this.cpu.isSet(Status.NEGATIVE));
+    }
+
+    @Test
+    void sbcTreatsTheOperandAsUnsigned() {
+        // $10 - $f0 = $20, borrowing
+        this.poke(0x0020, 0xf0);
+        this.execute(0x38,         // SEC
+                0xa9, 0x10,     // LDA #$10
+                0xe5, 0x20);    // SBC $20
+        assertEquals(0x20, this.cpu.a & 0xFF);
+        assertFalse(this.cpu.isSet(Status.CARRY));
+        assertFalse(this.cpu.isSet(Status.OVERFLOW));
+
+        // $50 - $b0 = $a0, borrowing and overflowing
+        this.poke(0x0020, 0xb0);
+        this.execute(0x38,         // SEC
+                0xa9, 0x50,     // LDA #$50
+                0xed, 0x20, 0x00);  // SBC $0020
+        assertEquals(0xa0, this.cpu.a & 0xFF);
+        assertFalse(this.cpu.isSet(Status.CARRY));
+        assertTrue(this.cpu.isSet(Status.OVERFLOW));
+        assertTrue(this.cpu.isSet(Status.NEGATIVE));
+    }
+
+    @Test
+    void iscTreatsTheOperandAsUnsigned() {
+        // INC $20 makes it $f0; then $10 - $f0 = $20
+        this.poke(0x0020, 0xef);
+        this.execute(0x38,         // SEC
+                0xa9, 0x10,     // LDA #$10
+                0xe7, 0x20);    // ISC $20
+        assertEquals(0xf0, this.peek(0x0020));
+        assertEquals(0x20, this.cpu.a & 0xFF);
+        assertFalse(this.cpu.isSet(Status.CARRY));
+    }
+
+    @Test
+    void saxIndexedIndirectUsesX() {
+        this.poke(0x0042, 0x00, 0x30);  // the (zp,X) pointer, $3000
+        this.poke(0x0040, 0x00, 0x20);  // the (zp),Y pointer, which must not be used
+        this.execute(0xa9, 0xf6,   // LDA #$f6
+                0xa2, 0x02,     // LDX #2
+                0xa0, 0x00,     // LDY #0
+                0x83, 0x40);    // SAX ($40,X)
+        assertEquals(0x02, this.peek(0x3000));
+        assertEquals(0, this.peek(0x2000));
+    }
+
+    /*
+
+    Indexing wraps, in every indexed mode
+
+     */
+
+    @Test
+    void zeroPageXWrapsWithinTheZeroPage() {
+        this.poke(0x0010, 0x11);
+        this.poke(0x0110, 0x99);
+        this.execute(0xa2, 0x20,   // LDX #$20
+                0xb5, 0xf0,     // LDA $f0,X
+                0x95, 0xf1);    // STA $f1,X
+        assertEquals(0x11, this.cpu.a & 0xFF);
+        assertEquals(0x11, this.peek(0x0011));
+        assertEquals(0, this.peek(0x0111));
+
+        // read-modify-write too
+        this.execute(0xa2, 0xff,   // LDX #$ff
+                0xf6, 0x12);    // INC $12,X
+        assertEquals(0x12, this.peek(0x0011));
+    }
+
+    @Test
+    void zeroPageYWrapsWithinTheZeroPage() {
+        this.poke(0x0010, 0x22);
+        this.poke(0x0110, 0x99);
+        this.execute(0xa0, 0x20,   // LDY #$20
+                0xb6, 0xf0,     // LDX $f0,Y
+                0x96, 0xf1);    // STX $f1,Y
+        assertEquals(0x22, this.cpu.x & 0xFF);
+        assertEquals(0x22, this.peek(0x0011));
+        assertEquals(0, this.peek(0x0111));
+    }
+
+    @Test
+    void absoluteXWrapsAroundMemory() {
+        this.poke(0x0010, 0x33);
+        this.execute(0xa2, 0x20,   // LDX #$20
+                0xbd, 0xf0, 0xff,   // LDA $fff0,X
+                0x9d, 0xf1, 0xff);  // STA $fff1,X
+        assertEquals(0x33, this.cpu.a & 0xFF);
+        assertEquals(0x33, this.peek(0x0011));
+    }
+
+    @Test
+    void absoluteYWrapsAroundMemory() {
+        this.poke(0x0010, 0x44);
+        this.execute(0xa0, 0x20,   // LDY #$20
+                0xb9, 0xf0, 0xff,   // LDA $fff0,Y
+                0x99, 0xf1, 0xff);  // STA $fff1,Y
+        assertEquals(0x44, this.cpu.a & 0xFF);
+        assertEquals(0x44, this.peek(0x0011));
+    }
+
+    @Test
+    void indexedIndirectWrapsWithinTheZeroPage() {
+        // the operand plus X wraps, to the pointer at $10
+        this.poke(0x0010, 0x00, 0x30);
+        this.poke(0x3000, 0x55);
+        this.execute(0xa2, 0x20,   // LDX #$20
+                0xa1, 0xf0);    // LDA ($f0,X)
+        assertEquals(0x55, this.cpu.a & 0xFF);
+
+        // a pointer at $ff takes its high byte from $00
+        this.poke(0x00ff, 0x00);
+        this.poke(0x0000, 0x31);
+        this.poke(0x3100, 0x66);
+        this.execute(0xa2, 0x0f,   // LDX #$0f
+                0xa1, 0xf0);    // LDA ($f0,X)
+        assertEquals(0x66, this.cpu.a & 0xFF);
+    }
+
+    @Test
+    void indirectIndexedWraps() {
+        // a pointer at $ff takes its high byte from $00
+        this.poke(0x00ff, 0x00);
+        this.poke(0x0000, 0x32);
+        this.poke(0x3201, 0x77);
+        this.execute(0xa0, 0x01,   // LDY #1
+                0xb1, 0xff);    // LDA ($ff),Y
+        assertEquals(0x77, this.cpu.a & 0xFF);
+
+        // and the address plus Y wraps around memory
+        this.poke(0x0040, 0xf0, 0xff);
+        this.poke(0x0010, 0x88);
+        this.execute(0xa0, 0x20,   // LDY #$20
+                0xb1, 0x40,     // LDA ($40),Y
+                0xc8,           // INY
+                0x91, 0x40);    // STA ($40),Y
+        assertEquals(0x88, this.cpu.a & 0xFF);
+        assertEquals(0x88, this.peek(0x0011));
+    }
+
+    @Test
+    void indirectJumpWrapsWithinThePage() {
+        // as on the NMOS 6502, JMP ($12ff) takes its high byte from $1200, not $1300
+        this.poke(0x12ff, 0x34);
+        this.poke(0x1200, 0x56);
+        this.poke(0x1300, 0x99);
+        this.poke(0x5634, 0xea);
+        this.execute(0x6c, 0xff, 0x12);     // JMP ($12ff)
+        assertEquals(0x5634, this.cpu.pc);
+    }
+
+    @Test
+    void branchesWrapAroundMemory() {
+        // a branch back from the start of memory lands at the top
+        this.poke(0x0000, 0xd0, 0xfc);     // BNE -4, from $0002
+        this.poke(0xfffe, 0xea);
+        this.poke(0xfffc, 0x00, 0x00);      // reset to $0000
+        this.cpu.signal(Signal.RESET);
+        this.cpu.clearFlag(Status.ZERO);
+        this.cpu.step();
+        assertEquals(0xfffe, this.cpu.pc);
+    }
+}
@@ -0,0 +1,183 @@
+package emu;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalTimerTest {
+    /*
+
+    Tests the interval timer, mapped at $3000, and the IRQs it raises
+
+    The program clears the I flag and runs NOPs, so the CPU can stop on any even cycle. The IRQ handler at $9000
+        counts IRQs at $10, stores the status the IRQ pushed at $11 and the status inside the handler at $12, then
+        acknowledges the timer and returns:
+        $9000   INC $10
+        $9002   TSX
+        $9003   LDA $0101,X
+        $9006   STA $11
+        $9008   PHP
+        $9009   PLA
+        $900a   STA $12
+        $900c   STA $3003
+        $900f   RTI
+
+     */
+
+    final private static int TIMER = 0x3000;
+
+    // registers and control bits
+    final private static int RELOAD_LOW = 0;
+    final private static int RELOAD_HIGH = 1;
+    final private static int CONTROL = 2;
+    final private static int STATUS = 3;
+    final private static int COUNT_LOW = 4;
+    final private static int COUNT_HIGH = 5;
+    final private static int RUNNING = 0x01;
+    final private static int IRQ_ENABLE = 0x02;
+    final private static int REPEAT = 0x04;
+    final private static int EXPIRED = 0x80;
+
+    private Emulator emulator;
+    private IntervalTimer timer;
+    private byte[] memory;
+    private long start;     // the cycle the NOPs start at
+
+    @BeforeEach
+    void setUp() throws Exception {
+        this.emulator = new Emulator();
+        this.timer = new IntervalTimer(TIMER >> 8);
+        this.emulator.addDevice(this.timer);
+        this.memory = this.emulator.getMemory();
+
+        this.memory[0x8000] = 0x58;
+        Arrays.fill(this.memory, 0x8001, 0x9000, (byte) 0xea);
+        int[] handler = {
+                0xe6, 0x10, 0xba, 0xbd, 0x01, 0x01, 0x85, 0x11, 0x08, 0x68, 0x85, 0x12, 0x8d, 0x03, 0x30, 0x40,
+        };
+        for (int i = 0; i < handler.length; i++) {
+            this.memory[0x9000 + i] = (byte) handler[i];
+        }
+        this.memory[0xfffe] = 0x00;
+        this.memory[0xffff] = (byte) 0x90;
+
+        this.emulator.reset();
+        this.emulator.step();
+        this.start = this.emulator.getCycles();
+    }
+
+    private void write(int register, int value) {
+        this.emulator.writeToMemory(TIMER + register, (byte) value);
+    }
+
+    private int read(int register) {
+        return this.timer.read(TIMER + register) & 0xFF;
+    }
+
+    private void start(int reload, int control) {
+        this.write(RELOAD_LOW, reload);
+        this.write(RELOAD_HIGH, reload >> 8);
+        this.write(CONTROL, control);
+    }
+
+    private void runUntil(long cycle) {
+        // Runs up to 'cycle', cycles after the start
+        this.emulator.run(this.start + cycle - this.emulator.getCycles());
+    }
+
+    @Test
+    void theCountFallsOnceEachPrescaledTick() {
+        // 10 ticks of 16 cycles
+        this.start(10, RUNNING | 0x10);
+        assertEquals(10, this.read(COUNT_LOW));
+        this.runUntil(2);
+        assertEquals(10, this.read(COUNT_LOW));
+        this.runUntil(16);
+        assertEquals(9, this.read(COUNT_LOW));
+        this.runUntil(158);
+        assertEquals(1, this.read(COUNT_LOW));
+        assertEquals(0, this.read(STATUS));
+
+        this.runUntil(160);
+        assertEquals(this.start + 160, this.emulator.getCycles());
+        assertEquals(EXPIRED, this.read(STATUS));
+        assertEquals(0, this.read(CONTROL) & RUNNING);
+        assertEquals(0, this.read(COUNT_LOW));
+
+        // the longest period: 65536 ticks of 4096 cycles
+        this.start(0, RUNNING | 0x30);
+        assertEquals(0, this.read(COUNT_LOW));
+        assertEquals(0, this.read(COUNT_HIGH));
+        this.runUntil(160 + 4096);
+        assertEquals(0xff, this.read(COUNT_LOW));
+        assertEquals(0xff, this.read(COUNT_HIGH));
+    }
+
+    @Test
+    void theExpiredFlagStaysSetUntilAcknowledged() {
+        this.start(20, RUNNING);
+        this.runUntil(100);
+        assertEquals(EXPIRED, this.read(STATUS));
+        assertEquals(EXPIRED, this.read(STATUS));
+
+        this.write(STATUS, 0);
+        assertEquals(0, this.read(STATUS));
+
+        // and stopping the timer cancels its expiry
+        this.start(20, RUNNING);
+        this.runUntil(110);
+        this.write(CONTROL, 0);
+        this.runUntil(200);
+        assertEquals(0, this.read(STATUS));
+        assertEquals(0, this.read(COUNT_LOW));
+    }
+
+    @Test
+    void onlyAnEnabledTimerRaisesAnIrq() {
+        this.start(50, RUNNING);
+        this.runUntil(200);
+        assertEquals(EXPIRED, this.read(STATUS));
+        assertEquals(0, this.memory[0x10]);
+    }
+
+    @Test
+    void theIrqIsTakenAtTheExpiryCycle() {
+        // a slice ending at expiry ends with the IRQ raised, and the next takes it
+        this.start(50, RUNNING | IRQ_ENABLE);
+        this.runUntil(50);
+        assertEquals(this.start + 50, this.emulator.getCycles());
+        assertEquals(0, this.memory[0x10]);
+        assertEquals(StopReason.RUNNING, this.emulator.run(7));
+        assertEquals(this.start + 57, this.emulator.getCycles());
+        assertEquals(0x9000, this.emulator.snapshot().getPC());
+
+        // the status is pushed with the I flag clear, so RTI unmasks IRQs again, and only then is the flag set
+        this.runUntil(200);
+        assertEquals(1, this.memory[0x10]);
+        assertEquals(0, this.memory[0x11] & Status.INTERRUPT_DISABLE);
+        assertEquals(Status.INTERRUPT_DISABLE, this.memory[0x12] & Status.INTERRUPT_DISABLE);
+        assertEquals(0, this.read(STATUS));
+        assertFalse(this.emulator.isSet(Status.INTERRUPT_DISABLE));
+
+        this.start(50, RUNNING | IRQ_ENABLE);
+        this.runUntil(300);
+        assertEquals(2, this.memory[0x10]);
+    }
+
+    @Test
+    void repeatingDoesNotDrift() {
+        // each period is counted from the last expiry, however late the handler runs
+        this.start(100, RUNNING | IRQ_ENABLE | REPEAT);
+        for (int slice = 1; slice <= 100; slice++) {
+            this.runUntil(slice * 97L);
+            assertEquals(0, (this.emulator.getCycles() - this.start + this.read(COUNT_LOW)) % 100);
+        }
+
+        this.runUntil(9750);
+        assertEquals(97, this.memory[0x10]);
+        assertEquals(RUNNING, this.read(CONTROL) & RUNNING);
+    }
+}
@@ -0,0 +1,93 @@
+package emu;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecompilerTest {
+    /*
+
+    Tests that compiled blocks leave when the interpreter would
+
+    The loop unmasks IRQs for one instruction each time round:
+        $8000   SEI
+        $8001   loop: INX
+        $8002   CLI
+        $8003   SEI
+        $8004   INY
+        $8005   JMP loop
+    and the IRQ handler at $9000 stores $42 at $10 and returns.
+
+     */
+
+    private CPU cpu;
+
+    @BeforeEach
+    void setUp() {
+        this.cpu = new CPU();
+        this.cpu.skipIdle = false;
+        int[] loop = {0x78, 0xe8, 0x58, 0x78, 0xc8, 0x4c, 0x01, 0x80};
+        int[] handler = {0xa9, 0x42, 0x85, 0x10, 0x40};
+        for (int i = 0; i < loop.length; i++) {
+            this.cpu.memory[0x8000 + i] = (byte) loop[i];
+        }
+        for (int i = 0; i < handler.length; i++) {
+            this.cpu.memory[0x9000 + i] = (byte) handler[i];
+        }
+        this.cpu.memory[0xfffe] = 0x00;
+        this.cpu.memory[0xffff] = (byte) 0x90;
+        this.cpu.signal(Signal.RESET);
+    }
+
+    private StopReason takePendingIrq(boolean recompile) {
+        // Runs the loop until it would be compiled, raises an IRQ while it is masked, and runs on until the CLI
+        this.cpu.recompile = recompile;
+        while (this.cpu.instructions < 5L * Recompiler.THRESHOLD) {
+            this.cpu.run(100);
+        }
+        while (this.cpu.pc != 0x8001) {
+            this.cpu.step();
+        }
+        assertEquals(recompile, this.cpu.blockCache.get(0x8001).compiled != null);
+        assertTrue(this.cpu.isSet(Status.INTERRUPT_DISABLE));
+
+        this.cpu.raiseInterrupt(CPU.IRQ_LINE);
+        return this.cpu.run(1000);
+    }
+
+    @Test
+    void clearingTheInterruptFlagLeavesACompiledBlock() {
+        // the slice ends right after the CLI, in both cases; a compiled block that ran on would mask the IRQ again
+        for (boolean recompile : new boolean[]{false, true}) {
+            this.setUp();
+            assertEquals(StopReason.RUNNING, this.takePendingIrq(recompile));
+            assertEquals(0x8003, this.cpu.pc, "recompile " + recompile);
+            int y = this.cpu.y;
+
+            // and the IRQ is taken next
+            this.cpu.step();
+            assertEquals(0x9002, this.cpu.pc, "recompile " + recompile);
+            this.cpu.step();
+            assertEquals(0x42, this.cpu.memory[0x10], "recompile " + recompile);
+            assertEquals(y, this.cpu.y, "recompile " + recompile);
+        }
+    }
+
+    @Test
+    void compiledBlocksMatchTheInterpreter() {
+        // the same number of slices, with and without the recompiler, end in the same state
+        long[] state = new long[2];
+        for (int i = 0; i < 2; i++) {
+            this.setUp();
+            this.cpu.recompile = i == 1;
+            for (int slice = 0; slice < 1000; slice++) {
+                this.cpu.run(97);
+            }
+            state[i] = this.cpu.cycles ^ (this.cpu.instructions << 20) ^ ((this.cpu.x & 0xFFL) << 40)
+                    ^ ((this.cpu.y & 0xFFL) << 48) ^ ((long) this.cpu.pc << 32);
+        }
+
+        assertEquals(state[0], state[1]);
+    }
+}
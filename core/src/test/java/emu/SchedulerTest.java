@@ -0,0 +1,159 @@
+package emu;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchedulerTest {
+    /*
+
+    Tests the scheduler on its own, against a sorted list, and through Emulator.run, which must stop for each event
+
+     */
+
+    private Scheduler scheduler;
+    private List<String> fired;     // each event run, as "name@cycle"
+
+    @BeforeEach
+    void setUp() {
+        this.scheduler = new Scheduler();
+        this.fired = new ArrayList<>();
+    }
+
+    private ScheduledEvent event(String name) {
+        return cycle -> this.fired.add(name + "@" + cycle);
+    }
+
+    @Test
+    void eventsRunInCycleOrder() {
+        this.scheduler.schedule(30, this.event("c"));
+        this.scheduler.schedule(10, this.event("a"));
+        this.scheduler.schedule(20, this.event("b"));
+        this.scheduler.schedule(40, this.event("d"));
+        assertEquals(10, this.scheduler.nextDue());
+
+        this.scheduler.runDue(9);
+        assertTrue(this.fired.isEmpty());
+        this.scheduler.runDue(25);
+        assertEquals(List.of("a@10", "b@20"), this.fired);
+        assertEquals(30, this.scheduler.nextDue());
+        this.scheduler.runDue(100);
+        assertEquals(List.of("a@10", "b@20", "c@30", "d@40"), this.fired);
+        assertEquals(Long.MAX_VALUE, this.scheduler.nextDue());
+    }
+
+    @Test
+    void eventsDueOnTheSameCycleRunInTheOrderScheduled() {
+        // enough of them to fill several levels of the heap, and to grow it
+        for (int i = 0; i < 40; i++) {
+            this.scheduler.schedule(i % 2 == 0 ? 50 : 20, this.event(Integer.toString(i)));
+        }
+        this.scheduler.runDue(50);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 1; i < 40; i += 2) {
+            expected.add(i + "@20");
+        }
+        for (int i = 0; i < 40; i += 2) {
+            expected.add(i + "@50");
+        }
+        assertEquals(expected, this.fired);
+    }
+
+    @Test
+    void eventsScheduledWhileRunningRunIfTheyAreDue() {
+        ScheduledEvent late = this.event("late");
+        this.scheduler.schedule(10, cycle -> {
+            this.fired.add("first@" + cycle);
+            this.scheduler.schedule(5, this.event("overdue"));
+            this.scheduler.schedule(12, late);
+            this.scheduler.schedule(15, late);
+        });
+
+        this.scheduler.runDue(12);
+        assertEquals(List.of("first@10", "overdue@5", "late@12"), this.fired);
+        assertEquals(15, this.scheduler.nextDue());
+    }
+
+    @Test
+    void cancellingDropsEveryRunOfAnEvent() {
+        ScheduledEvent cancelled = this.event("x");
+        this.scheduler.schedule(10, cancelled);
+        this.scheduler.schedule(15, this.event("a"));
+        this.scheduler.schedule(20, cancelled);
+        this.scheduler.schedule(15, this.event("b"));
+        this.scheduler.cancel(cancelled);
+
+        assertEquals(15, this.scheduler.nextDue());
+        this.scheduler.runDue(100);
+        assertEquals(List.of("a@15", "b@15"), this.fired);
+    }
+
+    @Test
+    void randomOperationsMatchASortedList() {
+        // each pending event is (cycle, order scheduled, id)
+        Random random = new Random(3);
+        for (int trial = 0; trial < 500; trial++) {
+            this.setUp();
+            List<long[]> pending = new ArrayList<>();
+            List<String> expected = new ArrayList<>();
+            ScheduledEvent[] events = new ScheduledEvent[8];
+            for (int id = 0; id < events.length; id++) {
+                events[id] = this.event(Integer.toString(id));
+            }
+
+            long now = 0;
+            long order = 0;
+            for (int operation = 0; operation < 200; operation++) {
+                int kind = random.nextInt(10);
+                int id = random.nextInt(events.length);
+                if (kind < 6) {
+                    long cycle = now + random.nextInt(50);
+                    this.scheduler.schedule(cycle, events[id]);
+                    pending.add(new long[]{cycle, order++, id});
+                } else if (kind < 7) {
+                    this.scheduler.cancel(events[id]);
+                    pending.removeIf(entry -> entry[2] == id);
+                } else {
+                    now += random.nextInt(30);
+                    this.scheduler.runDue(now);
+                    pending.sort(Comparator.<long[]>comparingLong(entry -> entry[0])
+                            .thenComparingLong(entry -> entry[1]));
+                    while (!pending.isEmpty() && pending.get(0)[0] <= now) {
+                        long[] entry = pending.remove(0);
+                        expected.add(entry[2] + "@" + entry[0]);
+                    }
+                }
+
+                long nextDue = pending.stream().mapToLong(entry -> entry[0]).min().orElse(Long.MAX_VALUE);
+                assertEquals(nextDue, this.scheduler.nextDue(), "trial " + trial);
+            }
+            assertEquals(expected, this.fired, "trial " + trial);
+        }
+    }
+
+    @Test
+    void runStopsForEachEvent() throws Exception {
+        // a run of NOPs, 2 cycles each, so the CPU can stop on any even cycle from the start
+        Emulator emulator = new Emulator();
+        Arrays.fill(emulator.getMemory(), 0x8000, 0x9000, (byte) 0xea);
+        emulator.reset();
+
+        // the CPU is at the event's cycle when it runs, and the slice carries on after it
+        long start = emulator.getCycles();
+        long[] seen = new long[3];
+        emulator.schedule(start + 100, cycle -> seen[0] = emulator.getCycles());
+        emulator.schedule(start + 100, cycle -> seen[1] = emulator.getCycles());
+        emulator.schedule(start + 250, cycle -> seen[2] = emulator.getCycles());
+        assertEquals(StopReason.RUNNING, emulator.run(1000));
+        assertEquals(start + 1000, emulator.getCycles());
+        assertArrayEquals(new long[]{start + 100, start + 100, start + 250}, seen);
+    }
+}
@@ -0,0 +1,106 @@
+package emu;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScreenTest {
+    /*
+
+    Tests the vertical blank: when the NMI is raised and taken, and what the framebuffer latches
+
+    At 3000 Hz and 30 frames a second, a frame is 100 cycles. The program counts in the first pixel:
+        $8000   loop: INC $2400     (6 cycles)
+        $8003   JMP loop            (3 cycles)
+    so its instructions end 6 and 9 cycles into each iteration, and the vertical blank at cycle 100 falls inside the
+        INC that starts at cycle 99. The NMI handler at $9000 counts NMIs at $10 and returns.
+
+     */
+
+    final private static int FRAME_CYCLES = 100;
+
+    private Emulator emulator;
+    private byte[] memory;
+    private long start;     // the cycle the program started at
+
+    private void load(int address, int... code) {
+        for (int i = 0; i < code.length; i++) {
+            this.memory[address + i] = (byte) code[i];
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        this.emulator = new Emulator();
+        this.emulator.setClockRate(FRAME_CYCLES * Screen.DEFAULT_FRAME_RATE);
+        this.memory = this.emulator.getMemory();
+        this.load(0x8000, 0xee, 0x00, 0x24, 0x4c, 0x00, 0x80);
+        this.load(0x9000, 0xe6, 0x10, 0x40);
+        this.load(0xfffa, 0x00, 0x90);
+
+        // the vertical blank is scheduled from the reset
+        this.emulator.reset();
+        this.start = this.emulator.getCycles();
+    }
+
+    @Test
+    void theNmiIsTakenAtTheFirstInstructionBoundaryOfTheVerticalBlank() {
+        // the slice stops at the end of the INC that the vertical blank falls in, with the NMI raised but not taken
+        assertEquals(StopReason.RUNNING, this.emulator.run(FRAME_CYCLES));
+        assertEquals(this.start + 105, this.emulator.getCycles());
+        assertEquals(1, this.emulator.getScreen().getFrameCount());
+        assertEquals(0, this.memory[0x10]);
+
+        // and the next slice starts by taking it
+        assertEquals(StopReason.RUNNING, this.emulator.run(7));
+        assertEquals(this.start + 112, this.emulator.getCycles());
+        assertEquals(0x9000, this.emulator.snapshot().getPC());
+    }
+
+    @Test
+    void theFramebufferIsLatchedAtTheVerticalBlank() {
+        // 12 INCs ended by the vertical blank
+        this.emulator.run(FRAME_CYCLES);
+        Frame frame = this.emulator.getScreen().takeFrame();
+        assertEquals(12, frame.getPixel(0));
+        long version = frame.getVersion();
+
+        // the frame does not follow RAM until the next vertical blank
+        this.emulator.run(FRAME_CYCLES / 2);
+        assertTrue(this.memory[0x2400] > 12);
+        frame = this.emulator.getScreen().takeFrame();
+        assertEquals(12, frame.getPixel(0));
+        assertEquals(version, frame.getVersion());
+
+        // up to the next one
+        this.emulator.run(this.start + 2 * FRAME_CYCLES - this.emulator.getCycles());
+        frame = this.emulator.getScreen().takeFrame();
+        assertEquals(version + 1, frame.getVersion());
+        assertEquals(this.memory[0x2400], frame.getPixel(0));
+        assertEquals(0, frame.nextChanged(0));
+        assertEquals(-1, frame.nextChanged(1));
+    }
+
+    @Test
+    void verticalBlanksKeepToTheFrameLength() {
+        // the NMI handlers do not push the frames back; the tenth vertical blank ends the slice, and its NMI is pending
+        this.emulator.run(10 * FRAME_CYCLES);
+        assertEquals(10, this.emulator.getScreen().getFrameCount());
+        assertEquals(9, this.memory[0x10]);
+        assertTrue(this.emulator.getCycles() - this.start < 10 * FRAME_CYCLES + 9);
+    }
+
+    @Test
+    void aNewFrameRateTakesEffectAtTheNextVerticalBlank() throws Exception {
+        this.emulator.getScreen().setFrameRate(Screen.DEFAULT_FRAME_RATE / 3);
+        this.emulator.run(FRAME_CYCLES);
+        assertEquals(1, this.emulator.getScreen().getFrameCount());
+
+        // the next one is 300 cycles later
+        this.emulator.run(this.start + 4 * FRAME_CYCLES - 10 - this.emulator.getCycles());
+        assertEquals(1, this.emulator.getScreen().getFrameCount());
+        this.emulator.run(10);
+        assertEquals(2, this.emulator.getScreen().getFrameCount());
+    }
+}
@@ -2,27 +2,28 @@ package GUI;
 
 // custom packages
 
-import assembler.Status;
-import emu.DrawGraphics;
+import assembler.Assembler;
+import assembler.Disassembler;
+import emu.EmulationThread;
 import emu.Emulator;
 import emu.Input;
+import emu.Snapshot;
+import emu.StopReason;
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
-import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
-import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
@@ -40,26 +41,28 @@ public class GUI extends Application {
     /*
 
     The GUI class allows a user interface with the emulator.
-    Note the GUI is also responsible for running programs through the use of the animation timer.
+    Programs run on an EmulationThread; the animation timer only renders the latest state it has published.
 
      */
 
     final private Emulator emu;
+    final private EmulationThread runner;  // runs the CPU while a program is running
+    final private Assembler assembler;
 
     final public static int pxWidth = 8;
     final public static int pxHeight = 8;
     final public static int screenWidth = 32;
 
-    private final int INSTRUCTIONS_PER_FRAME = 5_000;
+    // the clock rates available in the Speed menu
+    final private static long[] CLOCK_RATES = {1_000_000, 1_789_773, 2_000_000};
+    final private static String[] CLOCK_RATE_NAMES = {"1 MHz", "1.79 MHz", "2 MHz"};
+
 
     private BooleanProperty genCoreDumpProperty;
 
-    final private Canvas screen;
-    final private GraphicsContext screenContext;
+    final private ScreenView screen;
     private AnimationTimer timer;
-    private long lastNMI;
-
-    final private DrawGraphics gDrawer;
+    private Snapshot lastRendered;  // the snapshot currently on the screen
 
     private int monitorPage;
     private TextArea memoryMonitor;
@@ -171,22 +174,32 @@ public class GUI extends Application {
         }
     }
 
-    private void addBreakpoint(String what, String where) {
+    private void addBreakpoint(String what, String where, String condition) {
         /*
          Adds a breakpoint to the emulator's debugger
          Returns whether the breakpoint was added successfully
 
          @param what    Whether the breakpoint is a label, address, or line number
          @param where   The data in the textfield (actual label name, address, or line number)
+         @param condition   The condition under which to break, e.g. 'A == $10 && mem[$20] > 3'; blank for none
          */
 
         try {
-            emu.debugger.setBreakpoint(getAddress(what, where));
+            emu.debugger.setBreakpoint(getAddress(what, where), condition);
         } catch (Exception e) {
             errorAlert("Could not add breakpoint", e.getMessage());
         }
     }
 
+    private String describeBreakpoint(int address) {
+        // The text for a breakpoint in the breakpoint lists: its address, and its condition and hit count, if any
+        String condition = emu.debugger.getCondition(address);
+        long hits = emu.debugger.getHitCount(address);
+        return String.format("$%04x", address)
+                + (condition == null ? "" : " if " + condition)
+                + (hits == 0 ? "" : " (" + hits + (hits == 1 ? " hit)" : " hits)"));
+    }
+
     private void jump(String type, String data) {
         /*
         Jump to location in memory. This may be an address, label, or line number
@@ -194,7 +207,13 @@ public class GUI extends Application {
         @param  data    The data entered; this will be the actual label, address, or line number
          */
 
+        if (runner.isRunning()) {
+            errorAlert("Could not set PC", "The CPU must be paused to set the PC");
+            return;
+        }
+
         try {
+            runner.stop();  // wait for the emulation thread to be done with the CPU
             emu.debugger.jump(getAddress(type,data));
             this.updateCPUMonitor();
         } catch (Exception e) {
@@ -203,8 +222,9 @@ public class GUI extends Application {
     }
 
     private void pause() {
-        // Pause CPU execution through the debugger
+        // Pause CPU execution through the debugger, and wait for the emulation thread to finish its slice
         this.emu.debugger.pause();
+        this.runner.stop();
         this.userConsole.appendText("Paused.\n");
     }
 
@@ -214,9 +234,10 @@ public class GUI extends Application {
         // put a message in the user console saying we are resuming execution
         userConsole.appendText("Running...\n");
 
-        // resume execution
+        // resume execution; the last emulation thread must be done with the CPU before another starts
+        runner.stop();
         emu.debugger.resume();
-        lastNMI = System.nanoTime();
+        runner.start();
         timer.start();
     }
 
@@ -324,9 +345,9 @@ public class GUI extends Application {
 
         // Add the screen
         Label screenLabel = new Label("Screen");
-        screenLabel.setLabelFor(screen);
+        screenLabel.setLabelFor(screen.getView());
         rightCol.getChildren().add(screenLabel);
-        rightCol.getChildren().add(screen);
+        rightCol.getChildren().add(screen.getView());
         clearScreen();
 
         // add the monitor and its label
@@ -350,117 +371,76 @@ public class GUI extends Application {
         memoryMonitorLabel.setLabelFor(memoryMonitor);
 
         // When the user clicks on the screen, focus on it
-        this.screen.setOnMouseClicked(mouseEvent -> this.screen.requestFocus());
+        this.screen.getView().setOnMouseClicked(mouseEvent -> this.screen.getView().requestFocus());
 
         // If the user presses a key when the screen is in focus, interpret it as an emulated input
-        this.screen.setOnKeyPressed(keyEvent -> {
+        this.screen.getView().setOnKeyPressed(keyEvent -> {
             // Get the text of the key
             String key = (keyEvent.getCharacter().equals(KeyEvent.CHAR_UNDEFINED)) ? keyEvent.getCode().toString() : keyEvent.getText();
 
             // See if we have registered inputs for the keyboard
             // if we do, it overrides all other keyboard inputs
-            if (emu.hasInput("KBD")) {
-                // whole keyboard is mapped
-                Input registeredInput = emu.getInput("KBD");
-                emu.writeToMemory(
-                        registeredInput.getAddress(),
-                        (byte)keyEvent.getCode().getCode()
-                );
-
-                // trigger an IRQ if the input necessitates an IRQ AND if the I flag is clear
-                if (registeredInput.isTriggersIRQ() && !emu.isSet(Status.INTERRUPT_DISABLE))
-                    emu.irq();
-            } else if (emu.hasInput(key)) {
-                // individually-mapped key
-                Input registeredInput = emu.getInput(key);
-                emu.writeToMemory(
-                        registeredInput.getAddress(),
-                        (byte)keyEvent.getCode().getCode()
-                );
-
-                // trigger an IRQ if the input necessitates an IRQ AND if the I flag is clear
-                if (registeredInput.isTriggersIRQ() && !emu.isSet(Status.INTERRUPT_DISABLE))
-                    emu.irq();
+            Input registeredInput = emu.getInput("KBD");   // whole keyboard is mapped
+            if (registeredInput == null) {
+                registeredInput = emu.getInput(key);    // individually-mapped key
+                if (registeredInput == null) {
+                    return;
+                }
             }
+
+            // the input is queued and delivered on the emulation thread, between slices; if it has fallen far behind,
+            // the key is dropped
+            emu.postInput(registeredInput.getAddress(), (byte)keyEvent.getCode().getCode(), registeredInput.isTriggersIRQ());
         });
 
         // show the stage
         primaryStage.setScene(primaryScene);
         primaryStage.show();
 
-        // we will use an animation timer to control CPU speed
+        // the animation timer displays whatever the emulation thread has most recently published
         timer = new AnimationTimer() {
-            // The animation timer that is responsible for stepping the CPU, updating graphics, etc.
+            // The animation timer that is responsible for updating graphics and the monitors
 
             @Override
             public void handle(long now) {
                 // This function will be called _approximately_ 60 times per second
-                // This means, assuming a clock speed of 2MHz and an average of 4 cycles per instruction, we can execute 8k instructions
+                // The CPU runs on its own thread, so if we are slow here we only drop frames
 
-                try {
-                    // NMI will be disabled when the CPU is paused for debugging
-                    if (emu.debugger.isPaused())
-                        this.stop();
-
-                    // trigger an NMI every other frame (30 Hz)
-                    if (now - lastNMI > 33_333_333) {
-                        lastNMI = System.nanoTime();
-                        emu.nmi();
-                    }
+                // check whether the emulation thread has stopped before taking the snapshot, so the final state is drawn
+                StopReason stopReason = runner.getStopReason();
 
-                    // begin the thread
-                    Thread drawerThread = new Thread(gDrawer);
-                    drawerThread.start();
-
-                    // execute our instructions
-                    int i = 0;
-                    if (emu.isDebugMode()) {
-                        while (!emu.debugger.isPaused() && emu.isRunning() && i < INSTRUCTIONS_PER_FRAME) {
-                            try {
-                                emu.debugger.step();
-                                i++;
-                            } catch (Exception e) {
-                                emu.debugger.terminate();
-                                System.out.println("Exception caught: " + e.getMessage());
-                            }
-                        }
-                    } else {
-                        while (emu.isRunning() && i < INSTRUCTIONS_PER_FRAME) {
-                            try {
-                                emu.step();
-                                i++;
-                            } catch (Exception e) {
-                                System.out.println("Exception caught: " + e.getMessage());
-                            }
-                        }
-                    }
+                // the screen hands frames over itself; this does nothing if there is no new one
+                screen.draw(emu.getScreen().takeFrame());
 
-                    // If the CPU stops, then stop the timer and write a message to the console
-                    if (!emu.isRunning()) {
-                        this.stop();
-                        userConsole.appendText("Done.\n");
-
-                        if (genCoreDumpProperty.get()) {
-                            try {
-                                emu.coreDump();
-                            } catch (Exception e) {
-                                System.out.println("Could not generate core dump: " + e.getMessage());
-                            }
-                        }
-                    }
-
-                    // every frame, update the monitor
+                Snapshot snapshot = runner.getSnapshot();
+                if (snapshot != lastRendered) {
+                    lastRendered = snapshot;
                     updateMemoryMonitor(); // todo: get page from user
+                    updateCPUMonitor();
+                }
 
-                    // wait for the draw thread to finish
-                    drawerThread.join();
+                if (stopReason == StopReason.RUNNING) {
+                    return;
+                }
 
-                    // update our CPU monitor
-                    updateCPUMonitor();
-                } catch (InterruptedException e) {
-                    System.out.println("Interrupted. " + e.getMessage());
-                    this.stop();
-                    emu.terminate();
+                // the thread has stopped; stop the timer, and if the program itself stopped, say why
+                this.stop();
+                if (stopReason == StopReason.ILLEGAL_OPCODE) {
+                    if (emu.isDebugMode())
+                        emu.debugger.terminate();
+                    System.out.println("Exception caught: " + emu.debugger.getFaultMessage());
+                }
+
+                if (!emu.isRunning()) {
+                    userConsole.appendText("Done.\n");
+
+                    if (genCoreDumpProperty.get()) {
+                        try {
+                            emu.coreDump();
+                        } catch (Exception e) {
+                            System.out.println("Could not generate core dump: " + e.getMessage());
+                        }
+                    }
                 }
             }
         };
@@ -588,7 +568,7 @@ public class GUI extends Application {
 
         try {
             // Perform the disassembly and populate the textarea
-            ArrayList<String> disAsmData = emu.disassemble(address);
+            ArrayList<String> disAsmData = Disassembler.disassemble(address, latestState().getMemory());
             for (String line: disAsmData) {
                 textArea.appendText(line + "\n");
             }
@@ -637,9 +617,10 @@ public class GUI extends Application {
         hbox.getChildren().add(textArea);
 
         // note we have to ensure a hexdump of page 0xff doesn't overrun our memory
+        Snapshot memory = latestState();
         int i = 0;
         while (i < 256 && (address + i) < 0xffff) {
-            textArea.appendText(String.format("$%02x ", this.emu.getMemory()[address + i]));
+            textArea.appendText(String.format("$%02x ", memory.readMemory(address + i)));
             i++;
         }
         // todo: hexdump a defined number of bytes, or until BRK instruction found?
@@ -724,7 +705,7 @@ public class GUI extends Application {
                     setText(null);
                     setGraphic(null);
                 } else {
-                    setText(String.format("$%04x", item));
+                    setText(describeBreakpoint(item));
                 }
             }
         });
@@ -767,15 +748,14 @@ public class GUI extends Application {
         grid.add(stepButton, 5, 1, 2, 1);
 
         stepButton.setOnAction(actionEvent -> {
-            if (emu.debugger.isPaused()) {
-                try {
-                    emu.debugger.step();
-                    updateCPUMonitor();
-                    updateMemoryMonitor(); // todo: update for page
-                } catch (Exception e) {
+            if (!runner.isRunning()) {
+                runner.stop();  // the thread may still be finishing its last slice
+                if (emu.step() == StopReason.ILLEGAL_OPCODE) {
                     emu.terminate();
-                    userConsole.appendText("Error encountered: " + e.getMessage() + "\n");
+                    userConsole.appendText("Error encountered: " + emu.debugger.getFaultMessage() + "\n");
                 }
+                updateCPUMonitor();
+                updateMemoryMonitor(); // todo: update for page
             } else {
                 // todo: only allow button to be pressed when it is paused?
                 System.out.println("Cannot step when CPU is not paused");
@@ -805,12 +785,16 @@ public class GUI extends Application {
         grid.add(continueButton, 5, 3, 2, 1);
 
         continueButton.setOnAction(actionEvent -> {
-            // we need to step once before we can resume
-            try {
-                emu.debugger.step();
+            if (runner.isRunning()) {
+                return; // already running
+            }
+
+            // we need to step once before we can resume, once the emulation thread is done with the CPU
+            runner.stop();
+            if (emu.step() == StopReason.ILLEGAL_OPCODE) {
+                userConsole.appendText("Could not continue: " + emu.debugger.getFaultMessage() + "\n");
+            } else {
                 resume();
-            } catch (Exception e) {
-                userConsole.appendText("Could not continue: " + e.getMessage() + "\n");
             }
         });
 
@@ -824,11 +808,15 @@ public class GUI extends Application {
         Button updateGraphicsButton = new Button("Update Graphics");
         grid.add(updateGraphicsButton, 7, 5, 2, 1);
 
-        updateGraphicsButton.setOnAction(actionEvent -> {
-            updateCPUMonitor();
-            Thread drawThread = new Thread(gDrawer);
-            drawThread.start();
-        });
+        updateGraphicsButton.setOnAction(actionEvent -> runner.post(() -> {
+            // show the framebuffer as it is now, rather than the last latched frame; memory belongs to the CPU's thread
+            byte[] memory = emu.getMemory().clone();
+            int address = emu.getScreen().getAddress();
+            Platform.runLater(() -> {
+                updateCPUMonitor();
+                screen.draw(memory, address);
+            });
+        }));
 
         // display our panel
         debugStage.show();
@@ -847,9 +835,42 @@ public class GUI extends Application {
         This calls the function 'addBreakpoint' to actually add the data
          */
 
-        String[] bpData = getAddressDataDialog("Add Breakpoint");
-        if (bpData[0] != null)
-            addBreakpoint(bpData[0], bpData[1]);
+        Stage breakpointStage = new Stage();
+        breakpointStage.setTitle("Add Breakpoint");
+
+        HBox hb = new HBox(8);
+        Scene breakpointScene = new Scene(hb, 600, 30);
+        breakpointStage.setScene(breakpointScene);
+
+        ObservableList<String> options =
+                FXCollections.observableArrayList(
+                        "Address",
+                        "Line Number",
+                        "Label"
+                );
+        final ComboBox<String> bpOptions = new ComboBox<>(options);
+        bpOptions.setValue("Address");
+        hb.getChildren().add(bpOptions);
+
+        TextField data = new TextField();
+        hb.getChildren().add(data);
+
+        // the condition is optional; without one, the breakpoint always breaks
+        TextField condition = new TextField();
+        condition.setPromptText("Condition, e.g. A == $10 && mem[$20] > 3");
+        condition.setPrefWidth(250);
+        hb.getChildren().add(condition);
+
+        Button addButton = new Button("Add");
+        addButton.setMaxWidth(100);
+        hb.getChildren().add(addButton);
+
+        addButton.setOnAction(actionEvent -> {
+            addBreakpoint(bpOptions.getValue(), data.getCharacters().toString(), condition.getText());
+            breakpointStage.close();
+        });
+
+        breakpointStage.showAndWait();
     }
 
     private void deleteBreakpointDialog() {
@@ -881,7 +902,7 @@ public class GUI extends Application {
                     setText(null);
                     setGraphic(null);
                 } else {
-                    setText(String.format("$%04x", item));
+                    setText(describeBreakpoint(item));
                 }
             }
         });
@@ -975,8 +996,16 @@ public class GUI extends Application {
 
     private void clearScreen() {
         // Clears the output screen by filling it with all black
-        screenContext.setFill(Color.BLACK);
-        screenContext.fillRect(0, 0, screenWidth * pxWidth, screenWidth * pxHeight);
+        screen.clear();
+    }
+
+    private Snapshot latestState() {
+        // The state to display; while the program runs this is the latest snapshot, otherwise the CPU itself
+        if (!runner.isRunning()) {
+            runner.post(runner::publish);   // if the thread is still finishing, it publishes, else we do once it is done
+        }
+
+        return runner.getSnapshot();
     }
 
     private void updateMemoryMonitor() {
@@ -985,7 +1014,7 @@ public class GUI extends Application {
         if (monitorPage > 255)
             monitorPage = 255;
 
-        byte[] memory = emu.getMemory();
+        byte[] memory = latestState().getMemory();
 
         memoryMonitor.clear();
         for (int i = 0; i < 16; i++) {
@@ -1009,16 +1038,19 @@ public class GUI extends Application {
         Updates the text in the CPU monitor to reflect register values
          */
 
+        Snapshot state = latestState();
+
         registerMonitor.clear();
-        String binaryIntegers = String.format("%8s", Integer.toBinaryString(emu.debugger.getStatus() & 0xFF)).replace(' ', '0');
+        String binaryIntegers = String.format("%8s", Integer.toBinaryString(state.getStatus() & 0xFF)).replace(' ', '0');
         binaryIntegers = binaryIntegers.replace("", " ").substring(1);
-        String displayText = String.format("A: $%02x\nX: $%02x\nY: $%02x\nSP: $%02x\n\nPC: $%04x\n\nSTATUS:\n\tN V B - D I Z C\n\t%16s",
-                emu.debugger.getA(),
-                emu.debugger.getX(),
-                emu.debugger.getY(),
-                emu.debugger.getStackPointer(),
-                emu.debugger.getPC(),
-                binaryIntegers
+        String displayText = String.format("A: $%02x\nX: $%02x\nY: $%02x\nSP: $%02x\n\nPC: $%04x\n\nSTATUS:\n\tN V B - D I Z C\n\t%16s\n\nCYCLES: %d",
+                state.getA(),
+                state.getX(),
+                state.getY(),
+                state.getStackPointer(),
+                state.getPC(),
+                binaryIntegers,
+                state.getCycles()
         );
 
         registerMonitor.appendText(displayText);
@@ -1088,6 +1120,7 @@ public class GUI extends Application {
             File file = fileChooser.showOpenDialog(stage);
             if (file != null) {
                 try {
+                    runner.stop();  // the CPU must not be running while its memory is replaced
                     emu.addBinary(file.getAbsolutePath());
                     emu.debugger.pause();
                     userConsole.appendText("Successfully opened file.\n");
@@ -1119,6 +1152,7 @@ public class GUI extends Application {
             - Hexdump   ->  View a hexdump of a given memory location
             - Generate core dump    ->  Create a core dump on program termination
             - Configure inputs  ->  Add or remove emulated inputs
+            - Fusion statistics ->  Show which instruction runs the interpreter has fused
 
          */
 
@@ -1130,10 +1164,11 @@ public class GUI extends Application {
         MenuItem hexdumpOption = new MenuItem("Hexdump");
         CheckMenuItem coreDump = new CheckMenuItem("Generate core dump");   // todo: generate property getter and setter for this
         MenuItem configureInput = new MenuItem("Configure Inputs");
+        MenuItem fusionStatistics = new MenuItem("Fusion and recompiler statistics");
 
         // add our menu items to the 'tools' menu
         toolsMenu.getItems().addAll(asmOption, disassembleOption, hexdumpOption, new SeparatorMenuItem(), coreDump,
-                new SeparatorMenuItem(), configureInput);
+                new SeparatorMenuItem(), configureInput, fusionStatistics);
 
         // set our actions for each option
         asmOption.setOnAction(actionEvent -> {
@@ -1147,7 +1182,7 @@ public class GUI extends Application {
                 userConsole.appendText("Assembling...\n");
                 try {
                     String filenameNoExtension = FileExt.getFilenameWithoutExtension(asmFile);
-                    emu.assemble(asmFile.getAbsolutePath(), filenameNoExtension);
+                    this.assembler.assemble(asmFile.getAbsolutePath(), filenameNoExtension);
                     userConsole.appendText("Done; no errors.\n");
                 } catch (Exception e) {
                     userConsole.appendText("**** Assembly Error ****\n");
@@ -1164,6 +1199,12 @@ public class GUI extends Application {
 
         configureInput.setOnAction(actionEvent -> configureInputsDialog());
 
+        // the counts belong to the emulation thread, so the report is made there
+        fusionStatistics.setOnAction(actionEvent -> runner.post(() -> {
+            String report = emu.getFusionStatistics() + emu.getRecompilerStatistics();
+            Platform.runLater(() -> userConsole.appendText(report));
+        }));
+
         // set our 'genCoreDumpProperty' to be equal to our
         genCoreDumpProperty = coreDump.selectedProperty();
 
@@ -1178,6 +1219,7 @@ public class GUI extends Application {
             - Run...    ->  Run the program currently loaded into memory
             - Terminate ->  Terminate the running program
             - Reset ->  Send the processor a RESET signal
+            - Speed ->  Select the emulated clock rate, or turbo mode (as fast as possible)
 
          */
 
@@ -1185,8 +1227,9 @@ public class GUI extends Application {
         MenuItem runOption = new MenuItem("Run...");
         MenuItem stopOption = new MenuItem("Terminate");
         MenuItem resetOption = new MenuItem("Reset");
+        Menu speedMenu = speedMenu();
 
-        runMenu.getItems().addAll(runOption, stopOption, resetOption);
+        runMenu.getItems().addAll(runOption, stopOption, resetOption, new SeparatorMenuItem(), speedMenu);
 
         runOption.setOnAction(actionEvent -> {
             // Run program
@@ -1197,12 +1240,14 @@ public class GUI extends Application {
                 emu.debugger.setGenCoreDump(true);
             }
 
+            runner.stop();
             emu.reset();
             resume();
         });
 
         stopOption.setOnAction(actionEvent -> {
             // Terminate program execution
+            runner.stop();
             emu.terminate();
             timer.stop();
             userConsole.appendText("Terminated.\n");
@@ -1212,6 +1257,7 @@ public class GUI extends Application {
             // Reset CPU
 
             // First, terminate
+            runner.stop();
             emu.terminate();
             timer.stop();
 
@@ -1228,6 +1274,43 @@ public class GUI extends Application {
         return runMenu;
     }
 
+    private Menu speedMenu() {
+        /*
+
+        Speed Menu
+        Options are the clock rates listed in CLOCK_RATES, plus turbo mode
+
+         */
+
+        final Menu speedMenu = new Menu("Speed");
+        final ToggleGroup speedGroup = new ToggleGroup();
+
+        for (int i = 0; i < CLOCK_RATES.length; i++) {
+            final long clockRate = CLOCK_RATES[i];
+            RadioMenuItem speedOption = new RadioMenuItem(CLOCK_RATE_NAMES[i]);
+            speedOption.setToggleGroup(speedGroup);
+            speedOption.setSelected(!emu.isTurbo() && emu.getClockRate() == clockRate);
+            speedOption.setOnAction(actionEvent -> runner.post(() -> {
+                // the pacer belongs to the emulation thread while it runs
+                try {
+                    emu.setTurbo(false);
+                    emu.setClockRate(clockRate);
+                } catch (Exception e) {
+                    Platform.runLater(() -> errorAlert("Could not set speed", e.getMessage()));
+                }
+            }));
+            speedMenu.getItems().add(speedOption);
+        }
+
+        RadioMenuItem turboOption = new RadioMenuItem("Turbo");
+        turboOption.setToggleGroup(speedGroup);
+        turboOption.setSelected(emu.isTurbo());
+        turboOption.setOnAction(actionEvent -> runner.post(() -> emu.setTurbo(true)));
+        speedMenu.getItems().addAll(new SeparatorMenuItem(), turboOption);
+
+        return speedMenu;
+    }
+
     private Menu debugMenu() {
         /*
 
@@ -1254,8 +1337,9 @@ public class GUI extends Application {
             userConsole.appendText("Debugging...\n");
             emu.debugger.setGenCoreDump(genCoreDumpProperty.get());
             displayDebugPanel();  // display debugger panel
-            emu.setDebugMode(true); // run in debug mode
             enableDebugMode.setSelected(true);
+            runner.stop();
+            emu.setDebugMode(true); // run in debug mode
             emu.reset();
             resume();
         });
@@ -1277,17 +1361,20 @@ public class GUI extends Application {
 
         displayMemoryMonitorOption.setOnAction(actionEvent -> showMemoryMonitor());
 
-        enableDebugMode.setOnAction(actionEvent -> emu.setDebugMode(enableDebugMode.selectedProperty().get()));
+        enableDebugMode.setOnAction(actionEvent -> {
+            boolean debug = enableDebugMode.selectedProperty().get();
+            runner.post(() -> emu.setDebugMode(debug));
+        });
 
         return debugMenu;
     }
 
     public GUI() {
         this.emu = new Emulator();
-        this.screen = new Canvas(screenWidth * pxWidth, screenWidth * pxHeight);
-        this.screenContext = screen.getGraphicsContext2D();
-        this.lastNMI = 0;
+        this.screen = new ScreenView(pxWidth);
+        this.runner = new EmulationThread(this.emu);
+        this.assembler = new Assembler();
+        this.lastRendered = null;
         this.monitorPage = 0;   // default to the zero page
-        this.gDrawer = new DrawGraphics("gDrawer", this.screenContext, this.emu.getMemory());
     }
 }
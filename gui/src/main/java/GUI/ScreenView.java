@@ -0,0 +1,149 @@
+package GUI;
+
+import emu.Frame;
+import emu.Screen;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.util.Callback;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+final class ScreenView {
+    /*
+
+    Displays the emulated screen
+
+    The screen is a 32x32 image, one image pixel per emulated pixel, backed by a PixelBuffer: drawing a frame just
+        looks each pixel's colour up in a table of ARGB values and stores it in the buffer, which JavaFX then uploads
+        as it is. The ImageView scales the image up without smoothing, so each pixel becomes a sharp block.
+    Frames record which pixels changed since the frame before them, so if that is the frame on the screen, only those
+        pixels are repainted, and only the rows holding them are uploaded. A frame that is already on the screen is
+        not drawn again.
+    The rectangle for each range of rows is made the first time that range is uploaded and kept, so once the ranges a
+        program uses have all been seen, nothing is allocated per frame. Like everything else in JavaFX, this must
+        only be used on the application thread.
+
+     */
+
+    // the colours for the low nibble of each framebuffer byte, as premultiplied ARGB
+    final private static int[] PALETTE = argb(
+            Color.BLACK, Color.WHITE, Color.RED, Color.CYAN, Color.PURPLE, Color.GREEN, Color.BLUE,
+            Color.YELLOW, Color.ORANGE, Color.BROWN, Color.PINK, Color.DARKGRAY, Color.GRAY, Color.LIGHTGREEN,
+            Color.LIGHTBLUE, Color.LIGHTGRAY
+    );
+
+    // tells the PixelBuffer that the whole image has changed
+    final private static Callback<PixelBuffer<IntBuffer>, Rectangle2D> WHOLE_IMAGE = buffer -> null;
+
+    final private IntBuffer pixels;
+    final private PixelBuffer<IntBuffer> buffer;
+    final private ImageView view;
+    final private Callback<PixelBuffer<IntBuffer>, Rectangle2D> changedRows;    // the rows from firstChanged to lastChanged
+
+    private long shownVersion;  // the version of the frame on the screen; -1 if it shows something else
+    private int firstChanged;
+    private int lastChanged;
+    final private Rectangle2D[] rowRanges;  // the rectangle covering rows 'first' to 'last', at first * HEIGHT + last
+
+    private static int[] argb(Color... colors) {
+        int[] values = new int[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            Color color = colors[i];
+            values[i] = (int) Math.round(color.getOpacity() * 255) << 24
+                    | (int) Math.round(color.getRed() * 255) << 16
+                    | (int) Math.round(color.getGreen() * 255) << 8
+                    | (int) Math.round(color.getBlue() * 255);
+        }
+
+        return values;
+    }
+
+    ImageView getView() {
+        // the node showing the screen
+        return this.view;
+    }
+
+    void draw(Frame frame) {
+        // Shows a frame; if it follows the one on the screen, only the pixels that changed are repainted
+        if (frame.getVersion() == this.shownVersion) {
+            return;
+        } else if (this.shownVersion < 0 || frame.getVersion() != this.shownVersion + 1) {
+            this.draw(frame.getPixels(), 0);
+            this.shownVersion = frame.getVersion();
+            return;
+        }
+
+        int first = Screen.HEIGHT;
+        int last = -1;
+        for (int i = frame.nextChanged(0); i >= 0; i = frame.nextChanged(i + 1)) {
+            this.pixels.put(i, PALETTE[frame.getPixel(i) & 0x0F]);
+            first = Math.min(first, i / Screen.WIDTH);
+            last = i / Screen.WIDTH;
+        }
+
+        if (last >= 0) {
+            this.firstChanged = first;
+            this.lastChanged = last;
+            this.buffer.updateBuffer(this.changedRows);
+        }
+
+        this.shownVersion = frame.getVersion();
+    }
+
+    void draw(byte[] memory, int address) {
+        /*
+        Draws a whole frame from memory
+
+        @param  memory  The array holding the frame
+        @param  address The index of the frame's first pixel in 'memory'
+         */
+
+        for (int i = 0; i < Screen.WIDTH * Screen.HEIGHT; i++) {
+            this.pixels.put(i, PALETTE[memory[address + i] & 0x0F]);
+        }
+
+        this.buffer.updateBuffer(WHOLE_IMAGE);
+        this.shownVersion = -1;
+    }
+
+    void clear() {
+        // Fills the screen with black
+        for (int i = 0; i < Screen.WIDTH * Screen.HEIGHT; i++) {
+            this.pixels.put(i, PALETTE[0]);
+        }
+
+        this.buffer.updateBuffer(WHOLE_IMAGE);
+        this.shownVersion = -1;
+    }
+
+    ScreenView(int scale) {
+        /*
+        @param  scale   The width and height of each emulated pixel on the display
+         */
+
+        ByteBuffer bytes = ByteBuffer.allocateDirect(Screen.WIDTH * Screen.HEIGHT * Integer.BYTES);
+        this.pixels = bytes.order(ByteOrder.nativeOrder()).asIntBuffer();
+        this.buffer = new PixelBuffer<>(Screen.WIDTH, Screen.HEIGHT, this.pixels, PixelFormat.getIntArgbPreInstance());
+        this.view = new ImageView(new WritableImage(this.buffer));
+        this.view.setSmooth(false);
+        this.view.setFitWidth(Screen.WIDTH * scale);
+        this.view.setFitHeight(Screen.HEIGHT * scale);
+        this.view.setFocusTraversable(true);    // so that it can take key presses
+        this.rowRanges = new Rectangle2D[Screen.HEIGHT * Screen.HEIGHT];
+        this.changedRows = buffer -> {
+            int range = this.firstChanged * Screen.HEIGHT + this.lastChanged;
+            if (this.rowRanges[range] == null) {
+                this.rowRanges[range] = new Rectangle2D(0, this.firstChanged, Screen.WIDTH,
+                        this.lastChanged - this.firstChanged + 1);
+            }
+            return this.rowRanges[range];
+        };
+        this.shownVersion = -1;
+    }
+}